@@ -1,5 +1,6 @@
 package ast;
 import environment.Environment;
+import scanner.SymbolTable;
 
 /**
  * Assignment is a class representing a variable assignment statement 
@@ -15,8 +16,9 @@ public class Assignment extends Statement
     /**
      * Instance variables
      */
-    private String var;
+    private int var;
     private Expression exp;
+    private int slot = Resolver.UNBOUND;
     
     /**
      * Constructs an Assignment object using the given variable name 
@@ -25,13 +27,52 @@ public class Assignment extends Statement
      *            <expression>);
      * @param s the given variable name
      * @param e the given expression
-     * @postcondition The instance field var is set to s.
+     * @postcondition The instance field var is set to the symbol id 
+     *                of s.
      *              - The instance field exp is set to e.
+     *              - The height is one more than that of e.
      */
     public Assignment(String s, Expression e)
     {
-        var = s;
+        var = SymbolTable.getGlobal().intern(s);
         exp = e;
+        raiseHeight(e);
+    }
+    
+    /**
+     * Constructs an Assignment object using the given symbol id and 
+     * expression.
+     * Usage: Assignment assignment = new Assignment(<symbol id>, 
+     *            <expression>);
+     * @param id the symbol id of the variable name
+     * @param e the given expression
+     * @postcondition The instance field var is set to id.
+     *              - The instance field exp is set to e.
+     *              - The height is one more than that of e.
+     */
+    public Assignment(int id, Expression e)
+    {
+        var = id;
+        exp = e;
+        raiseHeight(e);
+    }
+    
+    /**
+     * Gets the name of the assigned variable.
+     * @return the name interned under the instance field var
+     */
+    public String getName()
+    {
+        return SymbolTable.getGlobal().getName(var);
+    }
+    
+    /**
+     * Gets the symbol id of the name of the assigned variable.
+     * @return the instance field var
+     */
+    public int getId()
+    {
+        return var;
     }
     
     /**
@@ -45,7 +86,42 @@ public class Assignment extends Statement
     {
         int value = exp.eval(env);
         
-        env.setVariable(var, value);
+        store(env, value);
+    }
+    
+    /**
+     * Stores the given value into the assigned variable: into its slot 
+     * in the frame or into the global environment if it has been 
+     * bound, and by name otherwise.
+     * @param env the given environment
+     * @param value the given value
+     * @postcondition The assigned variable holds value.
+     */
+    private void store(Environment env, int value)
+    {
+        if (slot >= 0)
+        {
+            env.setSlot(slot, value);
+        }
+        else if (slot == Resolver.GLOBAL)
+        {
+            env.setGlobal(var, value);
+        }
+        else
+        {
+            env.setVariable(var, value);
+        }
+    }
+    
+    /**
+     * Binds the assigned variable to a slot of the frame of its 
+     * procedure, or to the global environment.
+     * @param s the given slot, or Resolver.GLOBAL
+     * @postcondition The instance field slot is set to s.
+     */
+    void bind(int s)
+    {
+        slot = s;
     }
     
     /**
@@ -58,21 +134,90 @@ public class Assignment extends Statement
     public void compile(Emitter e)
     {
         exp.compile(e);
-        
+        emitStore(e);
+    }
+    
+    /**
+     * Emits MIPS code that stores $v0 into the assigned variable.
+     * @param e the given emitter
+     * @postcondition MIPS code for the store is printed using the 
+     *                given emitter.
+     */
+    private void emitStore(Emitter e)
+    {
         if (e.isLocalVariable(var))
         {
             int offset = e.getOffset(var);
             
-            e.emit("# Stores $v0 into " + "local variable " + var);
+            e.emit("# Stores $v0 into " + "local variable " + 
+                    getName());
             e.emit("sw $v0 " + offset + "($sp)");
             e.emit("");
         }
         else
         {
-            e.emit("# Stores $v0 into " + "var" + var);
-            e.emit("la $t0 " + "var" + var);
+            e.emit("# Stores $v0 into " + "var" + getName());
+            e.emit("la $t0 " + "var" + getName());
             e.emit("sw $v0 ($t0)");
             e.emit("");
         }
     }
+    
+    /**
+     * Runs one step of executing this assignment: first the expression 
+     * is scheduled, unless it is shallow, then its value is stored.
+     * @param in the given interpreter
+     * @param state the step to run, 0 for the first step
+     */
+    void execStep(Interpreter in, int state)
+    {
+        if (state == 0 && !exp.isShallow())
+        {
+            in.schedule(this, 1);
+            in.schedule(exp, 0);
+        }
+        else
+        {
+            store(in.getEnvironment(), in.valueOf(exp, state));
+        }
+    }
+    
+    /**
+     * Runs one step of compiling this assignment: first the expression 
+     * is scheduled, then the store is emitted.
+     * @param e the given emitter
+     * @param state the step to run, 0 for the first step
+     * @param label unused
+     */
+    void compileStep(Emitter e, int state, String label)
+    {
+        if (state == 0)
+        {
+            e.schedule(this, 1, null);
+            e.schedule(exp, 0, null);
+        }
+        else
+        {
+            emitStore(e);
+        }
+    }
+    
+    /**
+     * Gets the number of children of this assignment.
+     * @return 1
+     */
+    public int getChildCount()
+    {
+        return 1;
+    }
+    
+    /**
+     * Gets the child of this assignment at the given index.
+     * @param i the given index
+     * @return the assigned expression
+     */
+    public Node getChild(int i)
+    {
+        return exp;
+    }
 }
@@ -5,11 +5,17 @@ import environment.Environment;
  * BinOp is a class representing a binary arithmetic operation parsed 
  * by the parser. The operation is addition, subtraction, 
  * multiplication, or division.
+ * BinOp objects made by create are of a subclass specialized to their 
+ * operation, whose eval applies it directly, so evaluation never has to 
+ * decide which operation it is. One made by the constructor decides by 
+ * the first character of the operation, never by comparing strings.
  * @author Daniel Wang
  * @version April 30, 2020
  * Usage: BinOp binOp = new BinOp(<operation type>, <left expression>, 
  *            <right expression>);
  *        int value = binOp.eval(<environment>);
+ *        BinOp sum = BinOp.create("+", <left expression>, 
+ *            <right expression>);
  */
 public class BinOp extends Expression
 {
@@ -17,6 +23,7 @@ public class BinOp extends Expression
      * Instance variables
      */
     private String op;
+    private char symbol;
     private Expression exp1;
     private Expression exp2;
     
@@ -28,15 +35,57 @@ public class BinOp extends Expression
      * @param s the given operation
      * @param e1 the given left expression
      * @param e2 the given right expression
-     * @postcondition The instance field op is set to s.
+     * @postcondition The instance field op is set to s, and symbol to 
+     *                its first character.
      *              - The instance field exp1 is set to e1.
      *              - The instance field exp2 is set to e2.
+     *              - The height is one more than that of e1 or e2.
      */
     public BinOp(String s, Expression e1, Expression e2)
     {
         op = s;
+        symbol = s.charAt(0);
         exp1 = e1;
         exp2 = e2;
+        raiseHeight(e1);
+        raiseHeight(e2);
+    }
+    
+    /**
+     * Creates a BinOp object of the subclass specialized to the given 
+     * operation.
+     * @param s the given operation, one of "+", "-", "*" and "/"
+     * @param e1 the given left expression
+     * @param e2 the given right expression
+     * @return a BinOp object applying s to e1 and e2
+     */
+    public static BinOp create(String s, Expression e1, Expression e2)
+    {
+        if (s.equals("+"))
+        {
+            return new Add(e1, e2);
+        }
+        else if (s.equals("-"))
+        {
+            return new Subtract(e1, e2);
+        }
+        else if (s.equals("*"))
+        {
+            return new Multiply(e1, e2);
+        }
+        else
+        {
+            return new Divide(e1, e2);
+        }
+    }
+    
+    /**
+     * Gets the operation of this BinOp object.
+     * @return the instance field op
+     */
+    public String getOperator()
+    {
+        return op;
     }
     
     /**
@@ -51,26 +100,61 @@ public class BinOp extends Expression
         int value1 = exp1.eval(env);
         int value2 = exp2.eval(env);
         
-        int value;
-        
-        if (op.equals("+"))
+        return apply(value1, value2);
+    }
+    
+    /**
+     * Applies the operation represented by this BinOp object to the 
+     * given values.
+     * @param value1 the value of the left expression
+     * @param value2 the value of the right expression
+     * @return the value of the operation
+     */
+    int apply(int value1, int value2)
+    {
+        switch (symbol)
         {
-            value = value1 + value2;
+            case '+': 
+                return value1 + value2;
+            case '-': 
+                return value1 - value2;
+            case '*': 
+                return value1 * value2;
+            default: 
+                return value1 / value2;
         }
-        else if (op.equals("-"))
+    }
+    
+    /**
+     * Runs one step of evaluating this operation: the left expression, 
+     * then the right expression, then the operation itself. A shallow 
+     * operation is evaluated at once.
+     * @param in the given interpreter
+     * @param state the step to run, 0 for the first step
+     */
+    void execStep(Interpreter in, int state)
+    {
+        if (isShallow())
         {
-            value = value1 - value2;
+            in.pushValue(eval(in.getEnvironment()));
         }
-        else if (op.equals("*"))
+        else if (state == 0)
         {
-            value = value1 * value2;
+            in.schedule(this, 1);
+            in.scheduleValue(exp1);
+        }
+        else if (state == 1)
+        {
+            in.schedule(this, 2);
+            in.scheduleValue(exp2);
         }
         else
         {
-            value = value1 / value2;
+            int value2 = in.popValue();
+            int value1 = in.popValue();
+            
+            in.pushValue(apply(value1, value2));
         }
-        
-        return value;
     }
     
     /**
@@ -86,7 +170,17 @@ public class BinOp extends Expression
         e.emitPush("$v0");
         exp2.compile(e);
         e.emitPop("$t0");
-        
+        emitOperation(e);
+    }
+    
+    /**
+     * Emits MIPS code that applies the operation to $t0 and $v0.
+     * @param e the given emitter
+     * @postcondition MIPS code storing $t0 op $v0 into $v0 is printed 
+     *                using the given emitter.
+     */
+    private void emitOperation(Emitter e)
+    {
         if (op.equals("+"))
         {
             e.emit("# Stores $t0 + $v0 into $v0");
@@ -112,4 +206,210 @@ public class BinOp extends Expression
         
         e.emit("");
     }
+    
+    /**
+     * Runs one step of compiling this operation: the left expression, 
+     * then a push of its value, then the right expression, then the 
+     * operation itself. A shallow operation is compiled at once.
+     * @param e the given emitter
+     * @param state the step to run, 0 for the first step
+     * @param label unused
+     */
+    void compileStep(Emitter e, int state, String label)
+    {
+        if (isShallow())
+        {
+            compile(e);
+        }
+        else if (state == 0)
+        {
+            e.schedule(this, 1, null);
+            e.schedule(exp1, 0, null);
+        }
+        else if (state == 1)
+        {
+            e.emitPush("$v0");
+            e.schedule(this, 2, null);
+            e.schedule(exp2, 0, null);
+        }
+        else
+        {
+            e.emitPop("$t0");
+            emitOperation(e);
+        }
+    }
+    
+    /**
+     * Gets the number of children of this operation.
+     * @return 2
+     */
+    public int getChildCount()
+    {
+        return 2;
+    }
+    
+    /**
+     * Gets the child of this operation at the given index.
+     * @param i the given index
+     * @return the left expression if i is 0, the right expression otherwise
+     */
+    public Node getChild(int i)
+    {
+        if (i == 0)
+        {
+            return exp1;
+        }
+        else
+        {
+            return exp2;
+        }
+    }
+    
+    /**
+     * Add is a BinOp specialized to addition.
+     */
+    private static class Add extends BinOp
+    {
+        /**
+         * Constructs a Add object using the given expressions.
+         * @param e1 the given left expression
+         * @param e2 the given right expression
+         */
+        Add(Expression e1, Expression e2)
+        {
+            super("+", e1, e2);
+        }
+        
+        /**
+         * Evaluates the sum of the expressions.
+         * @param env the given environment
+         * @return the sum of the values of the expressions
+         */
+        public int eval(Environment env)
+        {
+            return super.exp1.eval(env) + super.exp2.eval(env);
+        }
+        
+        /**
+         * Adds the given values.
+         * @param value1 the value of the left expression
+         * @param value2 the value of the right expression
+         * @return value1 + value2
+         */
+        int apply(int value1, int value2)
+        {
+            return value1 + value2;
+        }
+    }
+    
+    /**
+     * Subtract is a BinOp specialized to subtraction.
+     */
+    private static class Subtract extends BinOp
+    {
+        /**
+         * Constructs a Subtract object using the given expressions.
+         * @param e1 the given left expression
+         * @param e2 the given right expression
+         */
+        Subtract(Expression e1, Expression e2)
+        {
+            super("-", e1, e2);
+        }
+        
+        /**
+         * Evaluates the difference of the expressions.
+         * @param env the given environment
+         * @return the difference of the values of the expressions
+         */
+        public int eval(Environment env)
+        {
+            return super.exp1.eval(env) - super.exp2.eval(env);
+        }
+        
+        /**
+         * Subtracts the given values.
+         * @param value1 the value of the left expression
+         * @param value2 the value of the right expression
+         * @return value1 - value2
+         */
+        int apply(int value1, int value2)
+        {
+            return value1 - value2;
+        }
+    }
+    
+    /**
+     * Multiply is a BinOp specialized to multiplication.
+     */
+    private static class Multiply extends BinOp
+    {
+        /**
+         * Constructs a Multiply object using the given expressions.
+         * @param e1 the given left expression
+         * @param e2 the given right expression
+         */
+        Multiply(Expression e1, Expression e2)
+        {
+            super("*", e1, e2);
+        }
+        
+        /**
+         * Evaluates the product of the expressions.
+         * @param env the given environment
+         * @return the product of the values of the expressions
+         */
+        public int eval(Environment env)
+        {
+            return super.exp1.eval(env) * super.exp2.eval(env);
+        }
+        
+        /**
+         * Multiplies the given values.
+         * @param value1 the value of the left expression
+         * @param value2 the value of the right expression
+         * @return value1 * value2
+         */
+        int apply(int value1, int value2)
+        {
+            return value1 * value2;
+        }
+    }
+    
+    /**
+     * Divide is a BinOp specialized to division.
+     */
+    private static class Divide extends BinOp
+    {
+        /**
+         * Constructs a Divide object using the given expressions.
+         * @param e1 the given left expression
+         * @param e2 the given right expression
+         */
+        Divide(Expression e1, Expression e2)
+        {
+            super("/", e1, e2);
+        }
+        
+        /**
+         * Evaluates the quotient of the expressions.
+         * @param env the given environment
+         * @return the quotient of the values of the expressions
+         */
+        public int eval(Environment env)
+        {
+            return super.exp1.eval(env) / super.exp2.eval(env);
+        }
+        
+        /**
+         * Divides the given values.
+         * @param value1 the value of the left expression
+         * @param value2 the value of the right expression
+         * @return value1 / value2
+         */
+        int apply(int value1, int value2)
+        {
+            return value1 / value2;
+        }
+    }
 }
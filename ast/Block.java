@@ -23,10 +23,17 @@ public class Block extends Statement
      * Usage: Block block = new Block(<list of statements>);
      * @param list the given list of statements
      * @postcondition The instance field stmts is set to list.
+     *              - The height is one more than that of the tallest 
+     *                statement in list.
      */
     public Block(List<Statement> list)
     {
         stmts = list;
+        
+        for (Statement s : list)
+        {
+            raiseHeight(s);
+        }
     }
     
     /**
@@ -56,4 +63,59 @@ public class Block extends Statement
             s.compile(e);
         }
     }
+    
+    /**
+     * Runs one step of executing this block. Step i schedules the 
+     * statement at index i, followed by step i + 1 unless it is the 
+     * last statement.
+     * @param in the given interpreter
+     * @param state the index of the next statement to run
+     */
+    void execStep(Interpreter in, int state)
+    {
+        if (state + 1 < stmts.size())
+        {
+            in.schedule(this, state + 1);
+        }
+        
+        if (state < stmts.size())
+        {
+            in.scheduleExec(stmts.get(state));
+        }
+    }
+    
+    /**
+     * Runs one step of compiling this block. Step i schedules the 
+     * statement at index i, followed by step i + 1.
+     * @param e the given emitter
+     * @param state the index of the next statement to compile
+     * @param label unused
+     */
+    void compileStep(Emitter e, int state, String label)
+    {
+        if (state < stmts.size())
+        {
+            e.schedule(this, state + 1, null);
+            e.schedule(stmts.get(state), 0, null);
+        }
+    }
+    
+    /**
+     * Gets the number of children of this block.
+     * @return the number of statements
+     */
+    public int getChildCount()
+    {
+        return stmts.size();
+    }
+    
+    /**
+     * Gets the child of this block at the given index.
+     * @param i the given index
+     * @return the statement at index i
+     */
+    public Node getChild(int i)
+    {
+        return stmts.get(i);
+    }
 }
@@ -5,17 +5,30 @@ import environment.Environment;
  * Condition is a class representing a boolean condition parsed by the 
  * parser. The boolean condition is equals, not equals, less than, 
  * greater than, less than or equals, or greater than or equals.
+ * Conditions are tested with test, which returns a boolean, so that IF 
+ * statements and WHILE loops need not compare an integer with 1. 
+ * Condition objects made by create are of a subclass specialized to 
+ * their comparison, and one made by the constructor decides by a code 
+ * worked out once, so testing never compares strings.
  * @author Daniel Wang
  * @version April 30, 2020
- * Usage: Condition condition = new Condition(<condition type>, 
+ * Usage: Condition condition = Condition.create(<condition type>, 
  *            <left expression>, <right expression>);
+ *        boolean b = condition.test(<environment>);
  */
 public class Condition extends Expression
 {
+    /**
+     * The boolean conditions, in the order of their codes
+     */
+    private static final String[] RELOPS = 
+        {"=", "<>", "<", ">", "<=", ">="};
+    
     /**
      * Instance variables
      */
     private String relop;
+    private int code;
     private Expression exp1;
     private Expression exp2;
     
@@ -27,15 +40,74 @@ public class Condition extends Expression
      * @param s the given boolean condition
      * @param e1 the given left expression
      * @param e2 the given right expression
-     * @postcondition The instance relop is set to s.
+     * @postcondition The instance relop is set to s, and code to its 
+     *                index in RELOPS.
      *              - The instance exp1 is set to e1.
      *              - The instance exp2 is set to e2.
+     *              - The height is one more than that of e1 or e2.
      */
     public Condition(String s, Expression e1, Expression e2)
     {
         relop = s;
+        code = codeOf(s);
         exp1 = e1;
         exp2 = e2;
+        raiseHeight(e1);
+        raiseHeight(e2);
+    }
+    
+    /**
+     * Creates a Condition object of the subclass specialized to the 
+     * given boolean condition.
+     * @param s the given boolean condition
+     * @param e1 the given left expression
+     * @param e2 the given right expression
+     * @return a Condition object comparing e1 with e2 by s
+     */
+    public static Condition create(String s, Expression e1, Expression e2)
+    {
+        switch (codeOf(s))
+        {
+            case 0: 
+                return new Equals(e1, e2);
+            case 1: 
+                return new NotEquals(e1, e2);
+            case 2: 
+                return new Less(e1, e2);
+            case 3: 
+                return new Greater(e1, e2);
+            case 4: 
+                return new LessEquals(e1, e2);
+            default: 
+                return new GreaterEquals(e1, e2);
+        }
+    }
+    
+    /**
+     * Finds the code of the given boolean condition.
+     * @param s the given boolean condition
+     * @return the index of s in RELOPS, or the last index if s is not 
+     *         there
+     */
+    private static int codeOf(String s)
+    {
+        int i = 0;
+        
+        while (i < RELOPS.length - 1 && !RELOPS[i].equals(s))
+        {
+            i++;
+        }
+        
+        return i;
+    }
+    
+    /**
+     * Gets the boolean condition of this Condition object.
+     * @return the instance field relop
+     */
+    public String getRelop()
+    {
+        return relop;
     }
     
     /**
@@ -47,43 +119,93 @@ public class Condition extends Expression
      */
     public int eval(Environment env)
     {
-        int value1 = exp1.eval(env);
-        int value2 = exp2.eval(env);
-        
-        boolean b;
-        
-        if (relop.equals("="))
+        if (test(env))
         {
-            b = value1 == value2;
-        }
-        else if (relop.equals("<>"))
-        {
-            b = value1 != value2;
+            return 1;
         }
-        else if (relop.equals("<"))
+        else
         {
-            b = value1 < value2;
+            return 0;
         }
-        else if (relop.equals(">"))
+    }
+    
+    /**
+     * Tests the boolean condition represented by this Condition object 
+     * using the given environment.
+     * @param env the given environment
+     * @return true if the boolean condition holds, false otherwise
+     */
+    public boolean test(Environment env)
+    {
+        int value1 = exp1.eval(env);
+        int value2 = exp2.eval(env);
+        
+        return compare(value1, value2);
+    }
+    
+    /**
+     * Compares the given values with the boolean condition represented 
+     * by this Condition object.
+     * @param value1 the value of the left expression
+     * @param value2 the value of the right expression
+     * @return true if the boolean condition holds for the values, 
+     *         false otherwise
+     */
+    boolean compare(int value1, int value2)
+    {
+        switch (code)
         {
-            b = value1 > value2;
+            case 0: 
+                return value1 == value2;
+            case 1: 
+                return value1 != value2;
+            case 2: 
+                return value1 < value2;
+            case 3: 
+                return value1 > value2;
+            case 4: 
+                return value1 <= value2;
+            default: 
+                return value1 >= value2;
         }
-        else if (relop.equals("<="))
+    }
+    
+    /**
+     * Runs one step of evaluating this condition: the left expression, 
+     * then the right expression, then the comparison itself. A shallow 
+     * condition is evaluated at once.
+     * @param in the given interpreter
+     * @param state the step to run, 0 for the first step
+     */
+    void execStep(Interpreter in, int state)
+    {
+        if (isShallow())
         {
-            b = value1 <= value2;
+            in.pushValue(eval(in.getEnvironment()));
         }
-        else
+        else if (state == 0)
         {
-            b = value1 >= value2;
+            in.schedule(this, 1);
+            in.scheduleValue(exp1);
         }
-        
-        if (b)
+        else if (state == 1)
         {
-            return 1;
+            in.schedule(this, 2);
+            in.scheduleValue(exp2);
         }
         else
         {
-            return 0;
+            int value2 = in.popValue();
+            int value1 = in.popValue();
+            
+            if (compare(value1, value2))
+            {
+                in.pushValue(1);
+            }
+            else
+            {
+                in.pushValue(0);
+            }
         }
     }
     
@@ -101,7 +223,19 @@ public class Condition extends Expression
         e.emitPush("$v0");
         exp2.compile(e);
         e.emitPop("$t0");
-        
+        emitBranch(e, label);
+    }
+    
+    /**
+     * Emits MIPS code that compares $t0 with $v0 and jumps to the 
+     * given label if the boolean condition is false.
+     * @param e the given emitter
+     * @param label the given label
+     * @postcondition MIPS code for the branch is printed using the 
+     *                given emitter.
+     */
+    private void emitBranch(Emitter e, String label)
+    {
         if (relop.equals("="))
         {
             e.emit("# If $t0 <> $v0 then jump to " + label);
@@ -135,4 +269,287 @@ public class Condition extends Expression
         
         e.emit("");
     }
+    
+    /**
+     * Runs one step of compiling this condition: the left expression, 
+     * then a push of its value, then the right expression, then the 
+     * branch to the given label. A shallow condition is compiled at 
+     * once.
+     * @param e the given emitter
+     * @param state the step to run, 0 for the first step
+     * @param label the label to jump to if the condition is false
+     */
+    void compileStep(Emitter e, int state, String label)
+    {
+        if (isShallow())
+        {
+            compile(e, label);
+        }
+        else if (state == 0)
+        {
+            e.schedule(this, 1, label);
+            e.schedule(exp1, 0, null);
+        }
+        else if (state == 1)
+        {
+            e.emitPush("$v0");
+            e.schedule(this, 2, label);
+            e.schedule(exp2, 0, null);
+        }
+        else
+        {
+            e.emitPop("$t0");
+            emitBranch(e, label);
+        }
+    }
+    
+    /**
+     * Gets the number of children of this condition.
+     * @return 2
+     */
+    public int getChildCount()
+    {
+        return 2;
+    }
+    
+    /**
+     * Gets the child of this condition at the given index.
+     * @param i the given index
+     * @return the left expression if i is 0, the right expression otherwise
+     */
+    public Node getChild(int i)
+    {
+        if (i == 0)
+        {
+            return exp1;
+        }
+        else
+        {
+            return exp2;
+        }
+    }
+    
+    /**
+     * Equals is a Condition specialized to the boolean condition =.
+     */
+    private static class Equals extends Condition
+    {
+        /**
+         * Constructs an Equals object using the given expressions.
+         * @param e1 the given left expression
+         * @param e2 the given right expression
+         */
+        Equals(Expression e1, Expression e2)
+        {
+            super("=", e1, e2);
+        }
+        
+        /**
+         * Tests whether the left expression is equal to the right one.
+         * @param env the given environment
+         * @return true if it is, false otherwise
+         */
+        public boolean test(Environment env)
+        {
+            return super.exp1.eval(env) == super.exp2.eval(env);
+        }
+        
+        /**
+         * Compares the given values.
+         * @param value1 the value of the left expression
+         * @param value2 the value of the right expression
+         * @return value1 == value2
+         */
+        boolean compare(int value1, int value2)
+        {
+            return value1 == value2;
+        }
+    }
+    
+    /**
+     * NotEquals is a Condition specialized to the boolean condition <>.
+     */
+    private static class NotEquals extends Condition
+    {
+        /**
+         * Constructs a NotEquals object using the given expressions.
+         * @param e1 the given left expression
+         * @param e2 the given right expression
+         */
+        NotEquals(Expression e1, Expression e2)
+        {
+            super("<>", e1, e2);
+        }
+        
+        /**
+         * Tests whether the left expression is not equal to the right one.
+         * @param env the given environment
+         * @return true if it is, false otherwise
+         */
+        public boolean test(Environment env)
+        {
+            return super.exp1.eval(env) != super.exp2.eval(env);
+        }
+        
+        /**
+         * Compares the given values.
+         * @param value1 the value of the left expression
+         * @param value2 the value of the right expression
+         * @return value1 != value2
+         */
+        boolean compare(int value1, int value2)
+        {
+            return value1 != value2;
+        }
+    }
+    
+    /**
+     * Less is a Condition specialized to the boolean condition <.
+     */
+    private static class Less extends Condition
+    {
+        /**
+         * Constructs a Less object using the given expressions.
+         * @param e1 the given left expression
+         * @param e2 the given right expression
+         */
+        Less(Expression e1, Expression e2)
+        {
+            super("<", e1, e2);
+        }
+        
+        /**
+         * Tests whether the left expression is less than the right one.
+         * @param env the given environment
+         * @return true if it is, false otherwise
+         */
+        public boolean test(Environment env)
+        {
+            return super.exp1.eval(env) < super.exp2.eval(env);
+        }
+        
+        /**
+         * Compares the given values.
+         * @param value1 the value of the left expression
+         * @param value2 the value of the right expression
+         * @return value1 < value2
+         */
+        boolean compare(int value1, int value2)
+        {
+            return value1 < value2;
+        }
+    }
+    
+    /**
+     * Greater is a Condition specialized to the boolean condition >.
+     */
+    private static class Greater extends Condition
+    {
+        /**
+         * Constructs a Greater object using the given expressions.
+         * @param e1 the given left expression
+         * @param e2 the given right expression
+         */
+        Greater(Expression e1, Expression e2)
+        {
+            super(">", e1, e2);
+        }
+        
+        /**
+         * Tests whether the left expression is greater than the right one.
+         * @param env the given environment
+         * @return true if it is, false otherwise
+         */
+        public boolean test(Environment env)
+        {
+            return super.exp1.eval(env) > super.exp2.eval(env);
+        }
+        
+        /**
+         * Compares the given values.
+         * @param value1 the value of the left expression
+         * @param value2 the value of the right expression
+         * @return value1 > value2
+         */
+        boolean compare(int value1, int value2)
+        {
+            return value1 > value2;
+        }
+    }
+    
+    /**
+     * LessEquals is a Condition specialized to the boolean condition <=.
+     */
+    private static class LessEquals extends Condition
+    {
+        /**
+         * Constructs a LessEquals object using the given expressions.
+         * @param e1 the given left expression
+         * @param e2 the given right expression
+         */
+        LessEquals(Expression e1, Expression e2)
+        {
+            super("<=", e1, e2);
+        }
+        
+        /**
+         * Tests whether the left expression is less than or equal to the 
+         * right one.
+         * @param env the given environment
+         * @return true if it is, false otherwise
+         */
+        public boolean test(Environment env)
+        {
+            return super.exp1.eval(env) <= super.exp2.eval(env);
+        }
+        
+        /**
+         * Compares the given values.
+         * @param value1 the value of the left expression
+         * @param value2 the value of the right expression
+         * @return value1 <= value2
+         */
+        boolean compare(int value1, int value2)
+        {
+            return value1 <= value2;
+        }
+    }
+    
+    /**
+     * GreaterEquals is a Condition specialized to the boolean condition >=.
+     */
+    private static class GreaterEquals extends Condition
+    {
+        /**
+         * Constructs a GreaterEquals object using the given expressions.
+         * @param e1 the given left expression
+         * @param e2 the given right expression
+         */
+        GreaterEquals(Expression e1, Expression e2)
+        {
+            super(">=", e1, e2);
+        }
+        
+        /**
+         * Tests whether the left expression is greater than or equal to the 
+         * right one.
+         * @param env the given environment
+         * @return true if it is, false otherwise
+         */
+        public boolean test(Environment env)
+        {
+            return super.exp1.eval(env) >= super.exp2.eval(env);
+        }
+        
+        /**
+         * Compares the given values.
+         * @param value1 the value of the left expression
+         * @param value2 the value of the right expression
+         * @return value1 >= value2
+         */
+        boolean compare(int value1, int value2)
+        {
+            return value1 >= value2;
+        }
+    }
 }
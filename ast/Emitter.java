@@ -1,8 +1,10 @@
 package ast;
-import java.util.List;
+import scanner.SymbolTable;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.FileWriter;
 import java.io.PrintWriter;
+import java.util.Arrays;
 
 /**
  * Emitter is a class that emits lines of MIPS code to a file.
@@ -17,25 +19,38 @@ public class Emitter
      */
     private PrintWriter out;
     private int whichIf;
-    private ProcedureDeclaration currentProcedure;
+    private boolean inProcedure;
+    private int procedureName;
+    private int[] procedureParameters;
+    private int[] procedureLocals;
     private int excessStackHeight;
+    private Node[] taskNodes;
+    private int[] taskStates;
+    private String[] taskLabels;
+    private int taskTop;
     
     /**
      * Creates an emitter for writing to a new file with the given name.
      * @param outputFileName the given name
-     * @postcondition The instance field out is set to a new 
+     * @postcondition The instance field out is set to a new buffered 
      *                PrintWriter object for writing to a new file with 
      *                the given name.
      *              - The instance field whichIf is set to 1.
+     *              - The task stack is empty.
      */
     public Emitter(String outputFileName)
     {
         try
         {
-            out = new PrintWriter(new FileWriter(outputFileName), true);
+            out = new PrintWriter(new BufferedWriter( 
+                new FileWriter(outputFileName)));
             whichIf = 1;
-            currentProcedure = null;
+            inProcedure = false;
             excessStackHeight = 0;
+            taskNodes = new Node[64];
+            taskStates = new int[64];
+            taskLabels = new String[64];
+            taskTop = 0;
         }
         catch(IOException e)
         {
@@ -67,6 +82,58 @@ public class Emitter
         out.close();
     }
     
+    /**
+     * Compiles the given node. Rather than recursing into its children, 
+     * the node is compiled as a series of steps on an explicit task 
+     * stack, so deeply nested trees are bounded by the heap rather than 
+     * by the size of the thread stack.
+     * @param n the given node
+     * @postcondition MIPS code for n is printed by this emitter.
+     */
+    public void compile(Node n)
+    {
+        int base = taskTop;
+        
+        schedule(n, 0, null);
+        
+        while (taskTop > base)
+        {
+            taskTop--;
+            
+            Node task = taskNodes[taskTop];
+            String label = taskLabels[taskTop];
+            taskNodes[taskTop] = null;
+            taskLabels[taskTop] = null;
+            
+            task.compileStep(this, taskStates[taskTop], label);
+        }
+    }
+    
+    /**
+     * Schedules the given step of compiling the given node. Steps run 
+     * in the reverse of the order in which they are scheduled.
+     * @param n the given node
+     * @param state the step of n to run, 0 for the first step
+     * @param label the label the step needs, or null
+     * @postcondition The step is on top of the task stack.
+     */
+    void schedule(Node n, int state, String label)
+    {
+        if (taskTop == taskNodes.length)
+        {
+            int size = taskTop * 2;
+            
+            taskNodes = Arrays.copyOf(taskNodes, size);
+            taskStates = Arrays.copyOf(taskStates, size);
+            taskLabels = Arrays.copyOf(taskLabels, size);
+        }
+        
+        taskNodes[taskTop] = n;
+        taskStates[taskTop] = state;
+        taskLabels[taskTop] = label;
+        taskTop++;
+    }
+    
     /**
      * Emits MIPS code to push the given register onto the stack.
      * @param reg the given register
@@ -114,81 +181,128 @@ public class Emitter
      * Sets the procedure context of this emitter to the given 
      * ProcedureDeclaration object.
      * @param proc the given ProcedureDeclaration object
-     * @postcondition currentProcedure is set to proc
+     * @postcondition The procedure context is set to proc
      *              - excessStackHeight is set to 0
      */
     public void setProcedureContext(ProcedureDeclaration proc)
     {
-        currentProcedure = proc;
+        setProcedureContext(proc.getId(), proc.getParameterIds(), 
+            proc.getLocalVariableIds());
+    }
+    
+    /**
+     * Sets the procedure context of this emitter to the procedure with 
+     * the given name, parameters and local variables.
+     * @param name the symbol id of the procedure name
+     * @param parameters the symbol ids of the parameter names
+     * @param locals the symbol ids of the local variable names
+     * @postcondition The procedure context is set to the given 
+     *                procedure
+     *              - excessStackHeight is set to 0
+     */
+    public void setProcedureContext(int name, int[] parameters, 
+            int[] locals)
+    {
+        inProcedure = true;
+        procedureName = name;
+        procedureParameters = parameters;
+        procedureLocals = locals;
         excessStackHeight = 0;
     }
     
     /**
      * Clears the procedure context of this emitter.
-     * @postcondition currentProcedure is set to null
+     * @postcondition There is no procedure context
      */
     public void clearProcedureContext()
     {
-        currentProcedure = null;
+        inProcedure = false;
+    }
+    
+    /**
+     * Finds the given id in the given array.
+     * @param ids the given array
+     * @param id the given id
+     * @return the index of id in ids, or -1 if ids does not contain id
+     */
+    private static int indexOf(int[] ids, int id)
+    {
+        for (int i = 0; i < ids.length; i++)
+        {
+            if (ids[i] == id)
+            {
+                return i;
+            }
+        }
+        
+        return -1;
     }
     
     /**
      * Checks whether a variable is a local variable.
-     * @param varName the name of the variable
+     * @param varName the symbol id of the name of the variable
      * @return true if the variable is local, false otherwise
      */
-    public boolean isLocalVariable(String varName)
+    public boolean isLocalVariable(int varName)
     {
-        if (currentProcedure == null)
+        if (!inProcedure)
         {
             return false;
         }
         else
         {
-            String procedureName = currentProcedure.getName();
-            
-            if (varName.equals(procedureName))
+            if (varName == procedureName)
             {
                 return true;
             }
             else
             {
-                List<String> ps = currentProcedure.getParameterNames();
+                int[] ps = procedureParameters;
                 
-                if (ps.contains(varName))
+                if (indexOf(ps, varName) >= 0)
                 {
                     return true;
                 }
                 else
                 {
-                    List<String> vs = 
-                            currentProcedure.getLocalVariableNames();
+                    int[] vs = procedureLocals;
                     
-                    return vs.contains(varName);
+                    return indexOf(vs, varName) >= 0;
                 }
             }
         }
     }
     
+    /**
+     * Checks whether a variable is a local variable.
+     * @param varName the name of the variable
+     * @return true if the variable is local, false otherwise
+     */
+    public boolean isLocalVariable(String varName)
+    {
+        return isLocalVariable(SymbolTable.getGlobal().intern(varName));
+    }
+    
     /**
      * Gets the offset of a local variable.
-     * @param localVarName the name of the local variable
+     * @param localVarName the symbol id of the name of the local 
+     *                     variable
      * @return an integer representing the offset of the variable in 
      *         the stack
      */
-    public int getOffset(String localVarName)
+    public int getOffset(int localVarName)
     {
-        List<String> ps = currentProcedure.getParameterNames();
+        int[] ps = procedureParameters;
+        
+        int[] vs = procedureLocals;
         
-        List<String> vs = currentProcedure.getLocalVariableNames();
+        int index = indexOf(ps, localVarName);
         
-        if (ps.contains(localVarName))
+        if (index >= 0)
         {
-            int index = ps.indexOf(localVarName);
+            int pSize = ps.length;
             
-            int pSize = ps.size();
-            
-            int vSize = vs.size();
+            int vSize = vs.length;
             
             int offset = excessStackHeight * 4 + vSize * 4 + 4 + 
                     (pSize - 1 - index) * 4;
@@ -197,9 +311,9 @@ public class Emitter
         }
         else
         {
-            int index = vs.indexOf(localVarName);
+            index = indexOf(vs, localVarName);
             
-            int vSize = vs.size();
+            int vSize = vs.length;
             
             int offset = excessStackHeight * 4 + 
                     (vSize - 1 - index) * 4;
@@ -207,4 +321,15 @@ public class Emitter
             return offset;
         }
     }
+    
+    /**
+     * Gets the offset of a local variable.
+     * @param localVarName the name of the local variable
+     * @return an integer representing the offset of the variable in 
+     *         the stack
+     */
+    public int getOffset(String localVarName)
+    {
+        return getOffset(SymbolTable.getGlobal().intern(localVarName));
+    }
 }
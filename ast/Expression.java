@@ -9,7 +9,7 @@ import environment.Environment;
  * @version March 21, 2020
  * Usage: Instantiate a subclass of this class.
  */
-public abstract class Expression
+public abstract class Expression extends Node
 {
     /**
      * Evaluates the expression represented by this Expression object 
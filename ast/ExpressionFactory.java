@@ -0,0 +1,297 @@
+package ast;
+
+/**
+ * ExpressionFactory builds numbers, variables and binary operations, 
+ * handing back the node it built before whenever it is asked for one 
+ * that is structurally equal, so that an expression that is repeated 
+ * throughout a program, such as x + 1, is held only once.
+ * Since the children of a shared operation are themselves shared, two 
+ * operations are equal exactly when they have the same operator and 
+ * the very same children, so a lookup never walks a subtree. Procedure 
+ * calls are never shared, and neither is any expression that contains 
+ * one. A shared node keeps the position of its first occurrence, so a 
+ * tree built with this factory must not have its lines shifted.
+ * The nodes are kept in an open-addressing table that is only emptied 
+ * by clear. The factory is not safe for use by several threads.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: ExpressionFactory factory = new ExpressionFactory();
+ *        Expression e = factory.binOp("+", factory.variable(<id>, 
+ *            <pos>), factory.number(1, <pos>), <pos>);
+ */
+public class ExpressionFactory
+{
+    /**
+     * Instance variables
+     */
+    private Expression[] table;
+    private int count;
+    
+    /**
+     * Constructs an empty ExpressionFactory object.
+     * @postcondition The instance field table has room for 1024 nodes.
+     *              - The instance field count is set to 0.
+     */
+    public ExpressionFactory()
+    {
+        table = new Expression[1024];
+        count = 0;
+    }
+    
+    /**
+     * Gets the number of distinct nodes built so far.
+     * @return the instance field count
+     */
+    public int size()
+    {
+        return count;
+    }
+    
+    /**
+     * Forgets every node built so far, so that later nodes are not 
+     * shared with them.
+     * @postcondition The instance field table is empty.
+     */
+    public void clear()
+    {
+        table = new Expression[1024];
+        count = 0;
+    }
+    
+    /**
+     * Gets a Number object for the given integer.
+     * @param value the given integer
+     * @param pos the packed position of the integer, used only if a new 
+     *            node is built
+     * @return a Number object whose value is value
+     */
+    public Number number(int value, long pos)
+    {
+        int mask = table.length - 1;
+        int i = mix(hashNumber(value)) & mask;
+        
+        while (table[i] != null)
+        {
+            Expression e = table[i];
+            
+            if (e instanceof Number && ((Number) e).getValue() == value)
+            {
+                return (Number) e;
+            }
+            
+            i = (i + 1) & mask;
+        }
+        
+        Number n = new Number(value);
+        n.setPosition(pos);
+        add(i, n);
+        
+        return n;
+    }
+    
+    /**
+     * Gets a Variable object for the given symbol id.
+     * @param id the symbol id of the variable name
+     * @param pos the packed position of the variable, used only if a 
+     *            new node is built
+     * @return a Variable object whose symbol id is id
+     */
+    public Variable variable(int id, long pos)
+    {
+        int mask = table.length - 1;
+        int i = mix(hashVariable(id)) & mask;
+        
+        while (table[i] != null)
+        {
+            Expression e = table[i];
+            
+            if (e instanceof Variable && ((Variable) e).getId() == id)
+            {
+                return (Variable) e;
+            }
+            
+            i = (i + 1) & mask;
+        }
+        
+        Variable v = new Variable(id);
+        v.setPosition(pos);
+        add(i, v);
+        
+        return v;
+    }
+    
+    /**
+     * Gets a BinOp object for the given operation on the given 
+     * expressions. It is only shared if both expressions are shared.
+     * @param op the given operation, one of "+", "-", "*" and "/"
+     * @param e1 the given left expression
+     * @param e2 the given right expression
+     * @param pos the packed position of the operation, used only if a 
+     *            new node is built
+     * @return a BinOp object applying op to e1 and e2
+     */
+    public BinOp binOp(String op, Expression e1, Expression e2, long pos)
+    {
+        int mask = table.length - 1;
+        int i = mix(hashBinOp(op, e1, e2)) & mask;
+        
+        while (table[i] != null)
+        {
+            Expression e = table[i];
+            
+            if (e instanceof BinOp && e.getChild(0) == e1 && 
+                    e.getChild(1) == e2 && 
+                    ((BinOp) e).getOperator().equals(op))
+            {
+                return (BinOp) e;
+            }
+            
+            i = (i + 1) & mask;
+        }
+        
+        BinOp b = BinOp.create(op, e1, e2);
+        b.setPosition(pos);
+        
+        if (contains(e1) && contains(e2))
+        {
+            add(i, b);
+        }
+        
+        return b;
+    }
+    
+    /**
+     * Checks whether the given expression is held in the table, and so 
+     * is shared.
+     * @param e the given expression
+     * @return true if e itself is held in the table, false otherwise
+     */
+    private boolean contains(Expression e)
+    {
+        if (!(e instanceof Number || e instanceof Variable || 
+                e instanceof BinOp))
+        {
+            return false;
+        }
+        
+        int mask = table.length - 1;
+        int i = mix(hashOf(e)) & mask;
+        
+        while (table[i] != null)
+        {
+            if (table[i] == e)
+            {
+                return true;
+            }
+            
+            i = (i + 1) & mask;
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Stores a new node in the given free slot, and doubles the table 
+     * once it is half full.
+     * @param i the index of the free slot
+     * @param e the given node
+     * @postcondition e is held in the table and count is one greater.
+     */
+    private void add(int i, Expression e)
+    {
+        table[i] = e;
+        count++;
+        
+        if (count * 2 > table.length)
+        {
+            Expression[] old = table;
+            
+            table = new Expression[old.length * 2];
+            
+            int mask = table.length - 1;
+            
+            for (Expression x : old)
+            {
+                if (x != null)
+                {
+                    int j = mix(hashOf(x)) & mask;
+                    
+                    while (table[j] != null)
+                    {
+                        j = (j + 1) & mask;
+                    }
+                    
+                    table[j] = x;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Computes the hash code of a node held in the table.
+     * @param e the given node, a Number, Variable or BinOp
+     * @return the hash code of e
+     */
+    private static int hashOf(Expression e)
+    {
+        if (e instanceof Number)
+        {
+            return hashNumber(((Number) e).getValue());
+        }
+        
+        if (e instanceof Variable)
+        {
+            return hashVariable(((Variable) e).getId());
+        }
+        
+        return hashBinOp(((BinOp) e).getOperator(), 
+            (Expression) e.getChild(0), (Expression) e.getChild(1));
+    }
+    
+    /**
+     * Computes the hash code of a Number.
+     * @param value the value of the Number
+     * @return the hash code
+     */
+    private static int hashNumber(int value)
+    {
+        return value * 31 + 1;
+    }
+    
+    /**
+     * Computes the hash code of a Variable.
+     * @param id the symbol id of the Variable
+     * @return the hash code
+     */
+    private static int hashVariable(int id)
+    {
+        return id * 31 + 2;
+    }
+    
+    /**
+     * Computes the hash code of a BinOp from the identities of its 
+     * children.
+     * @param op the operation of the BinOp
+     * @param e1 the left expression
+     * @param e2 the right expression
+     * @return the hash code
+     */
+    private static int hashBinOp(String op, Expression e1, Expression e2)
+    {
+        return (op.charAt(0) * 31 + System.identityHashCode(e1)) * 31 + 
+            System.identityHashCode(e2);
+    }
+    
+    /**
+     * Spreads the bits of a hash code so that nearby codes land in 
+     * distant slots.
+     * @param h the given hash code
+     * @return the mixed hash code
+     */
+    private static int mix(int h)
+    {
+        h *= 0x9E3779B9;
+        
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,1395 @@
+package ast;
+import environment.Environment;
+import environment.IntMap;
+import scanner.Position;
+import scanner.SymbolTable;
+import java.util.Arrays;
+
+/**
+ * FlatTree is a compact form of the abstract syntax tree for very large 
+ * programs. Instead of one object per node, every node is a row in a 
+ * few parallel primitive arrays: its kind, two operands and the offset 
+ * in the source of its first token. A node is referred to by the index 
+ * of its row, so the whole tree is a handful of arrays no matter how 
+ * many nodes it has. 
+ * The meaning of the operands depends on the kind:
+ * - NUMBER: the value
+ * - VARIABLE: the symbol id of the name
+ * - ADD through DIVIDE, EQUALS through GREATER_EQUALS: the left and 
+ *   right operand nodes
+ * - CALL: the symbol id of the procedure and a list of argument nodes
+ * - ASSIGNMENT: the symbol id of the variable and the expression node
+ * - WRITELN: the expression node
+ * - WRITELNTIMES: the expression node and the count node
+ * - BLOCK: a list of statement nodes
+ * - IF, WHILE: the condition node and the statement node 
+ * A list is stored in the lists array as its length followed by its 
+ * items, and is referred to by the index of its length. Procedures and 
+ * the program itself are kept in arrays of their own. 
+ * The tree is built by the Parser through parser.FlatTreeBuilder, and 
+ * it is executed and compiled exactly as the Program it stands for 
+ * would be. Both are done by steps on stacks of the tree's own rather 
+ * than by recursion, so neither deep nesting nor deep recursion in the 
+ * program can overflow the thread stack; only shallow expressions 
+ * without calls, whose depth is kept with each node, are evaluated 
+ * directly.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: Scanner scanner = new Scanner(<source>);
+ *        FlatTreeBuilder builder = 
+ *            new FlatTreeBuilder(scanner.getSource());
+ *        new Parser(scanner).parseProgram(builder);
+ *        FlatTree tree = builder.getTree();
+ *        tree.exec(new Environment(null));
+ *        tree.compile(<file name>);
+ */
+public class FlatTree
+{
+    /**
+     * Kinds of expression nodes
+     */
+    public static final int NUMBER = 0;
+    public static final int VARIABLE = 1;
+    public static final int ADD = 2;
+    public static final int SUBTRACT = 3;
+    public static final int MULTIPLY = 4;
+    public static final int DIVIDE = 5;
+    public static final int EQUALS = 6;
+    public static final int NOT_EQUALS = 7;
+    public static final int LESS = 8;
+    public static final int GREATER = 9;
+    public static final int LESS_EQUALS = 10;
+    public static final int GREATER_EQUALS = 11;
+    public static final int CALL = 12;
+    
+    /**
+     * Kinds of statement nodes
+     */
+    public static final int ASSIGNMENT = 13;
+    public static final int WRITELN = 14;
+    public static final int WRITELNTIMES = 15;
+    public static final int BLOCK = 16;
+    public static final int IF = 17;
+    public static final int WHILE = 18;
+    
+    /**
+     * The depth below which an expression without calls is evaluated 
+     * directly, by recursion, rather than by steps
+     */
+    private static final int DIRECT_DEPTH = 32;
+    
+    /**
+     * Instance variables for the nodes
+     */
+    private byte[] kinds;
+    private int[] first;
+    private int[] second;
+    private int[] offsets;
+    private byte[] depths;
+    private int size;
+    
+    /**
+     * Instance variables for the lists
+     */
+    private int[] lists;
+    private int listsSize;
+    
+    /**
+     * Instance variables for the procedures
+     */
+    private int[] procedureNames;
+    private int[] procedureParameters;
+    private int[] procedureLocals;
+    private int[] procedureBodies;
+    private int procedureCount;
+    private IntMap procedureIndex;
+    
+    /**
+     * Instance variables for the program
+     */
+    private int globals;
+    private int body;
+    private int[] lineStarts;
+    
+    /**
+     * Instance variables for running and compiling by steps
+     */
+    private int[] tasks;
+    private int[] states;
+    private int taskTop;
+    private int[] values;
+    private int valueTop;
+    private Environment environment;
+    private Environment[] callers;
+    private int callerTop;
+    private String[] labels;
+    private int labelTop;
+    
+    /**
+     * Constructs an empty FlatTree object for the given source.
+     * @param src the buffer that the offsets of the nodes refer to
+     * @postcondition The tree holds no nodes, lists or procedures.
+     *              - The instance field lineStarts holds the offset of 
+     *                the start of each line of src.
+     *              - The task, value, caller and label stacks are empty.
+     */
+    public FlatTree(byte[] src)
+    {
+        kinds = new byte[64];
+        first = new int[64];
+        second = new int[64];
+        offsets = new int[64];
+        depths = new byte[64];
+        size = 0;
+        lists = new int[64];
+        listsSize = 0;
+        procedureNames = new int[8];
+        procedureParameters = new int[8];
+        procedureLocals = new int[8];
+        procedureBodies = new int[8];
+        procedureCount = 0;
+        procedureIndex = new IntMap();
+        tasks = new int[64];
+        states = new int[64];
+        taskTop = 0;
+        values = new int[64];
+        valueTop = 0;
+        environment = null;
+        callers = new Environment[16];
+        callerTop = 0;
+        labels = new String[16];
+        labelTop = 0;
+        
+        int count = 1;
+        
+        for (byte b : src)
+        {
+            if (b == '\n')
+            {
+                count++;
+            }
+        }
+        
+        lineStarts = new int[count];
+        count = 1;
+        
+        for (int i = 0; i < src.length; i++)
+        {
+            if (src[i] == '\n')
+            {
+                lineStarts[count] = i + 1;
+                count++;
+            }
+        }
+    }
+    
+    /**
+     * Adds a node.
+     * @param kind the kind of the node
+     * @param a the first operand
+     * @param b the second operand, or 0 if the kind has only one
+     * @param pos the packed position of the first token of the node, 
+     *            which is kept as its offset in the source
+     * @return the index of the new node
+     * @postcondition The depth of the node is kept as well: its height 
+     *                if it is an expression without calls, capped at 
+     *                DIRECT_DEPTH, and DIRECT_DEPTH otherwise.
+     */
+    public int add(int kind, int a, int b, long pos)
+    {
+        if (size == kinds.length)
+        {
+            int n = Math.max(size * 2, 64);
+            
+            kinds = Arrays.copyOf(kinds, n);
+            first = Arrays.copyOf(first, n);
+            second = Arrays.copyOf(second, n);
+            offsets = Arrays.copyOf(offsets, n);
+            depths = Arrays.copyOf(depths, n);
+        }
+        
+        kinds[size] = (byte) kind;
+        first[size] = a;
+        second[size] = b;
+        offsets[size] = lineStarts[Position.line(pos) - 1] + 
+            Position.column(pos) - 1;
+        
+        if (kind == NUMBER || kind == VARIABLE)
+        {
+            depths[size] = 1;
+        }
+        else if (kind < CALL)
+        {
+            depths[size] = (byte) Math.min(DIRECT_DEPTH, 
+                Math.max(depths[a], depths[b]) + 1);
+        }
+        else
+        {
+            depths[size] = DIRECT_DEPTH;
+        }
+        
+        size++;
+        
+        return size - 1;
+    }
+    
+    /**
+     * Adds a list.
+     * @param items an array holding the items
+     * @param from the index in items of the first item
+     * @param count the number of items
+     * @return the index of the new list
+     */
+    public int addList(int[] items, int from, int count)
+    {
+        if (listsSize + count + 1 > lists.length)
+        {
+            lists = Arrays.copyOf(lists, 
+                Math.max(listsSize + count + 1, lists.length * 2 + 64));
+        }
+        
+        int list = listsSize;
+        
+        lists[list] = count;
+        System.arraycopy(items, from, lists, list + 1, count);
+        listsSize += count + 1;
+        
+        return list;
+    }
+    
+    /**
+     * Adds a procedure declaration. A later declaration of the same 
+     * name replaces an earlier one when the program is executed.
+     * @param name the symbol id of the procedure name
+     * @param parameters a list of the symbol ids of the parameters
+     * @param locals a list of the symbol ids of the local variables
+     * @param stmt the body node
+     * @postcondition The procedure is the last one in this tree.
+     */
+    public void addProcedure(int name, int parameters, int locals, 
+            int stmt)
+    {
+        if (procedureCount == procedureNames.length)
+        {
+            int n = procedureCount * 2;
+            
+            procedureNames = Arrays.copyOf(procedureNames, n);
+            procedureParameters = Arrays.copyOf(procedureParameters, n);
+            procedureLocals = Arrays.copyOf(procedureLocals, n);
+            procedureBodies = Arrays.copyOf(procedureBodies, n);
+        }
+        
+        procedureNames[procedureCount] = name;
+        procedureParameters[procedureCount] = parameters;
+        procedureLocals[procedureCount] = locals;
+        procedureBodies[procedureCount] = stmt;
+        procedureCount++;
+    }
+    
+    /**
+     * Sets the global variables and the body of the program.
+     * @param variables a list of the symbol ids of the globals
+     * @param stmt the body node
+     * @postcondition The tree describes a whole program.
+     */
+    public void setProgram(int variables, int stmt)
+    {
+        globals = variables;
+        body = stmt;
+    }
+    
+    /**
+     * Shrinks the arrays of this tree to fit what it holds, once no 
+     * more nodes will be added.
+     * @postcondition No array holds unused space at its end.
+     */
+    public void trim()
+    {
+        kinds = Arrays.copyOf(kinds, size);
+        first = Arrays.copyOf(first, size);
+        second = Arrays.copyOf(second, size);
+        offsets = Arrays.copyOf(offsets, size);
+        depths = Arrays.copyOf(depths, size);
+        lists = Arrays.copyOf(lists, listsSize);
+    }
+    
+    /**
+     * Gets the number of nodes in this tree.
+     * @return the instance field size
+     */
+    public int size()
+    {
+        return size;
+    }
+    
+    /**
+     * Gets the kind of the given node.
+     * @param n the index of the node
+     * @return one of the kind constants of this class
+     */
+    public int getKind(int n)
+    {
+        return kinds[n];
+    }
+    
+    /**
+     * Gets the first operand of the given node.
+     * @param n the index of the node
+     * @return the first operand
+     */
+    public int getFirst(int n)
+    {
+        return first[n];
+    }
+    
+    /**
+     * Gets the second operand of the given node.
+     * @param n the index of the node
+     * @return the second operand
+     */
+    public int getSecond(int n)
+    {
+        return second[n];
+    }
+    
+    /**
+     * Gets the length of the given list.
+     * @param list the index of the list
+     * @return the number of items in the list
+     */
+    public int getListSize(int list)
+    {
+        return lists[list];
+    }
+    
+    /**
+     * Gets an item of the given list.
+     * @param list the index of the list
+     * @param i the index of the item in the list
+     * @return the item
+     */
+    public int getListItem(int list, int i)
+    {
+        return lists[list + 1 + i];
+    }
+    
+    /**
+     * Gets the number of procedure declarations in this tree.
+     * @return the instance field procedureCount
+     */
+    public int getProcedureCount()
+    {
+        return procedureCount;
+    }
+    
+    /**
+     * Gets the body node of the given procedure.
+     * @param p the index of the procedure
+     * @return the body node
+     */
+    public int getProcedureBody(int p)
+    {
+        return procedureBodies[p];
+    }
+    
+    /**
+     * Gets the body node of the program.
+     * @return the instance field body
+     */
+    public int getBody()
+    {
+        return body;
+    }
+    
+    /**
+     * Gets the source position of the given node. Its line is found 
+     * from its offset in the line table.
+     * @param n the index of the node
+     * @return the packed line and column of the first token of the node
+     */
+    public long getPosition(int n)
+    {
+        int offset = offsets[n];
+        int line = Arrays.binarySearch(lineStarts, offset);
+        
+        if (line < 0)
+        {
+            line = -line - 2;
+        }
+        
+        return Position.pack(line + 1, offset - lineStarts[line] + 1);
+    }
+    
+    /**
+     * Gets the name of the given symbol id.
+     * @param id the given symbol id
+     * @return the name interned under id
+     */
+    private static String name(int id)
+    {
+        return SymbolTable.getGlobal().getName(id);
+    }
+    
+    /**
+     * Executes the program held in this tree.
+     * @param env the given environment
+     */
+    public void exec(Environment env)
+    {
+        for (int i = 0; i < lists[globals]; i++)
+        {
+            env.declareVariable(lists[globals + 1 + i], 0);
+        }
+        
+        for (int p = 0; p < procedureCount; p++)
+        {
+            procedureIndex.put(procedureNames[p], p);
+        }
+        
+        exec(body, env);
+    }
+    
+    /**
+     * Evaluates the given expression node.
+     * @param n the index of the node
+     * @param env the given environment
+     * @return the value of the expression; a condition is 1 if it 
+     *         holds and 0 otherwise
+     * @throws IllegalArgumentException if n is a statement node
+     */
+    public int eval(int n, Environment env)
+    {
+        if (kinds[n] >= ASSIGNMENT)
+        {
+            throw new IllegalArgumentException("Not an expression at " + 
+                Position.toString(getPosition(n)));
+        }
+        
+        start(env);
+        schedule(n, 0);
+        run();
+        
+        return popValue();
+    }
+    
+    /**
+     * Executes the given statement node.
+     * @param n the index of the node
+     * @param env the given environment
+     * @throws IllegalArgumentException if n is an expression node
+     */
+    public void exec(int n, Environment env)
+    {
+        if (kinds[n] < ASSIGNMENT)
+        {
+            throw new IllegalArgumentException("Not a statement at " + 
+                Position.toString(getPosition(n)));
+        }
+        
+        start(env);
+        schedule(n, 0);
+        run();
+    }
+    
+    /**
+     * Empties the task, value and caller stacks before a run.
+     * @param env the environment to run in
+     * @postcondition The stacks are empty, and the instance field 
+     *                environment is set to env.
+     */
+    private void start(Environment env)
+    {
+        taskTop = 0;
+        valueTop = 0;
+        Arrays.fill(callers, 0, callerTop, null);
+        callerTop = 0;
+        environment = env;
+    }
+    
+    /**
+     * Runs steps until the task stack is empty.
+     * @postcondition Every scheduled task has been run.
+     */
+    private void run()
+    {
+        while (taskTop > 0)
+        {
+            taskTop--;
+            
+            execStep(tasks[taskTop], states[taskTop]);
+        }
+    }
+    
+    /**
+     * Schedules the given step of the given node. Steps run in the 
+     * reverse of the order in which they are scheduled.
+     * @param n the index of the node
+     * @param state the step of n to run, 0 for the first step
+     * @postcondition The step is on top of the task stack.
+     */
+    private void schedule(int n, int state)
+    {
+        if (taskTop == tasks.length)
+        {
+            tasks = Arrays.copyOf(tasks, taskTop * 2);
+            states = Arrays.copyOf(states, taskTop * 2);
+        }
+        
+        tasks[taskTop] = n;
+        states[taskTop] = state;
+        taskTop++;
+    }
+    
+    /**
+     * Pushes the value of an expression onto the value stack.
+     * @param value the given value
+     * @postcondition value is on top of the value stack.
+     */
+    private void pushValue(int value)
+    {
+        if (valueTop == values.length)
+        {
+            values = Arrays.copyOf(values, valueTop * 2);
+        }
+        
+        values[valueTop++] = value;
+    }
+    
+    /**
+     * Pops the value on top of the value stack.
+     * @return the value that was on top of the value stack
+     */
+    private int popValue()
+    {
+        return values[--valueTop];
+    }
+    
+    /**
+     * Runs one step of the given node. The first step of a node 
+     * schedules its own later steps and then those of its children, so 
+     * the children run first and an expression leaves its value on the 
+     * value stack for a later step of its parent. An expression that is 
+     * shallow and has no calls is evaluated directly instead, since 
+     * that cannot overflow the thread stack.
+     * @param n the index of the node
+     * @param state the step of n to run
+     * @postcondition The step has run, and any further steps it needs 
+     *                are scheduled.
+     */
+    private void execStep(int n, int state)
+    {
+        switch (kinds[n])
+        {
+            case CALL: 
+                callStep(n, state);
+                break;
+            case ASSIGNMENT: 
+                if (state == 0 && isDirect(second[n]))
+                {
+                    environment.setVariable(first[n], direct(second[n]));
+                }
+                else if (state == 0)
+                {
+                    schedule(n, 1);
+                    schedule(second[n], 0);
+                }
+                else
+                {
+                    environment.setVariable(first[n], popValue());
+                }
+                
+                break;
+            case WRITELN: 
+                if (state == 0)
+                {
+                    schedule(n, 1);
+                    scheduleValue(first[n]);
+                }
+                else
+                {
+                    System.out.println(popValue());
+                }
+                
+                break;
+            case WRITELNTIMES: 
+                if (state == 0)
+                {
+                    schedule(n, 1);
+                    schedule(second[n], 0);
+                    scheduleValue(first[n]);
+                }
+                else
+                {
+                    int numTimes = popValue();
+                    int value = popValue();
+                    
+                    for (int i = 0; i < numTimes; i++)
+                    {
+                        System.out.println(value);
+                    }
+                }
+                
+                break;
+            case BLOCK: 
+            {
+                int list = first[n];
+                
+                if (state < lists[list])
+                {
+                    schedule(n, state + 1);
+                    schedule(lists[list + 1 + state], 0);
+                }
+                
+                break;
+            }
+            case IF: 
+                if (state == 0 && isDirect(first[n]))
+                {
+                    if (direct(first[n]) == 1)
+                    {
+                        schedule(second[n], 0);
+                    }
+                }
+                else if (state == 0)
+                {
+                    schedule(n, 1);
+                    schedule(first[n], 0);
+                }
+                else if (popValue() == 1)
+                {
+                    schedule(second[n], 0);
+                }
+                
+                break;
+            case WHILE: 
+                if (state == 0 && isDirect(first[n]))
+                {
+                    if (direct(first[n]) != 0)
+                    {
+                        schedule(n, 0);
+                        schedule(second[n], 0);
+                    }
+                }
+                else if (state == 0)
+                {
+                    schedule(n, 1);
+                    schedule(first[n], 0);
+                }
+                else if (popValue() != 0)
+                {
+                    schedule(n, 0);
+                    schedule(second[n], 0);
+                }
+                
+                break;
+            default: 
+                if (state == 0 && isDirect(n))
+                {
+                    pushValue(direct(n));
+                }
+                else if (state == 0)
+                {
+                    schedule(n, 1);
+                    schedule(second[n], 0);
+                    scheduleValue(first[n]);
+                }
+                else
+                {
+                    int value2 = popValue();
+                    int value1 = popValue();
+                    
+                    pushValue(operate(kinds[n], value1, value2));
+                }
+        }
+    }
+    
+    /**
+     * Schedules the evaluation of the given expression, or evaluates it 
+     * at once if it is shallow and has no calls. It must be the last 
+     * thing scheduled by the current step, so that no other step comes 
+     * between the two.
+     * @param n the index of the node
+     * @postcondition The value of n is on top of the value stack, or its 
+     *                evaluation is on top of the task stack.
+     */
+    private void scheduleValue(int n)
+    {
+        if (isDirect(n))
+        {
+            pushValue(direct(n));
+        }
+        else
+        {
+            schedule(n, 0);
+        }
+    }
+    
+    /**
+     * Determines whether the given node is an expression without calls 
+     * that is shallow enough to be evaluated directly.
+     * @param n the index of the node
+     * @return true if n can be evaluated directly, false otherwise
+     */
+    private boolean isDirect(int n)
+    {
+        return depths[n] < DIRECT_DEPTH;
+    }
+    
+    /**
+     * Evaluates the given expression, which has no calls and is shallow 
+     * enough to be evaluated by recursion, in the current environment.
+     * @param n the index of the node
+     * @return the value of the expression; a condition is 1 if it 
+     *         holds and 0 otherwise
+     */
+    private int direct(int n)
+    {
+        switch (kinds[n])
+        {
+            case NUMBER: 
+                return first[n];
+            case VARIABLE: 
+                return environment.getVariable(first[n]);
+            default: 
+                return operate(kinds[n], direct(first[n]), 
+                    direct(second[n]));
+        }
+    }
+    
+    /**
+     * Applies the given arithmetic or relational operator.
+     * @param kind the kind of an operation or condition node
+     * @param value1 the left operand
+     * @param value2 the right operand
+     * @return the result of the operation; for a condition, 1 if it 
+     *         holds and 0 otherwise
+     */
+    private static int operate(int kind, int value1, int value2)
+    {
+        switch (kind)
+        {
+            case ADD: 
+                return value1 + value2;
+            case SUBTRACT: 
+                return value1 - value2;
+            case MULTIPLY: 
+                return value1 * value2;
+            case DIVIDE: 
+                return value1 / value2;
+            default: 
+                if (compare(kind, value1, value2))
+                {
+                    return 1;
+                }
+                else
+                {
+                    return 0;
+                }
+        }
+    }
+    
+    /**
+     * Applies the given relational operator.
+     * @param kind the kind of a condition node
+     * @param value1 the left operand
+     * @param value2 the right operand
+     * @return true if the condition holds, false otherwise
+     */
+    private static boolean compare(int kind, int value1, int value2)
+    {
+        switch (kind)
+        {
+            case EQUALS: 
+                return value1 == value2;
+            case NOT_EQUALS: 
+                return value1 != value2;
+            case LESS: 
+                return value1 < value2;
+            case GREATER: 
+                return value1 > value2;
+            case LESS_EQUALS: 
+                return value1 <= value2;
+            case GREATER_EQUALS: 
+                return value1 >= value2;
+            default: 
+                throw new IllegalArgumentException("Not a condition - " + 
+                    kind);
+        }
+    }
+    
+    /**
+     * Runs one step of the given procedure call node. The procedure 
+     * runs in a new environment whose parent is the global environment, 
+     * as ProcedureCall does: the first step evaluates the arguments, 
+     * the second enters the new environment and runs the body, and the 
+     * third leaves the value of the procedure name variable on the 
+     * value stack.
+     * @param n the index of the node
+     * @param state the step of n to run
+     * @postcondition The step has run, and any further steps it needs 
+     *                are scheduled.
+     */
+    private void callStep(int n, int state)
+    {
+        int name = first[n];
+        int args = second[n];
+        
+        if (state == 0)
+        {
+            if (!procedureIndex.containsKey(name))
+            {
+                throw new RuntimeException("Procedure " + name(name) + 
+                    " is not defined");
+            }
+            
+            schedule(n, 1);
+            
+            for (int i = lists[args] - 1; i > 0; i--)
+            {
+                schedule(lists[args + 1 + i], 0);
+            }
+            
+            if (lists[args] > 0)
+            {
+                scheduleValue(lists[args + 1]);
+            }
+        }
+        else if (state == 1)
+        {
+            int p = procedureIndex.get(name);
+            int count = lists[args];
+            Environment parentEnv = environment.getParent();
+            
+            Environment newEnv;
+            
+            if (parentEnv == null)
+            {
+                newEnv = new Environment(environment);
+            }
+            else
+            {
+                newEnv = new Environment(parentEnv);
+            }
+            
+            int params = procedureParameters[p];
+            
+            for (int i = 0; i < lists[params]; i++)
+            {
+                newEnv.declareVariable(lists[params + 1 + i], 
+                    values[valueTop - count + i]);
+            }
+            
+            valueTop -= count;
+            newEnv.declareVariable(name, 0);
+            
+            if (callerTop == callers.length)
+            {
+                callers = Arrays.copyOf(callers, callerTop * 2);
+            }
+            
+            callers[callerTop++] = environment;
+            environment = newEnv;
+            
+            schedule(n, 2);
+            schedule(procedureBodies[p], 0);
+        }
+        else
+        {
+            int value = environment.getVariable(name);
+            
+            environment = callers[--callerTop];
+            callers[callerTop] = null;
+            pushValue(value);
+        }
+    }
+    
+    /**
+     * Compiles the program held in this tree into the given file, 
+     * exactly as Program does.
+     * @param filename the name of the file
+     */
+    public void compile(String filename)
+    {
+        Emitter e = new Emitter(filename);
+        
+        try
+        {
+            e.emit("# @author Daniel Wang");
+            e.emit("# @version May 1, 2020");
+            e.emit(".data");
+            e.emit("newline:");
+            e.emit(".asciiz \"\\n\"");
+            
+            for (int i = 0; i < lists[globals]; i++)
+            {
+                e.emit("var" + name(lists[globals + 1 + i]) + ":");
+                e.emit(".word 0");
+            }
+            
+            e.emit("");
+            e.emit(".text");
+            e.emit(".globl main");
+            e.emit("");
+            e.emit("main:");
+            
+            compile(body, e);
+            
+            e.emit("# Normal termination");
+            e.emit("li $v0 10");
+            e.emit("syscall");
+            e.emit("");
+            
+            for (int p = 0; p < procedureCount; p++)
+            {
+                compileProcedure(p, e);
+            }
+        }
+        finally
+        {
+            e.close();
+        }
+    }
+    
+    /**
+     * Compiles the given procedure declaration.
+     * @param p the index of the procedure
+     * @param e the given emitter
+     */
+    private void compileProcedure(int p, Emitter e)
+    {
+        int locals = procedureLocals[p];
+        
+        e.emit("proc" + name(procedureNames[p]) + ":");
+        e.emit("# Load 0 into $v0");
+        e.emit("li $v0 0");
+        e.emit("");
+        e.emitPush("$v0");
+        
+        for (int i = 0; i < lists[locals]; i++)
+        {
+            e.emit("# Load 0 into $v0");
+            e.emit("li $v0 0");
+            e.emit("");
+            e.emitPush("$v0");
+        }
+        
+        e.setProcedureContext(procedureNames[p], 
+            toArray(procedureParameters[p]), toArray(locals));
+        
+        compile(procedureBodies[p], e);
+        
+        e.clearProcedureContext();
+        
+        for (int i = 0; i < lists[locals]; i++)
+        {
+            e.emitPop("$a0");
+        }
+        
+        e.emit("# Pops the return value off the stack");
+        e.emitPop("$v0");
+        
+        e.emit("# Jump return to $ra");
+        e.emit("jr $ra");
+        e.emit("");
+    }
+    
+    /**
+     * Copies the given list into an array.
+     * @param list the index of the list
+     * @return an array holding the items of the list
+     */
+    private int[] toArray(int list)
+    {
+        return Arrays.copyOfRange(lists, list + 1, list + 1 + lists[list]);
+    }
+    
+    /**
+     * Compiles the given node, which is an expression or a statement. 
+     * Code for an expression leaves its value in $v0. The node is 
+     * compiled by steps on the task stack, as it is executed, so deep 
+     * nesting is bounded by the heap rather than by the size of the 
+     * thread stack. The labels of the IF statements and WHILE loops 
+     * being compiled wait on a stack of their own.
+     * @param n the index of the node
+     * @param e the given emitter
+     * @throws RuntimeException if the node is or contains a 
+     *                          WRITELNTIMES statement, or is a 
+     *                          condition, which is only compiled as 
+     *                          part of an IF or WHILE
+     */
+    public void compile(int n, Emitter e)
+    {
+        if (kinds[n] >= EQUALS && kinds[n] <= GREATER_EQUALS)
+        {
+            throw new RuntimeException("Implement me!!!!!!!!!");
+        }
+        
+        start(null);
+        Arrays.fill(labels, 0, labelTop, null);
+        labelTop = 0;
+        schedule(n, 0);
+        
+        while (taskTop > 0)
+        {
+            taskTop--;
+            
+            compileStep(tasks[taskTop], states[taskTop], e);
+        }
+    }
+    
+    /**
+     * Pushes the given label onto the label stack.
+     * @param label the given label
+     * @postcondition label is on top of the label stack.
+     */
+    private void pushLabel(String label)
+    {
+        if (labelTop == labels.length)
+        {
+            labels = Arrays.copyOf(labels, labelTop * 2);
+        }
+        
+        labels[labelTop++] = label;
+    }
+    
+    /**
+     * Pops the label on top of the label stack.
+     * @return the label that was on top of the label stack
+     */
+    private String popLabel()
+    {
+        String label = labels[--labelTop];
+        
+        labels[labelTop] = null;
+        
+        return label;
+    }
+    
+    /**
+     * Compiles one step of the given node. As in execStep, the first 
+     * step of a node schedules its own later steps and then those of 
+     * its children.
+     * @param n the index of the node
+     * @param state the step of n to compile
+     * @param e the given emitter
+     * @postcondition The code of the step is emitted, and any further 
+     *                steps it needs are scheduled.
+     */
+    private void compileStep(int n, int state, Emitter e)
+    {
+        switch (kinds[n])
+        {
+            case NUMBER: 
+                e.emit("# Loads " + first[n] + " into $v0");
+                e.emit("li $v0 " + first[n]);
+                e.emit("");
+                break;
+            case VARIABLE: 
+            {
+                int var = first[n];
+                
+                if (e.isLocalVariable(var))
+                {
+                    e.emit("# Loads " + "local variable " + name(var) + 
+                            " into $v0");
+                    e.emit("lw $v0 " + e.getOffset(var) + "($sp)");
+                    e.emit("");
+                }
+                else
+                {
+                    e.emit("# Loads " + "var" + name(var) + " into $v0");
+                    e.emit("la $t0 " + "var" + name(var));
+                    e.emit("lw $v0 ($t0)");
+                    e.emit("");
+                }
+                
+                break;
+            }
+            case ADD: 
+            case SUBTRACT: 
+            case MULTIPLY: 
+            case DIVIDE: 
+                compileOperationStep(n, state, e);
+                break;
+            case CALL: 
+                compileCallStep(n, state, e);
+                break;
+            case ASSIGNMENT: 
+            {
+                if (state == 0)
+                {
+                    schedule(n, 1);
+                    schedule(second[n], 0);
+                    
+                    break;
+                }
+                
+                int var = first[n];
+                
+                if (e.isLocalVariable(var))
+                {
+                    e.emit("# Stores $v0 into " + "local variable " + 
+                            name(var));
+                    e.emit("sw $v0 " + e.getOffset(var) + "($sp)");
+                    e.emit("");
+                }
+                else
+                {
+                    e.emit("# Stores $v0 into " + "var" + name(var));
+                    e.emit("la $t0 " + "var" + name(var));
+                    e.emit("sw $v0 ($t0)");
+                    e.emit("");
+                }
+                
+                break;
+            }
+            case WRITELN: 
+                if (state == 0)
+                {
+                    schedule(n, 1);
+                    schedule(first[n], 0);
+                    
+                    break;
+                }
+                
+                e.emit("# Writes $v0 and a newline to the screen");
+                e.emit("move $a0 $v0");
+                e.emit("li $v0 1");
+                e.emit("syscall");
+                e.emit("la $a0 newline");
+                e.emit("li $v0 4");
+                e.emit("syscall");
+                e.emit("");
+                break;
+            case BLOCK: 
+            {
+                int list = first[n];
+                
+                if (state < lists[list])
+                {
+                    schedule(n, state + 1);
+                    schedule(lists[list + 1 + state], 0);
+                }
+                
+                break;
+            }
+            case IF: 
+                if (state == 0)
+                {
+                    pushLabel("endif" + e.nextLabelID());
+                    schedule(n, 1);
+                    schedule(first[n], 0);
+                }
+                else if (state == 1)
+                {
+                    schedule(n, 2);
+                    schedule(second[n], 0);
+                }
+                else
+                {
+                    e.emit(popLabel() + ":");
+                }
+                
+                break;
+            case WHILE: 
+                if (state == 0)
+                {
+                    String startLabel = "startwhile" + e.nextLabelID();
+                    String endLabel = "endwhile" + e.nextLabelID();
+                    
+                    e.emit(startLabel + ":");
+                    pushLabel(startLabel);
+                    pushLabel(endLabel);
+                    schedule(n, 1);
+                    schedule(first[n], 0);
+                }
+                else if (state == 1)
+                {
+                    schedule(n, 2);
+                    schedule(second[n], 0);
+                }
+                else
+                {
+                    String endLabel = popLabel();
+                    String startLabel = popLabel();
+                    
+                    e.emit("# Jumps to " + startLabel);
+                    e.emit("j " + startLabel);
+                    e.emit("");
+                    e.emit(endLabel + ":");
+                }
+                
+                break;
+            case EQUALS: 
+            case NOT_EQUALS: 
+            case LESS: 
+            case GREATER: 
+            case LESS_EQUALS: 
+            case GREATER_EQUALS: 
+                compileConditionStep(n, state, e);
+                break;
+            default: 
+                throw new RuntimeException("Implement me!!!!!!!!!");
+        }
+    }
+    
+    /**
+     * Compiles one step of the given arithmetic node: the left operand, 
+     * then the right operand with the left one pushed, then the 
+     * operation.
+     * @param n the index of the node
+     * @param state the step of n to compile
+     * @param e the given emitter
+     */
+    private void compileOperationStep(int n, int state, Emitter e)
+    {
+        if (state == 0)
+        {
+            schedule(n, 1);
+            schedule(first[n], 0);
+            
+            return;
+        }
+        
+        if (state == 1)
+        {
+            e.emitPush("$v0");
+            schedule(n, 2);
+            schedule(second[n], 0);
+            
+            return;
+        }
+        
+        e.emitPop("$t0");
+        
+        switch (kinds[n])
+        {
+            case ADD: 
+                e.emit("# Stores $t0 + $v0 into $v0");
+                e.emit("addu $v0 $t0 $v0");
+                break;
+            case SUBTRACT: 
+                e.emit("# Stores $t0 - $v0 into $v0");
+                e.emit("subu $v0 $t0 $v0");
+                break;
+            case MULTIPLY: 
+                e.emit("# Stores $t0 * $v0 into $v0");
+                e.emit("mult $t0 $v0");
+                e.emit("mflo $v0");
+                break;
+            default: 
+                e.emit("# Stores $t0 / $v0 into $v0");
+                e.emit("div $t0 $v0");
+                e.emit("mflo $v0");
+                break;
+        }
+        
+        e.emit("");
+    }
+    
+    /**
+     * Compiles one step of the given condition node, which is compiled 
+     * as a jump, taken when the condition does not hold, to the label 
+     * on top of the label stack.
+     * @param n the index of the node
+     * @param state the step of n to compile
+     * @param e the given emitter
+     */
+    private void compileConditionStep(int n, int state, Emitter e)
+    {
+        if (state == 0)
+        {
+            schedule(n, 1);
+            schedule(first[n], 0);
+            
+            return;
+        }
+        
+        if (state == 1)
+        {
+            e.emitPush("$v0");
+            schedule(n, 2);
+            schedule(second[n], 0);
+            
+            return;
+        }
+        
+        String label = labels[labelTop - 1];
+        
+        e.emitPop("$t0");
+        
+        switch (kinds[n])
+        {
+            case EQUALS: 
+                e.emit("# If $t0 <> $v0 then jump to " + label);
+                e.emit("bne $t0 $v0 " + label);
+                break;
+            case NOT_EQUALS: 
+                e.emit("# If $t0 = $v0 then jump to " + label);
+                e.emit("beq $t0 $v0 " + label);
+                break;
+            case LESS: 
+                e.emit("# If $t0 >= $v0 then jump to " + label);
+                e.emit("bge $t0 $v0 " + label);
+                break;
+            case GREATER: 
+                e.emit("# If $t0 <= $v0 then jump to " + label);
+                e.emit("ble $t0 $v0 " + label);
+                break;
+            case LESS_EQUALS: 
+                e.emit("# If $t0 > $v0 then jump to " + label);
+                e.emit("bgt $t0 $v0 " + label);
+                break;
+            default: 
+                e.emit("# If $t0 < $v0 then jump to " + label);
+                e.emit("blt $t0 $v0 " + label);
+                break;
+        }
+        
+        e.emit("");
+    }
+    
+    /**
+     * Compiles one step of the given procedure call node. Step i, for 
+     * i from 1 up to the number of arguments, pushes the value of 
+     * argument i - 1; the first step also pushes $ra, and the last one 
+     * jumps to the procedure and pops everything pushed for the call.
+     * @param n the index of the node
+     * @param state the step of n to compile
+     * @param e the given emitter
+     */
+    private void compileCallStep(int n, int state, Emitter e)
+    {
+        int args = second[n];
+        
+        if (state == 0)
+        {
+            e.emitPush("$ra");
+        }
+        else
+        {
+            e.emitPush("$v0");
+        }
+        
+        if (state < lists[args])
+        {
+            schedule(n, state + 1);
+            schedule(lists[args + 1 + state], 0);
+            
+            return;
+        }
+        
+        String label = "proc" + name(first[n]);
+        
+        e.emit("# Jump and link to " + label);
+        e.emit("jal " + label);
+        e.emit("");
+        
+        for (int i = 0; i < lists[args]; i++)
+        {
+            e.emitPop("$a0");
+        }
+        
+        e.emitPop("$ra");
+    }
+}
@@ -24,11 +24,14 @@ public class If extends Statement
      * @param s the given statement
      * @postcondition The instance field cond is set to c.
      *              - The instance field stmt is set to s.
+     *              - The height is one more than that of c or s.
      */
     public If(Condition c, Statement s)
     {
         cond = c;
         stmt = s;
+        raiseHeight(c);
+        raiseHeight(s);
     }
     
     /**
@@ -38,9 +41,7 @@ public class If extends Statement
      */
     public void exec(Environment env)
     {
-        int value = cond.eval(env);
-        
-        if (value == 1)
+        if (cond.test(env))
         {
             stmt.exec(env);
         }
@@ -59,4 +60,74 @@ public class If extends Statement
         stmt.compile(e);
         e.emit(label + ":");
     }
+    
+    /**
+     * Runs one step of executing this IF statement: first the 
+     * condition is scheduled, unless it is shallow, then the statement 
+     * runs if it held.
+     * @param in the given interpreter
+     * @param state the step to run, 0 for the first step
+     */
+    void execStep(Interpreter in, int state)
+    {
+        if (state == 0 && !cond.isShallow())
+        {
+            in.schedule(this, 1);
+            in.schedule(cond, 0);
+        }
+        else if (in.test(cond, state))
+        {
+            in.scheduleExec(stmt);
+        }
+    }
+    
+    /**
+     * Runs one step of compiling this IF statement: the condition and 
+     * the statement are scheduled, followed by the step that emits the 
+     * label after them.
+     * @param e the given emitter
+     * @param state the step to run, 0 for the first step
+     * @param label the end label, or null in the first step
+     */
+    void compileStep(Emitter e, int state, String label)
+    {
+        if (state == 0)
+        {
+            String endLabel = "endif" + e.nextLabelID();
+            
+            e.schedule(this, 1, endLabel);
+            e.schedule(stmt, 0, null);
+            e.schedule(cond, 0, endLabel);
+        }
+        else
+        {
+            e.emit(label + ":");
+        }
+    }
+    
+    /**
+     * Gets the number of children of this IF statement.
+     * @return 2
+     */
+    public int getChildCount()
+    {
+        return 2;
+    }
+    
+    /**
+     * Gets the child of this IF statement at the given index.
+     * @param i the given index
+     * @return the condition if i is 0, the statement otherwise
+     */
+    public Node getChild(int i)
+    {
+        if (i == 0)
+        {
+            return cond;
+        }
+        else
+        {
+            return stmt;
+        }
+    }
 }
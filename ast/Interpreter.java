@@ -0,0 +1,345 @@
+package ast;
+import environment.Environment;
+import java.util.Arrays;
+
+/**
+ * Interpreter executes an abstract syntax tree without recursing on the 
+ * thread stack. Instead of calling exec and eval on its children, each 
+ * node is run as a series of steps: a step may schedule further steps 
+ * of the node itself and of its children on an explicit task stack, and 
+ * expressions leave their values on an explicit value stack. Nesting in 
+ * the source and recursion in the interpreted program are therefore 
+ * bounded by the heap rather than by the size of the thread stack.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: Interpreter interpreter = new Interpreter(<environment>);
+ *        interpreter.exec(<statement>);
+ *        int value = interpreter.eval(<expression>);
+ */
+public class Interpreter
+{
+    /**
+     * Instance variables
+     */
+    private Node[] nodes;
+    private int[] states;
+    private int taskTop;
+    private int[] values;
+    private int valueTop;
+    private Environment environment;
+    private Environment[] callers;
+    private int callerTop;
+    private int[] slots;
+    private int slotTop;
+    private int[] marks;
+    private Environment[] frames;
+    
+    /**
+     * Constructs an Interpreter object that runs in the given 
+     * environment.
+     * @param env the given environment
+     * @postcondition The task, value, caller and frame stacks are 
+     *                empty.
+     *              - The instance field environment is set to env.
+     */
+    public Interpreter(Environment env)
+    {
+        nodes = new Node[64];
+        states = new int[64];
+        taskTop = 0;
+        values = new int[64];
+        valueTop = 0;
+        environment = env;
+        callers = new Environment[16];
+        callerTop = 0;
+        slots = new int[64];
+        slotTop = 0;
+        marks = new int[16];
+        frames = new Environment[16];
+    }
+    
+    /**
+     * Executes the given statement.
+     * @param s the given statement
+     * @postcondition s has been executed in the current environment.
+     */
+    public void exec(Statement s)
+    {
+        int base = taskTop;
+        
+        scheduleExec(s);
+        run(base);
+    }
+    
+    /**
+     * Evaluates the given expression.
+     * @param exp the given expression
+     * @return the value of exp in the current environment
+     */
+    public int eval(Expression exp)
+    {
+        int base = taskTop;
+        
+        schedule(exp, 0);
+        run(base);
+        
+        return popValue();
+    }
+    
+    /**
+     * Runs steps until the task stack is back down to the given height.
+     * @param base the given height
+     * @postcondition Every task scheduled above base has been run.
+     */
+    private void run(int base)
+    {
+        while (taskTop > base)
+        {
+            taskTop--;
+            
+            nodes[taskTop].execStep(this, states[taskTop]);
+        }
+    }
+    
+    /**
+     * Schedules the given step of the given node. Steps run in the 
+     * reverse of the order in which they are scheduled.
+     * @param n the given node
+     * @param state the step of n to run, 0 for the first step
+     * @postcondition The step is on top of the task stack.
+     */
+    void schedule(Node n, int state)
+    {
+        if (taskTop == nodes.length)
+        {
+            nodes = Arrays.copyOf(nodes, taskTop * 2);
+            states = Arrays.copyOf(states, taskTop * 2);
+        }
+        
+        nodes[taskTop] = n;
+        states[taskTop] = state;
+        taskTop++;
+    }
+    
+    /**
+     * Schedules the evaluation of the given expression, or evaluates it 
+     * at once if it is shallow. Either way its value is on the value 
+     * stack before any step scheduled earlier runs, so this may only be 
+     * the last call to schedule in a step.
+     * @param exp the given expression
+     * @postcondition exp is scheduled, or its value is on top of the 
+     *                value stack.
+     */
+    void scheduleValue(Expression exp)
+    {
+        if (exp.isShallow())
+        {
+            pushValue(exp.eval(environment));
+        }
+        else
+        {
+            schedule(exp, 0);
+        }
+    }
+    
+    /**
+     * Schedules the given statement, or executes it at once if it is 
+     * shallow. Either way it runs before any step scheduled earlier, 
+     * so this may only be the last call to schedule in a step.
+     * @param s the given statement
+     * @postcondition s is scheduled or has been executed.
+     */
+    void scheduleExec(Statement s)
+    {
+        if (s.isShallow())
+        {
+            s.exec(environment);
+        }
+        else
+        {
+            schedule(s, 0);
+        }
+    }
+    
+    /**
+     * Pushes the value of an expression onto the value stack.
+     * @param value the given value
+     * @postcondition value is on top of the value stack.
+     */
+    void pushValue(int value)
+    {
+        if (valueTop == values.length)
+        {
+            values = Arrays.copyOf(values, valueTop * 2);
+        }
+        
+        values[valueTop++] = value;
+    }
+    
+    /**
+     * Pops the value on top of the value stack.
+     * @return the value that was on top of the value stack
+     */
+    int popValue()
+    {
+        return values[--valueTop];
+    }
+    
+    /**
+     * Gets the value of the expression a step depends on. A step 0 
+     * only gets here if the expression is shallow, and evaluates it at 
+     * once; in a later step the expression was scheduled and its value 
+     * is on top of the value stack.
+     * @param exp the given expression
+     * @param state the step being run
+     * @return the value of exp
+     */
+    int valueOf(Expression exp, int state)
+    {
+        if (state == 0)
+        {
+            return exp.eval(environment);
+        }
+        else
+        {
+            return popValue();
+        }
+    }
+    
+    /**
+     * Tests the condition a step depends on, as valueOf gets the value 
+     * of an expression.
+     * @param cond the given condition
+     * @param state the step being run
+     * @return true if cond holds, false otherwise
+     */
+    boolean test(Condition cond, int state)
+    {
+        if (state == 0)
+        {
+            return cond.test(environment);
+        }
+        else
+        {
+            return popValue() != 0;
+        }
+    }
+    
+    /**
+     * Gets one of the top values of the value stack without popping it.
+     * @param i the index of the value among the top count values
+     * @param count the number of values considered
+     * @return the value i places above the bottom of the top count 
+     *         values
+     */
+    int peekValue(int i, int count)
+    {
+        return values[valueTop - count + i];
+    }
+    
+    /**
+     * Pops the given number of values off the value stack.
+     * @param count the given number
+     * @postcondition The top count values are removed.
+     */
+    void dropValues(int count)
+    {
+        valueTop -= count;
+    }
+    
+    /**
+     * Gets the environment the interpreter is running in.
+     * @return the instance field environment
+     */
+    Environment getEnvironment()
+    {
+        return environment;
+    }
+    
+    /**
+     * Enters the given environment, as when a procedure is called.
+     * @param env the given environment
+     * @postcondition The current environment is saved on the caller 
+     *                stack and env becomes the current environment.
+     */
+    void enter(Environment env)
+    {
+        if (callerTop == callers.length)
+        {
+            callers = Arrays.copyOf(callers, callerTop * 2);
+            marks = Arrays.copyOf(marks, callerTop * 2);
+            frames = Arrays.copyOf(frames, callerTop * 2);
+        }
+        
+        marks[callerTop] = slotTop;
+        callers[callerTop++] = environment;
+        environment = env;
+    }
+    
+    /**
+     * Enters an environment for a call of a procedure whose variables 
+     * are bound to slots. Its frame is the next window of the frame 
+     * stack, and the Environment object itself is the one last used at 
+     * the same depth of calls if it has the same parent, so that once 
+     * the stacks have grown a call allocates nothing. The slots are 
+     * not cleared, so the caller must set every one of them.
+     * @param global the global environment, the parent of the new one
+     * @param size the number of slots in the frame
+     * @return the new current environment
+     * @postcondition The current environment is saved on the caller 
+     *                stack and the returned one becomes current.
+     */
+    Environment enterFrame(Environment global, int size)
+    {
+        int base = slotTop;
+        
+        if (base + size > slots.length)
+        {
+            slots = Arrays.copyOf(slots, Math.max(slots.length * 2, 
+                base + size));
+            
+            for (int d = 0; d < callerTop; d++)
+            {
+                if (frames[d] != null)
+                {
+                    frames[d].setFrame(slots, marks[d]);
+                }
+            }
+        }
+        
+        Environment env = null;
+        
+        if (callerTop < frames.length)
+        {
+            env = frames[callerTop];
+        }
+        
+        if (env != null && env.getParent() == global)
+        {
+            env.setFrame(slots, base);
+        }
+        else
+        {
+            env = new Environment(global, slots, base);
+        }
+        
+        enter(env);
+        frames[callerTop - 1] = env;
+        slotTop = base + size;
+        
+        return env;
+    }
+    
+    /**
+     * Leaves the current environment, as when a procedure returns.
+     * @postcondition The environment saved by the matching call to 
+     *                enter becomes the current environment again, and 
+     *                its frame is popped off the frame stack.
+     */
+    void leave()
+    {
+        environment = callers[--callerTop];
+        callers[callerTop] = null;
+        slotTop = marks[callerTop];
+    }
+}
@@ -0,0 +1,172 @@
+package ast;
+import scanner.Position;
+import java.util.Arrays;
+
+/**
+ * Node is the common superclass of every node in the abstract syntax 
+ * tree. It records the source position at which the node begins, 
+ * packed as described in scanner.Position.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: Instantiate a subclass of this class.
+ *        long pos = node.getPosition();
+ */
+public abstract class Node
+{
+    /**
+     * The greatest height of a subtree that is run or compiled by 
+     * recursion rather than by steps
+     */
+    static final int MAX_SHALLOW_HEIGHT = 64;
+    
+    /**
+     * Instance variables
+     */
+    private long position = Position.UNKNOWN;
+    private int height = 1;
+    
+    /**
+     * Gets the source position of this node.
+     * @return the packed position, or Position.UNKNOWN if this node 
+     *         was not built from source
+     */
+    public long getPosition()
+    {
+        return position;
+    }
+    
+    /**
+     * Sets the source position of this node.
+     * @param pos the packed position
+     * @postcondition The instance field position is set to pos.
+     */
+    public void setPosition(long pos)
+    {
+        position = pos;
+    }
+    
+    /**
+     * Moves this node and every node below it the given number of 
+     * lines down in the source, as when lines are inserted above it. 
+     * The subtree is walked with an explicit stack over its children 
+     * rather than by recursion, so deep nesting is bounded by the heap 
+     * rather than by the size of the thread stack.
+     * @param delta the number of lines, negative to move up
+     * @postcondition Every known position in this subtree has its line 
+     *                moved by delta; columns are unchanged.
+     */
+    public final void shiftLines(int delta)
+    {
+        Node[] stack = new Node[64];
+        int top = 0;
+        
+        stack[top++] = this;
+        
+        while (top > 0)
+        {
+            Node n = stack[--top];
+            
+            stack[top] = null;
+            
+            if (n.position != Position.UNKNOWN)
+            {
+                n.position = Position.pack(Position.line(n.position) + 
+                    delta, Position.column(n.position));
+            }
+            
+            int count = n.getChildCount();
+            
+            if (top + count > stack.length)
+            {
+                stack = Arrays.copyOf(stack, 
+                    Math.max(stack.length * 2, top + count));
+            }
+            
+            for (int i = 0; i < count; i++)
+            {
+                stack[top++] = n.getChild(i);
+            }
+        }
+    }
+    
+    /**
+     * Gets the number of children of this node.
+     * @return the number of nodes directly below this one, 0 for a leaf
+     */
+    public int getChildCount()
+    {
+        return 0;
+    }
+    
+    /**
+     * Gets the child of this node at the given index, counting from 
+     * the first child in source order.
+     * @param i the given index
+     * @return the child at index i
+     * @throws IndexOutOfBoundsException if this node has no such child
+     */
+    public Node getChild(int i)
+    {
+        throw new IndexOutOfBoundsException(i);
+    }
+    
+    /**
+     * Raises the height of this node to one more than the height of 
+     * the given child, if that is higher.
+     * @param child the given child
+     * @postcondition The instance field height is at least one more 
+     *                than that of child, capped at one more than 
+     *                MAX_SHALLOW_HEIGHT.
+     */
+    void raiseHeight(Node child)
+    {
+        height = Math.max(height, 
+            Math.min(child.height, MAX_SHALLOW_HEIGHT) + 1);
+    }
+    
+    /**
+     * Marks this node as one that must be run by steps, as for a 
+     * procedure call, whose body may recurse without bound.
+     * @postcondition The instance field height is more than 
+     *                MAX_SHALLOW_HEIGHT.
+     */
+    void setDeep()
+    {
+        height = MAX_SHALLOW_HEIGHT + 1;
+    }
+    
+    /**
+     * Checks whether this subtree is short enough, and free of 
+     * procedure calls, that running or compiling it by recursion 
+     * cannot exhaust the thread stack.
+     * @return true if the height of this node is at most 
+     *         MAX_SHALLOW_HEIGHT, false otherwise
+     */
+    public boolean isShallow()
+    {
+        return height <= MAX_SHALLOW_HEIGHT;
+    }
+    
+    /**
+     * Runs one step of this node in the given interpreter. A step does 
+     * the work of this node that comes before, between or after its 
+     * children, and schedules whatever should run next.
+     * @param in the given interpreter
+     * @param state the step to run, 0 for the first step
+     */
+    void execStep(Interpreter in, int state)
+    {
+        throw new RuntimeException("Implement me!!!!!!!!!");
+    }
+    
+    /**
+     * Runs one step of compiling this node with the given emitter.
+     * @param e the given emitter
+     * @param state the step to run, 0 for the first step
+     * @param label the label the step needs, or null
+     */
+    void compileStep(Emitter e, int state, String label)
+    {
+        throw new RuntimeException("Implement me!!!!!!!!!");
+    }
+}
@@ -26,6 +26,15 @@ public class Number extends Expression
         value = num;
     }
     
+    /**
+     * Gets the integer represented by this Number object.
+     * @return the instance field value
+     */
+    public int getValue()
+    {
+        return value;
+    }
+    
     /**
      * Evaluates the integer represented by this Number object using 
      * the given environment.
@@ -48,4 +57,25 @@ public class Number extends Expression
         e.emit("li $v0 " + value);
         e.emit("");
     }
+    
+    /**
+     * Runs the only step of evaluating this integer.
+     * @param in the given interpreter
+     * @param state unused
+     */
+    void execStep(Interpreter in, int state)
+    {
+        in.pushValue(value);
+    }
+    
+    /**
+     * Runs the only step of compiling this integer.
+     * @param e the given emitter
+     * @param state unused
+     * @param label unused
+     */
+    void compileStep(Emitter e, int state, String label)
+    {
+        compile(e);
+    }
 }
@@ -1,11 +1,15 @@
 package ast;
 import environment.Environment;
+import scanner.SymbolTable;
 import java.util.List;
-import java.util.ArrayList;
 
 /**
  * ProcedureCall is a class representing a procedure call parsed by the 
  * parser.
+ * The first time a call is made it is linked to its procedure, which 
+ * checks that it is given at least as many parameters as the procedure 
+ * takes, and later calls reuse the link until a procedure is declared 
+ * again. Any further parameters are evaluated and then ignored.
  * @author Daniel Wang
  * @version March 30, 2020
  */
@@ -14,8 +18,9 @@ public class ProcedureCall extends Expression
     /**
      * Instance variables
      */
-    private String name;
+    private int name;
     private List<Expression> parameters;
+    private Link link;
     
     /**
      * Constructs a ProcedureCall object using the procedure name and 
@@ -23,13 +28,51 @@ public class ProcedureCall extends Expression
      * @param s a string representing the procedure name
      * @param params a list of Expression objects representing the 
      *               parameters
-     * @postcondition The instance field name is to s.
+     * @postcondition The instance field name is set to the symbol id 
+     *                of s.
      *              - The instance field parameters is set to params.
+     *              - This call is marked deep.
      */
     public ProcedureCall(String s, List<Expression> params)
     {
-        name = s;
+        name = SymbolTable.getGlobal().intern(s);
         parameters = params;
+        setDeep();
+    }
+    
+    /**
+     * Constructs a ProcedureCall object using the symbol id of the 
+     * procedure name and list of parameters.
+     * @param id the symbol id of the procedure name
+     * @param params a list of Expression objects representing the 
+     *               parameters
+     * @postcondition The instance field name is set to id.
+     *              - The instance field parameters is set to params.
+     *              - This call is marked deep.
+     */
+    public ProcedureCall(int id, List<Expression> params)
+    {
+        name = id;
+        parameters = params;
+        setDeep();
+    }
+    
+    /**
+     * Gets the name of the called procedure.
+     * @return the name interned under the instance field name
+     */
+    public String getName()
+    {
+        return SymbolTable.getGlobal().getName(name);
+    }
+    
+    /**
+     * Gets the symbol id of the name of the called procedure.
+     * @return the instance field name
+     */
+    public int getId()
+    {
+        return name;
     }
     
     /**
@@ -38,54 +81,158 @@ public class ProcedureCall extends Expression
      * @param env the given environment
      * @return the value returned by the procedure call represented by 
      *         this ProcedureCall object
+     * @throws RuntimeException if the procedure is not defined or takes 
+     *         more parameters than are given
      */
     public int eval(Environment env)
     {
-        ProcedureDeclaration pd = env.getProcedure(name);
+        Environment global = globalOf(env);
+        Link l = link(global);
         
-        List<Integer> parameterValues = new ArrayList<Integer>();
+        int count = parameters.size();
+        int[] parameterValues = new int[count];
         
-        for (Expression exp : parameters)
+        for (int i = 0; i < count; i++)
         {
-            int value = exp.eval(env);
-            
-            parameterValues.add(value);
+            parameterValues[i] = parameters.get(i).eval(env);
         }
         
-        List<String> parameterNames = pd.getParameterNames();
+        Environment newEnv = new Environment(global, l.frameSize);
         
-        Environment parentEnv = env.getParent();
+        for (int i = 0; i < l.parameterSlots.length; i++)
+        {
+            newEnv.setSlot(l.parameterSlots[i], parameterValues[i]);
+        }
         
-        Environment newEnv;
+        newEnv.setSlot(l.nameSlot, 0);
+        
+        l.body.exec(newEnv);
+        
+        return newEnv.getSlot(l.nameSlot);
+    }
+    
+    /**
+     * Gets the global environment as seen from the given environment.
+     * @param env the environment of the caller
+     * @return env if it has no parent, or else its parent
+     */
+    private static Environment globalOf(Environment env)
+    {
+        Environment parentEnv = env.getParent();
         
         if (parentEnv == null)
         {
-            newEnv = new Environment(env);
+            return env;
         }
         else
         {
-            newEnv = new Environment(parentEnv);
+            return parentEnv;
         }
+    }
+    
+    /**
+     * Gets the link of this call to its procedure in the given global 
+     * environment, linking it again if it was made in another 
+     * environment or a procedure has been declared since.
+     * @param global the given global environment
+     * @return the instance field link, up to date
+     * @throws RuntimeException if the procedure is not defined or takes 
+     *         more parameters than are given
+     */
+    private Link link(Environment global)
+    {
+        Link l = link;
         
-        int pnSize = parameterNames.size();
-        
-        for (int i = 0; i < pnSize; i++)
+        if (l == null || l.global != global || 
+                l.version != global.getProcedureVersion())
         {
-            String paramName = parameterNames.get(i);
-            Integer paramValue = parameterValues.get(i);
+            ProcedureDeclaration pd = global.getProcedure(name);
+            
+            if (pd == null)
+            {
+                throw new RuntimeException("Procedure " + getName() + 
+                    " is not defined");
+            }
+            
+            l = new Link(global, pd);
+            
+            if (l.parameterSlots.length > parameters.size())
+            {
+                throw new RuntimeException("Procedure " + getName() + 
+                    " takes " + l.parameterSlots.length + 
+                    " parameters, not " + parameters.size());
+            }
             
-            newEnv.declareVariable(paramName, paramValue);
+            link = l;
         }
         
-        newEnv.declareVariable(name, 0);
-        
-        Statement stmt = pd.getStatement();
-        
-        stmt.exec(newEnv);
-        
-        int nameVariableValue = newEnv.getVariable(name);
+        return l;
+    }
+    
+    /**
+     * Runs one step of evaluating this procedure call. Step 0 
+     * evaluates the leading shallow arguments and schedules the rest, 
+     * step 1 enters a frame on the interpreter's frame stack holding 
+     * their values and schedules the body, and step 2 leaves it and 
+     * pushes the value of the procedure's name variable.
+     * @param in the given interpreter
+     * @param state the step to run, 0 for the first step
+     */
+    void execStep(Interpreter in, int state)
+    {
+        if (state == 0)
+        {
+            int count = parameters.size();
+            int i = 0;
+            
+            while (i < count && parameters.get(i).isShallow())
+            {
+                in.pushValue(parameters.get(i).eval(in.getEnvironment()));
+                i++;
+            }
+            
+            if (i < count)
+            {
+                in.schedule(this, 1);
+                
+                for (int j = count - 1; j >= i; j--)
+                {
+                    in.schedule(parameters.get(j), 0);
+                }
+                
+                return;
+            }
+        }
         
-        return nameVariableValue;
+        if (state <= 1)
+        {
+            Environment global = globalOf(in.getEnvironment());
+            Link l = link(global);
+            
+            Environment newEnv = in.enterFrame(global, l.frameSize);
+            
+            int count = parameters.size();
+            
+            for (int i = 0; i < l.parameterSlots.length; i++)
+            {
+                newEnv.setSlot(l.parameterSlots[i], in.peekValue(i, count));
+            }
+            
+            in.dropValues(count);
+            
+            newEnv.setSlot(l.nameSlot, 0);
+            
+            in.schedule(this, 2);
+            in.scheduleExec(l.body);
+        }
+        else
+        {
+            int nameVariableValue = 
+                in.getEnvironment().getSlot(link.nameSlot);
+            
+            in.leave();
+            in.pushValue(nameVariableValue);
+        }
     }
     
     /**
@@ -105,8 +252,18 @@ public class ProcedureCall extends Expression
             e.emitPush("$v0");
         }
         
-        e.emit("# Jump and link to " + "proc" + name);
-        e.emit("jal " + "proc" + name);
+        emitJump(e);
+    }
+    
+    /**
+     * Emits MIPS code that jumps to the procedure and, once it returns, 
+     * pops the arguments and $ra.
+     * @param e the given emitter
+     */
+    private void emitJump(Emitter e)
+    {
+        e.emit("# Jump and link to " + "proc" + getName());
+        e.emit("jal " + "proc" + getName());
         e.emit("");
         
         for (Expression exp : parameters)
@@ -116,4 +273,90 @@ public class ProcedureCall extends Expression
         
         e.emitPop("$ra");
     }
+    
+    /**
+     * Runs one step of compiling this procedure call. Step i pushes 
+     * $ra, or the value of argument i - 1, and schedules argument i 
+     * followed by step i + 1; the last step emits the jump.
+     * @param e the given emitter
+     * @param state the number of arguments compiled so far
+     * @param label unused
+     */
+    void compileStep(Emitter e, int state, String label)
+    {
+        if (state == 0)
+        {
+            e.emitPush("$ra");
+        }
+        else
+        {
+            e.emitPush("$v0");
+        }
+        
+        if (state < parameters.size())
+        {
+            e.schedule(this, state + 1, null);
+            e.schedule(parameters.get(state), 0, null);
+        }
+        else
+        {
+            emitJump(e);
+        }
+    }
+    
+    /**
+     * Gets the number of children of this procedure call.
+     * @return the number of arguments
+     */
+    public int getChildCount()
+    {
+        return parameters.size();
+    }
+    
+    /**
+     * Gets the child of this procedure call at the given index.
+     * @param i the given index
+     * @return the argument at index i
+     */
+    public Node getChild(int i)
+    {
+        return parameters.get(i);
+    }
+    
+    /**
+     * Link records the procedure a call was linked to in one global 
+     * environment, and the layout of the frame of a call of it, so that 
+     * the call does not look the procedure up each time it is made.
+     */
+    private static class Link
+    {
+        /**
+         * Instance variables
+         */
+        private final Environment global;
+        private final int version;
+        private final Statement body;
+        private final int[] parameterSlots;
+        private final int nameSlot;
+        private final int frameSize;
+        
+        /**
+         * Constructs a Link object to the given procedure in the given 
+         * global environment.
+         * @param g the given global environment
+         * @param pd the given procedure
+         * @postcondition The variables of the body of pd are bound to 
+         *                their slots, and the instance fields hold the 
+         *                layout of its frame.
+         */
+        Link(Environment g, ProcedureDeclaration pd)
+        {
+            global = g;
+            version = g.getProcedureVersion();
+            parameterSlots = pd.getParameterSlots();
+            nameSlot = pd.getNameSlot();
+            frameSize = pd.getFrameSize();
+            body = pd.getStatement();
+        }
+    }
 }
@@ -1,6 +1,8 @@
 package ast;
 import environment.Environment;
+import scanner.SymbolTable;
 import java.util.List;
+import java.util.ArrayList;
 
 /**
  * ProcedureDeclaration is a class representing a procedure declaration 
@@ -15,10 +17,13 @@ public class ProcedureDeclaration extends Statement
     /**
      * Instance variables
      */
-    private String name;
-    private List<String> parameterNames;
+    private int name;
+    private int[] parameterNames;
     private Statement stmt;
-    private List<String> localVariableNames;
+    private int[] localVariableNames;
+    private volatile int[] parameterSlots;
+    private int nameSlot;
+    private int frameSize;
     
     /**
      * Constructs a ProcedureDeclaration object using the given 
@@ -28,21 +33,77 @@ public class ProcedureDeclaration extends Statement
      * @param st a Statement object representing the procedure body
      * @param lvn a list of strings representing the local variable 
      *            names
-     * @postcondition The instance variable name is set to s.
-     *              - The instance variable parameterNames is set to pn.
+     * @postcondition The instance variable name is set to the symbol 
+     *                id of s.
+     *              - The instance variable parameterNames is set to the 
+     *                symbol ids of pn.
      *              - The instance variable stmt is set to st.
      *              - The instance variable localVariableNames is set 
-     *                to lvn.
+     *                to the symbol ids of lvn.
      */
     public ProcedureDeclaration(String s, List<String> pn, 
             Statement st, List<String> lvn)
     {
-        name = s;
+        this(SymbolTable.getGlobal().intern(s), intern(pn), st, 
+                intern(lvn));
+    }
+    
+    /**
+     * Constructs a ProcedureDeclaration object using the symbol ids of 
+     * the procedure name, parameter names, and local variable names.
+     * @param id the symbol id of the procedure name
+     * @param pn the symbol ids of the parameter names
+     * @param st a Statement object representing the procedure body
+     * @param lvn the symbol ids of the local variable names
+     * @postcondition The instance variable name is set to id.
+     *              - The instance variable parameterNames is set to pn.
+     *              - The instance variable stmt is set to st.
+     *              - The instance variable localVariableNames is set 
+     *                to lvn.
+     */
+    public ProcedureDeclaration(int id, int[] pn, Statement st, 
+            int[] lvn)
+    {
+        name = id;
         parameterNames = pn;
         stmt = st;
         localVariableNames = lvn;
     }
     
+    /**
+     * Interns every name in the given list.
+     * @param names the given list of names
+     * @return the symbol ids of the names, in order
+     */
+    private static int[] intern(List<String> names)
+    {
+        int[] ids = new int[names.size()];
+        
+        for (int i = 0; i < ids.length; i++)
+        {
+            ids[i] = SymbolTable.getGlobal().intern(names.get(i));
+        }
+        
+        return ids;
+    }
+    
+    /**
+     * Looks up the name of every id in the given array.
+     * @param ids the given symbol ids
+     * @return a list of the names, in order
+     */
+    private static List<String> names(int[] ids)
+    {
+        List<String> list = new ArrayList<String>();
+        
+        for (int id : ids)
+        {
+            list.add(SymbolTable.getGlobal().getName(id));
+        }
+        
+        return list;
+    }
+    
     /**
      * Executes the procedure declaration represented by this 
      * ProcedureDeclaration object.
@@ -65,11 +126,82 @@ public class ProcedureDeclaration extends Statement
         return stmt;
     }
     
+    /**
+     * Gets the slots of the parameters in the frame of a call of this 
+     * procedure, binding the variables of the body to their slots the 
+     * first time it is called.
+     * @return the slot of each parameter, in order
+     */
+    int[] getParameterSlots()
+    {
+        int[] slots = parameterSlots;
+        
+        if (slots == null)
+        {
+            slots = bindSlots();
+        }
+        
+        return slots;
+    }
+    
+    /**
+     * Binds the variables of the body to their slots, unless another 
+     * thread already has.
+     * @return the slot of each parameter, in order
+     * @postcondition The instance fields nameSlot and frameSize are 
+     *                set, and then parameterSlots.
+     */
+    private synchronized int[] bindSlots()
+    {
+        if (parameterSlots == null)
+        {
+            Resolver resolver = new Resolver(parameterNames, name);
+            
+            resolver.resolve(getStatement());
+            nameSlot = resolver.getNameSlot();
+            frameSize = resolver.getFrameSize();
+            parameterSlots = resolver.getParameterSlots();
+        }
+        
+        return parameterSlots;
+    }
+    
+    /**
+     * Gets the slot of the return value in the frame of a call of this 
+     * procedure. It is only known once getParameterSlots has been 
+     * called.
+     * @return the instance field nameSlot
+     */
+    int getNameSlot()
+    {
+        return nameSlot;
+    }
+    
+    /**
+     * Gets the number of slots in the frame of a call of this 
+     * procedure. It is only known once getParameterSlots has been 
+     * called.
+     * @return the instance field frameSize
+     */
+    int getFrameSize()
+    {
+        return frameSize;
+    }
+    
     /**
      * Gets the names of the parameters of this procedure.
      * @return a list containing the names of the parameters
      */
     public List<String> getParameterNames()
+    {
+        return names(parameterNames);
+    }
+    
+    /**
+     * Gets the symbol ids of the parameters of this procedure.
+     * @return an array containing the ids of the parameter names
+     */
+    public int[] getParameterIds()
     {
         return parameterNames;
     }
@@ -83,13 +215,29 @@ public class ProcedureDeclaration extends Statement
      */
     public void compile(Emitter e)
     {
-        e.emit("proc" + name + ":");
+        emitPrologue(e);
+        
+        getStatement().compile(e);
+        
+        emitEpilogue(e);
+    }
+    
+    /**
+     * Emits the label of this procedure and MIPS code that pushes its 
+     * return value and local variables, and enters its context.
+     * @param e the given emitter
+     * @postcondition The procedure context of e is set to this 
+     *                procedure.
+     */
+    private void emitPrologue(Emitter e)
+    {
+        e.emit("proc" + getName() + ":");
         e.emit("# Load 0 into $v0");
         e.emit("li $v0 0");
         e.emit("");
         e.emitPush("$v0");
         
-        for (String localVariable : localVariableNames)
+        for (int localVariable : localVariableNames)
         {
             e.emit("# Load 0 into $v0");
             e.emit("li $v0 0");
@@ -98,12 +246,19 @@ public class ProcedureDeclaration extends Statement
         }
         
         e.setProcedureContext(this);
-        
-        stmt.compile(e);
-        
+    }
+    
+    /**
+     * Leaves the context of this procedure and emits MIPS code that 
+     * pops its local variables and return value and returns.
+     * @param e the given emitter
+     * @postcondition e has no procedure context.
+     */
+    private void emitEpilogue(Emitter e)
+    {
         e.clearProcedureContext();
         
-        for (String localVariable : localVariableNames)
+        for (int localVariable : localVariableNames)
         {
             e.emitPop("$a0");
         }
@@ -116,11 +271,52 @@ public class ProcedureDeclaration extends Statement
         e.emit("");
     }
     
+    /**
+     * Runs the only step of executing this procedure declaration.
+     * @param in the given interpreter
+     * @param state unused
+     */
+    void execStep(Interpreter in, int state)
+    {
+        exec(in.getEnvironment());
+    }
+    
+    /**
+     * Runs one step of compiling this procedure declaration: first the 
+     * prologue is emitted and the body scheduled, then the epilogue is 
+     * emitted.
+     * @param e the given emitter
+     * @param state the step to run, 0 for the first step
+     * @param label unused
+     */
+    void compileStep(Emitter e, int state, String label)
+    {
+        if (state == 0)
+        {
+            emitPrologue(e);
+            e.schedule(this, 1, null);
+            e.schedule(getStatement(), 0, null);
+        }
+        else
+        {
+            emitEpilogue(e);
+        }
+    }
+    
     /**
      * Gets the name of this procedure.
      * @return a String representing the name of this procedure
      */
     public String getName()
+    {
+        return SymbolTable.getGlobal().getName(name);
+    }
+    
+    /**
+     * Gets the symbol id of the name of this procedure.
+     * @return the instance variable name
+     */
+    public int getId()
     {
         return name;
     }
@@ -130,7 +326,35 @@ public class ProcedureDeclaration extends Statement
      * @return a list containing the names of the local variables
      */
     public List<String> getLocalVariableNames()
+    {
+        return names(localVariableNames);
+    }
+    
+    /**
+     * Gets the symbol ids of the local variables of this procedure.
+     * @return an array containing the ids of the local variable names
+     */
+    public int[] getLocalVariableIds()
     {
         return localVariableNames;
     }
+    
+    /**
+     * Gets the number of children of this procedure declaration.
+     * @return 1
+     */
+    public int getChildCount()
+    {
+        return 1;
+    }
+    
+    /**
+     * Gets the child of this procedure declaration at the given index.
+     * @param i the given index
+     * @return the body of the procedure
+     */
+    public Node getChild(int i)
+    {
+        return getStatement();
+    }
 }
@@ -1,5 +1,6 @@
 package ast;
 import environment.Environment;
+import scanner.SymbolTable;
 import java.util.List;
 
 /**
@@ -14,9 +15,10 @@ public class Program extends Statement
     /**
      * Instance variables
      */
-    private List<String> globalVariables;
+    private int[] globalVariables;
     private List<ProcedureDeclaration> procedures;
     private Statement stmt;
+    private boolean resolved;
     
     /**
      * Constructs a Program object using the given list of global 
@@ -26,25 +28,145 @@ public class Program extends Statement
      *          the program declarations
      * @param s a Statement object representing the program body
      * @postcondition The instance variable globalVariables is set 
-     *                to gv.
+     *                to the symbol ids of gv.
      *              - The instance variable procedures is set to p.
      *              - The instance variable stmt is set to s.
+     *              - The instance variable resolved is set to false.
      */
     public Program(List<String> gv, List<ProcedureDeclaration> p, 
             Statement s)
+    {
+        globalVariables = new int[gv.size()];
+        procedures = p;
+        stmt = s;
+        resolved = false;
+        
+        for (int i = 0; i < globalVariables.length; i++)
+        {
+            globalVariables[i] = SymbolTable.getGlobal().intern(gv.get(i));
+        }
+    }
+    
+    /**
+     * Constructs a Program object using the given symbol ids of the 
+     * global variable names, list of procedure declarations, and 
+     * program body.
+     * @param gv the symbol ids of the global variable names
+     * @param p a list of ProcedureDeclaration objects representing 
+     *          the program declarations
+     * @param s a Statement object representing the program body
+     * @postcondition The instance variable globalVariables is set 
+     *                to gv.
+     *              - The instance variable procedures is set to p.
+     *              - The instance variable stmt is set to s.
+     *              - The instance variable resolved is set to false.
+     */
+    public Program(int[] gv, List<ProcedureDeclaration> p, Statement s)
     {
         globalVariables = gv;
         procedures = p;
         stmt = s;
+        resolved = false;
+    }
+    
+    /**
+     * Gets the symbol ids of the global variable names.
+     * @return the instance field globalVariables
+     */
+    public int[] getGlobalVariables()
+    {
+        return globalVariables;
     }
     
     /**
-     * Executes the program represented by this Program object.
-     * @param env the given environment
+     * Gets the procedure declarations of this program.
+     * @return the instance field procedures
+     */
+    public List<ProcedureDeclaration> getProcedures()
+    {
+        return procedures;
+    }
+    
+    /**
+     * Gets the body of this program.
+     * @return the instance field stmt
+     */
+    public Statement getStatement()
+    {
+        return stmt;
+    }
+    
+    /**
+     * Replaces the procedure declaration at the given index, as when 
+     * that procedure alone has been re-parsed.
+     * @param i the given index
+     * @param pd the new declaration
+     * @postcondition The declaration at index i of procedures is pd.
+     */
+    public void setProcedure(int i, ProcedureDeclaration pd)
+    {
+        procedures.set(i, pd);
+    }
+    
+    /**
+     * Replaces the body of this program.
+     * @param s the new body
+     * @postcondition The instance field stmt is set to s.
+     *              - The instance field resolved is set to false, so 
+     *                the new body is bound before it next runs.
+     */
+    public void setStatement(Statement s)
+    {
+        stmt = s;
+        resolved = false;
+    }
+    
+    /**
+     * Gets the number of children of this program.
+     * @return the number of procedures plus one for the body
+     */
+    public int getChildCount()
+    {
+        return procedures.size() + 1;
+    }
+    
+    /**
+     * Gets the child of this program at the given index.
+     * @param i the given index
+     * @return the procedure at index i, or the body after the procedures
+     */
+    public Node getChild(int i)
+    {
+        if (i < procedures.size())
+        {
+            return procedures.get(i);
+        }
+        else
+        {
+            return stmt;
+        }
+    }
+    
+    /**
+     * Executes the program represented by this Program object. The 
+     * body runs in an Interpreter, so neither deep nesting nor deep 
+     * recursion in the program is limited by the thread stack. Before 
+     * the body first runs, every variable in it is bound to its slot in 
+     * the global environment. Binding the body twice binds every name 
+     * to the same slot, so two threads that run the program at once 
+     * need not wait for each other.
+     * @param env the given environment, which is the global environment
      */
     public void exec(Environment env)
     {
-        for (String var : globalVariables)
+        if (!resolved)
+        {
+            new Resolver().resolve(stmt);
+            resolved = true;
+        }
+        
+        
+        for (int var : globalVariables)
         {
             env.declareVariable(var, 0);
         }
@@ -54,26 +176,57 @@ public class Program extends Statement
             pd.exec(env);
         }
         
-        stmt.exec(env);
+        new Interpreter(env).exec(stmt);
     }
     
     /**
      * Compiles the program represented by this Program object into the 
-     * given file.
+     * given file. The body and procedures are compiled by the emitter's 
+     * explicit task stack rather than by recursion.
      * @param filename the name of the file
      */
     public void compile(String filename)
     {
         Emitter e = new Emitter(filename);
         
+        try
+        {
+            emitStart(e, globalVariables);
+            
+            e.compile(stmt);
+            
+            emitExit(e);
+            
+            for (ProcedureDeclaration pd : procedures)
+            {
+                e.compile(pd);
+            }
+        }
+        finally
+        {
+            e.close();
+        }
+    }
+    
+    /**
+     * Emits the MIPS code that comes before the body of a program: the 
+     * data section holding the given global variables, and the start 
+     * of the text section up to the label of the body.
+     * @param e the given emitter
+     * @param globals the symbol ids of the global variables
+     */
+    public static void emitStart(Emitter e, int[] globals)
+    {
         e.emit("# @author Daniel Wang");
         e.emit("# @version May 1, 2020");
         e.emit(".data");
         e.emit("newline:");
         e.emit(".asciiz \"\\n\"");
         
-        for (String varName : globalVariables)
+        for (int var : globals)
         {
+            String varName = SymbolTable.getGlobal().getName(var);
+            
             e.emit("var" + varName + ":");
             e.emit(".word 0");
         }
@@ -83,19 +236,18 @@ public class Program extends Statement
         e.emit(".globl main");
         e.emit("");
         e.emit("main:");
-        
-        stmt.compile(e);
-        
+    }
+    
+    /**
+     * Emits the MIPS code that ends a program after its body, which 
+     * comes before the code of its procedures.
+     * @param e the given emitter
+     */
+    public static void emitExit(Emitter e)
+    {
         e.emit("# Normal termination");
         e.emit("li $v0 10");
         e.emit("syscall");
         e.emit("");
-        
-        for (ProcedureDeclaration pd : procedures)
-        {
-            pd.compile(e);
-        }
-        
-        e.close();
     }
 }
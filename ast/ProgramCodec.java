@@ -0,0 +1,628 @@
+package ast;
+import environment.IntMap;
+import scanner.Position;
+import scanner.SymbolTable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ProgramCodec converts a Program to and from a compact binary form, so 
+ * that a parsed program can be kept on disk and loaded again without 
+ * scanning or parsing its source. 
+ * The nodes are written in postfix order, each as a one-byte tag 
+ * followed by the fields of the node and its position, with every int 
+ * written in as few bytes as it needs and each position written as the 
+ * difference from the one before. Reading pushes each node onto a 
+ * stack after popping its children, so neither direction recurses and 
+ * trees of any depth can be converted. Symbol ids only mean something 
+ * within one run, so the names a program uses are written once up front 
+ * and interned again when it is read. 
+ * The encoding starts with a key, such as a hash of the source, and 
+ * reading only succeeds with the same key.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: byte[] bytes = ProgramCodec.encode(<program>, <key>);
+ *        Program program = ProgramCodec.decode(<buffer>, <key>);
+ */
+public final class ProgramCodec
+{
+    /**
+     * The first four bytes of every encoding, and the version of the 
+     * format that follows them
+     */
+    private static final int MAGIC = 0x50415354;
+    private static final int VERSION = 1;
+    
+    /**
+     * The tags of the kinds of node
+     */
+    private static final int NUMBER = 0;
+    private static final int VARIABLE = 1;
+    private static final int BINOP = 2;
+    private static final int CONDITION = 3;
+    private static final int CALL = 4;
+    private static final int ASSIGNMENT = 5;
+    private static final int WRITELN = 6;
+    private static final int WRITELN_TIMES = 7;
+    private static final int BLOCK = 8;
+    private static final int IF = 9;
+    private static final int WHILE = 10;
+    private static final int PROCEDURE = 11;
+    private static final int PROGRAM = 12;
+    
+    /**
+     * The operations of a BinOp and the boolean conditions of a 
+     * Condition, each written as its index here
+     */
+    private static final List<String> OPERATORS = 
+            Arrays.asList("+", "-", "*", "/");
+    private static final List<String> RELOPS = 
+            Arrays.asList("=", "<>", "<", ">", "<=", ">=");
+    
+    /**
+     * Instance variables
+     */
+    private byte[] out;
+    private int size;
+    private IntMap locals;
+    private int[] symbols;
+    private int symbolCount;
+    private int line;
+    private int column;
+    
+    /**
+     * Constructs an empty ProgramCodec object for writing.
+     * @postcondition The output buffer and the table of symbols are 
+     *                empty.
+     */
+    private ProgramCodec()
+    {
+        out = new byte[256];
+        size = 0;
+        locals = new IntMap();
+        symbols = new int[16];
+        symbolCount = 0;
+        line = 0;
+        column = 0;
+    }
+    
+    /**
+     * Encodes the given program under the given key.
+     * @param program the given program
+     * @param key the given key
+     * @return the encoding of program
+     * @throws IllegalArgumentException if the program holds a node or 
+     *                                  operation that has no encoding
+     */
+    public static byte[] encode(Program program, byte[] key)
+    {
+        ProgramCodec body = new ProgramCodec();
+        int count = body.writeNodes(program);
+        
+        ProgramCodec head = new ProgramCodec();
+        head.writeInt(MAGIC);
+        head.writeInt(VERSION);
+        head.writeVarint(key.length);
+        head.writeBytes(key, key.length);
+        head.writeVarint(body.symbolCount);
+        
+        SymbolTable table = SymbolTable.getGlobal();
+        
+        for (int i = 0; i < body.symbolCount; i++)
+        {
+            String name = table.getName(body.symbols[i]);
+            
+            head.writeVarint(name.length());
+            
+            for (int j = 0; j < name.length(); j++)
+            {
+                head.writeByte(name.charAt(j));
+            }
+        }
+        
+        head.writeVarint(count);
+        head.writeBytes(body.out, body.size);
+        
+        return Arrays.copyOf(head.out, head.size);
+    }
+    
+    /**
+     * Writes every node of the given program in postfix order.
+     * @param program the given program
+     * @return the number of nodes written
+     * @postcondition The symbols used by the nodes are in the instance 
+     *                field symbols, in order of first use.
+     */
+    private int writeNodes(Program program)
+    {
+        Node[] stack = new Node[64];
+        int[] next = new int[64];
+        int top = 1;
+        int count = 0;
+        
+        stack[0] = program;
+        
+        while (top > 0)
+        {
+            Node n = stack[top - 1];
+            int i = next[top - 1];
+            
+            if (i < n.getChildCount())
+            {
+                next[top - 1]++;
+                
+                if (top == stack.length)
+                {
+                    stack = Arrays.copyOf(stack, top * 2);
+                    next = Arrays.copyOf(next, top * 2);
+                }
+                
+                stack[top] = n.getChild(i);
+                next[top] = 0;
+                top++;
+            }
+            else
+            {
+                top--;
+                stack[top] = null;
+                writeNode(n);
+                count++;
+            }
+        }
+        
+        return count;
+    }
+    
+    /**
+     * Writes the tag, fields and position of the given node, whose 
+     * children have already been written.
+     * @param n the given node
+     * @throws IllegalArgumentException if n has no encoding
+     */
+    private void writeNode(Node n)
+    {
+        if (n instanceof Number)
+        {
+            writeByte(NUMBER);
+            writeSigned(((Number) n).getValue());
+        }
+        else if (n instanceof Variable)
+        {
+            writeByte(VARIABLE);
+            writeSymbol(((Variable) n).getId());
+        }
+        else if (n instanceof BinOp)
+        {
+            writeByte(BINOP);
+            writeByte(indexOf(OPERATORS, ((BinOp) n).getOperator()));
+        }
+        else if (n instanceof Condition)
+        {
+            writeByte(CONDITION);
+            writeByte(indexOf(RELOPS, ((Condition) n).getRelop()));
+        }
+        else if (n instanceof ProcedureCall)
+        {
+            writeByte(CALL);
+            writeSymbol(((ProcedureCall) n).getId());
+            writeVarint(n.getChildCount());
+        }
+        else if (n instanceof Assignment)
+        {
+            writeByte(ASSIGNMENT);
+            writeSymbol(((Assignment) n).getId());
+        }
+        else if (n instanceof Writeln)
+        {
+            writeByte(WRITELN);
+        }
+        else if (n instanceof WritelnTimes)
+        {
+            writeByte(WRITELN_TIMES);
+        }
+        else if (n instanceof Block)
+        {
+            writeByte(BLOCK);
+            writeVarint(n.getChildCount());
+        }
+        else if (n instanceof If)
+        {
+            writeByte(IF);
+        }
+        else if (n instanceof While)
+        {
+            writeByte(WHILE);
+        }
+        else if (n instanceof ProcedureDeclaration)
+        {
+            ProcedureDeclaration pd = (ProcedureDeclaration) n;
+            
+            writeByte(PROCEDURE);
+            writeSymbol(pd.getId());
+            writeSymbols(pd.getParameterIds());
+            writeSymbols(pd.getLocalVariableIds());
+        }
+        else if (n instanceof Program)
+        {
+            writeByte(PROGRAM);
+            writeSymbols(((Program) n).getGlobalVariables());
+            writeVarint(n.getChildCount() - 1);
+        }
+        else
+        {
+            throw new IllegalArgumentException("Cannot encode " + 
+                n.getClass().getSimpleName());
+        }
+        
+        long pos = n.getPosition();
+        
+        writeSigned(Position.line(pos) - line);
+        writeSigned(Position.column(pos) - column);
+        line = Position.line(pos);
+        column = Position.column(pos);
+    }
+    
+    /**
+     * Finds the index of the given operation.
+     * @param list the operations that can be encoded
+     * @param op the given operation
+     * @return the index of op in list
+     * @throws IllegalArgumentException if op is not in list
+     */
+    private static int indexOf(List<String> list, String op)
+    {
+        int index = list.indexOf(op);
+        
+        if (index < 0)
+        {
+            throw new IllegalArgumentException("Cannot encode " + op);
+        }
+        
+        return index;
+    }
+    
+    /**
+     * Writes the given symbol as its index in the table of symbols of 
+     * this encoding.
+     * @param id the global id of the symbol
+     * @postcondition id is added to the table if it was not there.
+     */
+    private void writeSymbol(int id)
+    {
+        if (!locals.containsKey(id))
+        {
+            if (symbolCount == symbols.length)
+            {
+                symbols = Arrays.copyOf(symbols, symbolCount * 2);
+            }
+            
+            locals.put(id, symbolCount);
+            symbols[symbolCount++] = id;
+        }
+        
+        writeVarint(locals.get(id));
+    }
+    
+    /**
+     * Writes the given array of symbols, preceded by its length.
+     * @param ids the global ids of the symbols
+     */
+    private void writeSymbols(int[] ids)
+    {
+        writeVarint(ids.length);
+        
+        for (int id : ids)
+        {
+            writeSymbol(id);
+        }
+    }
+    
+    /**
+     * Writes the given int in four bytes, high byte first.
+     * @param v the given int
+     */
+    private void writeInt(int v)
+    {
+        writeByte(v >>> 24);
+        writeByte(v >>> 16);
+        writeByte(v >>> 8);
+        writeByte(v);
+    }
+    
+    /**
+     * Writes the given non-negative int seven bits at a time, low bits 
+     * first, with the high bit of each byte set if more follow.
+     * @param v the given int
+     */
+    private void writeVarint(int v)
+    {
+        while ((v & ~0x7F) != 0)
+        {
+            writeByte(v & 0x7F | 0x80);
+            v >>>= 7;
+        }
+        
+        writeByte(v);
+    }
+    
+    /**
+     * Writes the given int, which may be negative, so that ints close 
+     * to 0 take few bytes.
+     * @param v the given int
+     */
+    private void writeSigned(int v)
+    {
+        writeVarint(v << 1 ^ v >> 31);
+    }
+    
+    /**
+     * Writes the given number of bytes of the given array.
+     * @param bytes the given array
+     * @param length the given number of bytes
+     */
+    private void writeBytes(byte[] bytes, int length)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            writeByte(bytes[i]);
+        }
+    }
+    
+    /**
+     * Writes the low eight bits of the given int.
+     * @param b the given int
+     * @postcondition The output buffer is doubled when it is full.
+     */
+    private void writeByte(int b)
+    {
+        if (size == out.length)
+        {
+            out = Arrays.copyOf(out, size * 2);
+        }
+        
+        out[size++] = (byte) b;
+    }
+    
+    /**
+     * Decodes a program from the given buffer, reading from its 
+     * position. Nothing is copied out of the buffer except the names 
+     * of symbols not seen before, so a memory-mapped file can be read 
+     * in place.
+     * @param buf the given buffer
+     * @param key the key the program must have been encoded under
+     * @return the decoded program, or null if buf does not hold an 
+     *         encoding in this format under key
+     * @throws IllegalArgumentException if the encoding is malformed
+     * @throws java.nio.BufferUnderflowException if the encoding is cut 
+     *                                           short
+     */
+    public static Program decode(ByteBuffer buf, byte[] key)
+    {
+        if (buf.remaining() < 8 || buf.getInt() != MAGIC || 
+                buf.getInt() != VERSION || readVarint(buf) != key.length)
+        {
+            return null;
+        }
+        
+        for (int i = 0; i < key.length; i++)
+        {
+            if (buf.get() != key[i])
+            {
+                return null;
+            }
+        }
+        
+        int[] ids = new int[readVarint(buf)];
+        SymbolTable table = SymbolTable.getGlobal();
+        
+        for (int i = 0; i < ids.length; i++)
+        {
+            int length = readVarint(buf);
+            
+            ids[i] = table.intern(buf, buf.position(), length);
+            buf.position(buf.position() + length);
+        }
+        
+        int count = readVarint(buf);
+        Node[] stack = new Node[64];
+        int top = 0;
+        int line = 0;
+        int column = 0;
+        
+        for (int i = 0; i < count; i++)
+        {
+            int tag = buf.get();
+            Node n;
+            
+            switch (tag)
+            {
+                case NUMBER: 
+                    n = new Number(readSigned(buf));
+                    break;
+                case VARIABLE: 
+                    n = new Variable(ids[readVarint(buf)]);
+                    break;
+                case BINOP: 
+                {
+                    String op = OPERATORS.get(buf.get());
+                    top -= 2;
+                    n = BinOp.create(op, (Expression) stack[top], 
+                        (Expression) stack[top + 1]);
+                    break;
+                }
+                case CONDITION: 
+                {
+                    String relop = RELOPS.get(buf.get());
+                    top -= 2;
+                    n = Condition.create(relop, (Expression) stack[top], 
+                        (Expression) stack[top + 1]);
+                    break;
+                }
+                case CALL: 
+                {
+                    int name = ids[readVarint(buf)];
+                    int argc = readVarint(buf);
+                    List<Expression> args = new ArrayList<Expression>(argc);
+                    
+                    top -= argc;
+                    
+                    for (int j = 0; j < argc; j++)
+                    {
+                        args.add((Expression) stack[top + j]);
+                    }
+                    
+                    n = new ProcedureCall(name, args);
+                    break;
+                }
+                case ASSIGNMENT: 
+                    top--;
+                    n = new Assignment(ids[readVarint(buf)], 
+                        (Expression) stack[top]);
+                    break;
+                case WRITELN: 
+                    top--;
+                    n = new Writeln((Expression) stack[top]);
+                    break;
+                case WRITELN_TIMES: 
+                    top -= 2;
+                    n = new WritelnTimes((Expression) stack[top], 
+                        (Expression) stack[top + 1]);
+                    break;
+                case BLOCK: 
+                {
+                    int length = readVarint(buf);
+                    List<Statement> stmts = new ArrayList<Statement>(length);
+                    
+                    top -= length;
+                    
+                    for (int j = 0; j < length; j++)
+                    {
+                        stmts.add((Statement) stack[top + j]);
+                    }
+                    
+                    n = new Block(stmts);
+                    break;
+                }
+                case IF: 
+                    top -= 2;
+                    n = new If((Condition) stack[top], 
+                        (Statement) stack[top + 1]);
+                    break;
+                case WHILE: 
+                    top -= 2;
+                    n = new While((Condition) stack[top], 
+                        (Statement) stack[top + 1]);
+                    break;
+                case PROCEDURE: 
+                {
+                    int name = ids[readVarint(buf)];
+                    int[] parameters = readSymbols(buf, ids);
+                    int[] localVariables = readSymbols(buf, ids);
+                    
+                    top--;
+                    n = new ProcedureDeclaration(name, parameters, 
+                        (Statement) stack[top], localVariables);
+                    break;
+                }
+                case PROGRAM: 
+                {
+                    int[] globals = readSymbols(buf, ids);
+                    int procedureCount = readVarint(buf);
+                    List<ProcedureDeclaration> procedures = 
+                            new ArrayList<ProcedureDeclaration>();
+                    
+                    top -= procedureCount + 1;
+                    
+                    for (int j = 0; j < procedureCount; j++)
+                    {
+                        procedures.add((ProcedureDeclaration) stack[top + j]);
+                    }
+                    
+                    n = new Program(globals, procedures, 
+                        (Statement) stack[top + procedureCount]);
+                    break;
+                }
+                default: 
+                    throw new IllegalArgumentException("Unknown tag " + 
+                        tag);
+            }
+            
+            line += readSigned(buf);
+            column += readSigned(buf);
+            n.setPosition(Position.pack(line, column));
+            
+            if (top < 0)
+            {
+                throw new IllegalArgumentException("Missing children");
+            }
+            
+            if (top == stack.length)
+            {
+                stack = Arrays.copyOf(stack, top * 2);
+            }
+            
+            stack[top++] = n;
+        }
+        
+        if (top != 1 || !(stack[0] instanceof Program))
+        {
+            throw new IllegalArgumentException("Not one program");
+        }
+        
+        return (Program) stack[0];
+    }
+    
+    /**
+     * Reads an array of symbols, preceded by its length.
+     * @param buf the buffer to read from
+     * @param ids the global id of each symbol of the encoding
+     * @return the global ids of the symbols read
+     */
+    private static int[] readSymbols(ByteBuffer buf, int[] ids)
+    {
+        int[] symbols = new int[readVarint(buf)];
+        
+        for (int i = 0; i < symbols.length; i++)
+        {
+            symbols[i] = ids[readVarint(buf)];
+        }
+        
+        return symbols;
+    }
+    
+    /**
+     * Reads an int written by writeVarint.
+     * @param buf the buffer to read from
+     * @return the int read
+     */
+    private static int readVarint(ByteBuffer buf)
+    {
+        int v = 0;
+        int shift = 0;
+        int b;
+        
+        do
+        {
+            b = buf.get();
+            v |= (b & 0x7F) << shift;
+            shift += 7;
+        }
+        while ((b & 0x80) != 0);
+        
+        return v;
+    }
+    
+    /**
+     * Reads an int written by writeSigned.
+     * @param buf the buffer to read from
+     * @return the int read
+     */
+    private static int readSigned(ByteBuffer buf)
+    {
+        int v = readVarint(buf);
+        
+        return v >>> 1 ^ -(v & 1);
+    }
+}
@@ -0,0 +1,196 @@
+package ast;
+import java.util.Arrays;
+
+/**
+ * Resolver binds every variable in the body of a procedure before the 
+ * procedure first runs, or in the body of a program before it runs, so 
+ * that the interpreter does not look names up on every access. The 
+ * parameters of the procedure and the variable named after it, which 
+ * holds its return value, are each given a slot in the frame of a 
+ * call, and every Variable and Assignment that names one of them reads 
+ * or writes that slot. Every other name in the body 
+ * refers to a global variable, as local variables always have in the 
+ * interpreter, and is bound to go straight to the global environment 
+ * rather than first missing in the environment of the call. In the 
+ * body of a program every name is global. The slot of a global 
+ * variable is its symbol id in the global environment. 
+ * A parameter that repeats an earlier name shares its slot, and so 
+ * does the return value if a parameter has the name of the procedure, 
+ * so the last value stored wins just as it does in an environment.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: Resolver resolver = new Resolver(<parameter ids>, <name id>);
+ *        resolver.resolve(<body>);
+ *        int[] slots = resolver.getParameterSlots();
+ *        new Resolver().resolve(<program body>);
+ */
+class Resolver
+{
+    /**
+     * The slot of a variable that has not been bound
+     */
+    static final int UNBOUND = -1;
+    
+    /**
+     * The slot of a variable that is bound to a global variable
+     */
+    static final int GLOBAL = -2;
+    
+    /**
+     * Instance variables
+     */
+    private int[] names;
+    private int size;
+    private int[] parameterSlots;
+    private int nameSlot;
+    
+    /**
+     * Constructs a Resolver object for a procedure with the given 
+     * parameters and name.
+     * @param parameters the symbol ids of the parameter names
+     * @param procedure the symbol id of the procedure name
+     * @postcondition Each distinct name among the parameters and the 
+     *                procedure name has a slot, in order.
+     */
+    Resolver(int[] parameters, int procedure)
+    {
+        names = new int[parameters.length + 1];
+        size = 0;
+        parameterSlots = new int[parameters.length];
+        
+        for (int i = 0; i < parameters.length; i++)
+        {
+            parameterSlots[i] = slotFor(parameters[i]);
+        }
+        
+        nameSlot = slotFor(procedure);
+    }
+    
+    /**
+     * Constructs a Resolver object for the body of a program, which has 
+     * no frame.
+     * @postcondition No name has a slot, so every name is bound to the 
+     *                global environment.
+     *              - The instance field nameSlot is set to GLOBAL.
+     */
+    Resolver()
+    {
+        names = new int[0];
+        size = 0;
+        parameterSlots = new int[0];
+        nameSlot = GLOBAL;
+    }
+    
+    /**
+     * Finds the slot of the given name, giving it a new slot if it has 
+     * none.
+     * @param id the symbol id of the name
+     * @return the slot of id
+     */
+    private int slotFor(int id)
+    {
+        int slot = slotOf(id);
+        
+        if (slot == GLOBAL)
+        {
+            slot = size;
+            names[size++] = id;
+        }
+        
+        return slot;
+    }
+    
+    /**
+     * Finds the slot of the given name.
+     * @param id the symbol id of the name
+     * @return the slot of id, or GLOBAL if id is neither a parameter 
+     *         nor the procedure name
+     */
+    private int slotOf(int id)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (names[i] == id)
+            {
+                return i;
+            }
+        }
+        
+        return GLOBAL;
+    }
+    
+    /**
+     * Binds every Variable and Assignment in the given body to its 
+     * slot. The body is walked with an explicit stack, so deep nesting 
+     * is bounded by the heap rather than by the thread stack.
+     * @param body the given body
+     * @postcondition Every Variable and Assignment below body is bound.
+     */
+    void resolve(Statement body)
+    {
+        Node[] stack = new Node[64];
+        int top = 0;
+        
+        stack[top++] = body;
+        
+        while (top > 0)
+        {
+            Node n = stack[--top];
+            
+            stack[top] = null;
+            
+            if (n instanceof Variable)
+            {
+                Variable v = (Variable) n;
+                
+                v.bind(slotOf(v.getId()));
+            }
+            else if (n instanceof Assignment)
+            {
+                Assignment a = (Assignment) n;
+                
+                a.bind(slotOf(a.getId()));
+            }
+            
+            int count = n.getChildCount();
+            
+            if (top + count > stack.length)
+            {
+                stack = Arrays.copyOf(stack, 
+                    Math.max(stack.length * 2, top + count));
+            }
+            
+            for (int i = 0; i < count; i++)
+            {
+                stack[top++] = n.getChild(i);
+            }
+        }
+    }
+    
+    /**
+     * Gets the number of slots in a frame of the procedure.
+     * @return the number of distinct names given slots
+     */
+    int getFrameSize()
+    {
+        return size;
+    }
+    
+    /**
+     * Gets the slots of the parameters.
+     * @return the slot of each parameter, in order
+     */
+    int[] getParameterSlots()
+    {
+        return parameterSlots;
+    }
+    
+    /**
+     * Gets the slot of the return value.
+     * @return the instance field nameSlot
+     */
+    int getNameSlot()
+    {
+        return nameSlot;
+    }
+}
@@ -9,7 +9,7 @@ import environment.Environment;
  * @version March 21, 2020
  * Usage: Instantiate a subclass of this class.
  */
-public abstract class Statement
+public abstract class Statement extends Node
 {
     /**
      * Executes the statement represented by this Statement object 
@@ -1,5 +1,6 @@
 package ast;
 import environment.Environment;
+import scanner.SymbolTable;
 
 /**
  * Variable is a class representing a variable parsed by this parser.
@@ -11,19 +12,50 @@ import environment.Environment;
 public class Variable extends Expression
 {
     /**
-     * Instance variable
+     * Instance variables
      */
-    private String name;
+    private int name;
+    private int slot = Resolver.UNBOUND;
     
     /**
      * Constructs a Variable object using the given variable name.
      * Usage: Variable variable = new Variable(<variable name>);
      * @param s the given variable name
-     * @postcondition The instance field name is set to s.
+     * @postcondition The instance field name is set to the symbol id 
+     *                of s.
      */
     public Variable(String s)
     {
-        name = s;
+        name = SymbolTable.getGlobal().intern(s);
+    }
+    
+    /**
+     * Constructs a Variable object using the given symbol id.
+     * Usage: Variable variable = new Variable(<symbol id>);
+     * @param id the symbol id of the variable name
+     * @postcondition The instance field name is set to id.
+     */
+    public Variable(int id)
+    {
+        name = id;
+    }
+    
+    /**
+     * Gets the name of this variable.
+     * @return the name interned under the instance field name
+     */
+    public String getName()
+    {
+        return SymbolTable.getGlobal().getName(name);
+    }
+    
+    /**
+     * Gets the symbol id of the name of this variable.
+     * @return the instance field name
+     */
+    public int getId()
+    {
+        return name;
     }
     
     /**
@@ -35,11 +67,44 @@ public class Variable extends Expression
      */
     public int eval(Environment env)
     {
-        int value = env.getVariable(name);
+        int value = valueIn(env);
         
         return value;
     }
     
+    /**
+     * Reads this variable from the given environment: from its slot in 
+     * the frame or from the global environment if it has been bound, 
+     * and by name otherwise.
+     * @param env the given environment
+     * @return the value of this variable
+     */
+    private int valueIn(Environment env)
+    {
+        if (slot >= 0)
+        {
+            return env.getSlot(slot);
+        }
+        
+        if (slot == Resolver.GLOBAL)
+        {
+            return env.getGlobal(name);
+        }
+        
+        return env.getVariable(name);
+    }
+    
+    /**
+     * Binds this variable to a slot of the frame of its procedure, or 
+     * to the global environment.
+     * @param s the given slot, or Resolver.GLOBAL
+     * @postcondition The instance field slot is set to s.
+     */
+    void bind(int s)
+    {
+        slot = s;
+    }
+    
     /**
      * Compiles the variable represented by this Variable object using 
      * the given emitter.
@@ -51,16 +116,38 @@ public class Variable extends Expression
         {
             int offset = e.getOffset(name);
             
-            e.emit("# Loads " + "local variable " + name + " into $v0");
+            e.emit("# Loads " + "local variable " + getName() + 
+                    " into $v0");
             e.emit("lw $v0 " + offset + "($sp)");
             e.emit("");
         }
         else
         {
-            e.emit("# Loads " + "var" + name + " into $v0");
-            e.emit("la $t0 " + "var" + name);
+            e.emit("# Loads " + "var" + getName() + " into $v0");
+            e.emit("la $t0 " + "var" + getName());
             e.emit("lw $v0 ($t0)");
             e.emit("");
         }
     }
+    
+    /**
+     * Runs the only step of evaluating this variable.
+     * @param in the given interpreter
+     * @param state unused
+     */
+    void execStep(Interpreter in, int state)
+    {
+        in.pushValue(valueIn(in.getEnvironment()));
+    }
+    
+    /**
+     * Runs the only step of compiling this variable.
+     * @param e the given emitter
+     * @param state unused
+     * @param label unused
+     */
+    void compileStep(Emitter e, int state, String label)
+    {
+        compile(e);
+    }
 }
@@ -24,11 +24,14 @@ public class While extends Statement
      * @param s the given statement
      * @postcondition The instance field cond is set to c.
      *              - The instance field stmt is set to s.
+     *              - The height is one more than that of c or s.
      */
     public While(Condition c, Statement s)
     {
         cond = c;
         stmt = s;
+        raiseHeight(c);
+        raiseHeight(s);
     }
     
     /**
@@ -41,9 +44,7 @@ public class While extends Statement
         boolean ended = false;
         while (!ended)
         {
-            int value = cond.eval(env);
-            
-            if (value == 0)
+            if (!cond.test(env))
             {
                 ended = true;
             }
@@ -72,4 +73,85 @@ public class While extends Statement
         e.emit("");
         e.emit(endLabel + ":");
     }
+    
+    /**
+     * Runs one step of executing this WHILE loop: the condition is 
+     * scheduled, unless it is shallow, and while it holds the statement 
+     * is scheduled followed by the loop again.
+     * @param in the given interpreter
+     * @param state the step to run, 0 for the first step
+     */
+    void execStep(Interpreter in, int state)
+    {
+        if (state == 0 && !cond.isShallow())
+        {
+            in.schedule(this, 1);
+            in.schedule(cond, 0);
+        }
+        else if (in.test(cond, state))
+        {
+            in.schedule(this, 0);
+            in.scheduleExec(stmt);
+        }
+    }
+    
+    /**
+     * Runs one step of compiling this WHILE loop: the start label is 
+     * emitted and the condition and the statement are scheduled, 
+     * followed by the step that emits the jump back to the start and 
+     * the step that emits the end label.
+     * @param e the given emitter
+     * @param state the step to run, 0 for the first step
+     * @param label the start label in step 1, the end label in step 2
+     */
+    void compileStep(Emitter e, int state, String label)
+    {
+        if (state == 0)
+        {
+            String startLabel = "startwhile" + e.nextLabelID();
+            String endLabel = "endwhile" + e.nextLabelID();
+            
+            e.emit(startLabel + ":");
+            e.schedule(this, 2, endLabel);
+            e.schedule(this, 1, startLabel);
+            e.schedule(stmt, 0, null);
+            e.schedule(cond, 0, endLabel);
+        }
+        else if (state == 1)
+        {
+            e.emit("# Jumps to " + label);
+            e.emit("j " + label);
+            e.emit("");
+        }
+        else
+        {
+            e.emit(label + ":");
+        }
+    }
+    
+    /**
+     * Gets the number of children of this WHILE loop.
+     * @return 2
+     */
+    public int getChildCount()
+    {
+        return 2;
+    }
+    
+    /**
+     * Gets the child of this WHILE loop at the given index.
+     * @param i the given index
+     * @return the condition if i is 0, the statement otherwise
+     */
+    public Node getChild(int i)
+    {
+        if (i == 0)
+        {
+            return cond;
+        }
+        else
+        {
+            return stmt;
+        }
+    }
 }
@@ -22,10 +22,12 @@ public class Writeln extends Statement
      * Usage: Writeln writeln = new Writeln(<expression>);
      * @param e the given expression
      * @postcondition The instance field exp is set to e.
+     *              - The height is one more than that of e.
      */
     public Writeln(Expression e)
     {
         exp = e;
+        raiseHeight(e);
     }
     
     /**
@@ -48,6 +50,15 @@ public class Writeln extends Statement
     public void compile(Emitter e)
     {
         exp.compile(e);
+        emitWrite(e);
+    }
+    
+    /**
+     * Emits MIPS code that writes $v0 and a newline to the screen.
+     * @param e the given emitter
+     */
+    private void emitWrite(Emitter e)
+    {
         e.emit("# Writes $v0 and a newline to the screen");
         e.emit("move $a0 $v0");
         e.emit("li $v0 1");
@@ -57,4 +68,63 @@ public class Writeln extends Statement
         e.emit("syscall");
         e.emit("");
     }
+    
+    /**
+     * Runs one step of executing this WRITELN statement: first the 
+     * expression is scheduled, unless it is shallow, then its value is 
+     * written.
+     * @param in the given interpreter
+     * @param state the step to run, 0 for the first step
+     */
+    void execStep(Interpreter in, int state)
+    {
+        if (state == 0 && !exp.isShallow())
+        {
+            in.schedule(this, 1);
+            in.schedule(exp, 0);
+        }
+        else
+        {
+            System.out.println(in.valueOf(exp, state));
+        }
+    }
+    
+    /**
+     * Runs one step of compiling this WRITELN statement: first the 
+     * expression is scheduled, then the write is emitted.
+     * @param e the given emitter
+     * @param state the step to run, 0 for the first step
+     * @param label unused
+     */
+    void compileStep(Emitter e, int state, String label)
+    {
+        if (state == 0)
+        {
+            e.schedule(this, 1, null);
+            e.schedule(exp, 0, null);
+        }
+        else
+        {
+            emitWrite(e);
+        }
+    }
+    
+    /**
+     * Gets the number of children of this WRITELN statement.
+     * @return 1
+     */
+    public int getChildCount()
+    {
+        return 1;
+    }
+    
+    /**
+     * Gets the child of this WRITELN statement at the given index.
+     * @param i the given index
+     * @return the written expression
+     */
+    public Node getChild(int i)
+    {
+        return exp;
+    }
 }
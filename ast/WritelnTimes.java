@@ -29,11 +29,14 @@ public class WritelnTimes extends Statement
      *          out the value
      * @postcondition The instance field exp is set to e.
      *              - The instance field times is set to t.
+     *              - The height is one more than that of e or t.
      */
     public WritelnTimes(Expression e, Expression t)
     {
         exp = e;
         times = t;
+        raiseHeight(e);
+        raiseHeight(t);
     }
     
     /**
@@ -46,9 +49,68 @@ public class WritelnTimes extends Statement
         int value = exp.eval(env);
         int numTimes = times.eval(env);
         
+        write(value, numTimes);
+    }
+    
+    /**
+     * Writes the given value the given number of times.
+     * @param value the given value
+     * @param numTimes the given number of times
+     */
+    private static void write(int value, int numTimes)
+    {
         for (int i = 0; i < numTimes; i++)
         {
             System.out.println(value);
         }
     }
+    
+    /**
+     * Runs one step of executing this WRITELNTIMES statement: first 
+     * both expressions are scheduled, then the value is written.
+     * @param in the given interpreter
+     * @param state the step to run, 0 for the first step
+     */
+    void execStep(Interpreter in, int state)
+    {
+        if (state == 0)
+        {
+            in.schedule(this, 1);
+            in.schedule(times, 0);
+            in.schedule(exp, 0);
+        }
+        else
+        {
+            int numTimes = in.popValue();
+            int value = in.popValue();
+            
+            write(value, numTimes);
+        }
+    }
+    
+    /**
+     * Gets the number of children of this WRITELNTIMES statement.
+     * @return 2
+     */
+    public int getChildCount()
+    {
+        return 2;
+    }
+    
+    /**
+     * Gets the child of this WRITELNTIMES statement at the given index.
+     * @param i the given index
+     * @return the value to write if i is 0, the number of times otherwise
+     */
+    public Node getChild(int i)
+    {
+        if (i == 0)
+        {
+            return exp;
+        }
+        else
+        {
+            return times;
+        }
+    }
 }
@@ -1,12 +1,22 @@
 package environment;
 import ast.ProcedureDeclaration;
-import java.util.Map;
-import java.util.HashMap;
+import scanner.SymbolTable;
+import java.util.Arrays;
 
 /**
  * Environment is a class representing an environment that a program 
  * runs in. The environment may be either the global environment or a 
- * local environment associated with a procedure.
+ * local environment associated with a procedure. 
+ * Variables and procedures are keyed on the ids that SymbolTable 
+ * assigns to their names, so a lookup never hashes or compares the 
+ * characters of a name. The methods that take a String are kept for 
+ * callers that only have the name. 
+ * The global environment keeps its variables in an array indexed by 
+ * symbol id, so the slot of a global variable is fixed by its name and 
+ * reading or writing one never hashes. The environment of a procedure 
+ * call also holds a frame, an array of slots for the parameters and 
+ * return value of the procedure, which nodes bound to a slot by 
+ * ast.Resolver read and write directly.
  * @author Daniel Wang
  * @version March 30, 2020
  * Usage: Environment environment = new Environment(<parent environment>);
@@ -18,8 +28,13 @@ public class Environment
      * Instance variables
      */
     private Environment parent;
-    private Map<String, Integer> variableMap;
-    private Map<String, ProcedureDeclaration> procedureMap;
+    private IntMap variableMap;
+    private int[] globalValues;
+    private boolean[] globalDefined;
+    private ProcedureDeclaration[] procedureMap;
+    private int[] frame;
+    private int base;
+    private int procedureVersion;
     
     /**
      * Constructs a new Environment object with the given Environment 
@@ -27,16 +42,70 @@ public class Environment
      * @param p the given Environment object
      * @postcondition The instance variable parent is set to p.
      *              - The instance variable variableMap is set to an 
-     *                empty HashMap with String keys and Integer values.
+     *                empty IntMap from symbol ids to values.
+     *              - The instance variables globalValues and 
+     *                globalDefined are set to empty arrays indexed by 
+     *                symbol id.
      *              - The instance variable procedureMap is set to an 
-     *                empty HashMap with String keys and values that 
-     *                are ProcedureDeclaration objects.
+     *                empty array indexed by symbol id.
+     *              - The instance variable frame is set to an empty 
+     *                array.
      */
     public Environment(Environment p)
+    {
+        this(p, 0);
+    }
+    
+    /**
+     * Constructs a new Environment object with the given Environment 
+     * object as its parent and a frame of the given number of slots, 
+     * for a call of a procedure whose variables have been bound to 
+     * slots.
+     * @param p the given Environment object
+     * @param slots the given number of slots
+     * @postcondition The instance variable parent is set to p.
+     *              - The instance variable variableMap is set to an 
+     *                empty IntMap from symbol ids to values.
+     *              - The instance variables globalValues and 
+     *                globalDefined are set to empty arrays indexed by 
+     *                symbol id.
+     *              - The instance variable procedureMap is set to an 
+     *                empty array indexed by symbol id.
+     *              - The instance variable frame is set to an array of 
+     *                slots zeros, and base to 0.
+     */
+    public Environment(Environment p, int slots)
+    {
+        this(p, new int[slots], 0);
+    }
+    
+    /**
+     * Constructs a new Environment object with the given Environment 
+     * object as its parent whose frame is a window of the given stack, 
+     * so that a call need not allocate a frame of its own.
+     * @param p the given Environment object
+     * @param stack the array holding the frame
+     * @param b the index in stack of the first slot of the frame
+     * @postcondition The instance variable parent is set to p.
+     *              - The instance variable variableMap is set to an 
+     *                empty IntMap from symbol ids to values.
+     *              - The instance variables globalValues and 
+     *                globalDefined are set to empty arrays indexed by 
+     *                symbol id.
+     *              - The instance variable procedureMap is set to an 
+     *                empty array indexed by symbol id.
+     *              - The instance variables frame and base are set to 
+     *                stack and b.
+     */
+    public Environment(Environment p, int[] stack, int b)
     {
         parent = p;
-        variableMap = new HashMap<String, Integer>();
-        procedureMap = new HashMap<String, ProcedureDeclaration>();
+        variableMap = new IntMap();
+        globalValues = new int[0];
+        globalDefined = new boolean[0];
+        procedureMap = new ProcedureDeclaration[0];
+        frame = stack;
+        base = b;
     }
     
     /**
@@ -48,131 +117,331 @@ public class Environment
         return parent;
     }
     
+    /**
+     * Declares a variable in this environment.
+     * @param variable the symbol id of the variable's name
+     * @param value an integer representing the variable's value
+     * @postcondition The given id is associated with the given 
+     *                integer in variableMap, or in globalValues if 
+     *                this is the global environment.
+     */
+    public void declareVariable(int variable, int value)
+    {
+        if (parent == null)
+        {
+            defineGlobal(variable, value);
+        }
+        else
+        {
+            variableMap.put(variable, value);
+        }
+    }
+    
     /**
      * Declares a variable in this environment.
      * @param variable a string representing the variable's name
      * @param value an integer representing the variable's value
-     * @postcondition The given string is associated with the given 
-     *                integer in variableMap.
+     * @postcondition The variable with the given name is declared as 
+     *                described in declareVariable(int, int).
      */
     public void declareVariable(String variable, int value)
     {
-        variableMap.put(variable, value);
+        declareVariable(SymbolTable.getGlobal().intern(variable), value);
     }
     
     /**
      * Sets a variable to a value.
-     * @param variable a string representing the variable's name
+     * @param variable the symbol id of the variable's name
      * @param value an integer representing the variable's new value
      * @postcondition If variableMap in this environment contains the 
-     *                given string as a key, the given string is 
-     *                associated with the given integer in variableMap 
-     *                in this environment.
-     *                Otherwise, the given string is associated with 
-     *                the given integer in variableMap in the global 
+     *                given id as a key, the given id is associated 
+     *                with the given integer in variableMap in this 
+     *                environment. 
+     *                Otherwise, the given id is associated with the 
+     *                given integer in globalValues in the global 
      *                environment.
      */
-    public void setVariable(String variable, int value)
+    public void setVariable(int variable, int value)
     {
         if (parent == null)
+        {
+            defineGlobal(variable, value);
+        }
+        else if (variableMap.containsKey(variable))
         {
             variableMap.put(variable, value);
         }
         else
         {
-            if (variableMap.containsKey(variable))
-            {
-                variableMap.put(variable, value);
-            }
-            else
-            {
-                Map<String, Integer> pVariableMap = parent.variableMap;
-                
-                pVariableMap.put(variable, value);
-            }
+            parent.defineGlobal(variable, value);
         }
     }
     
     /**
-     * Gets the value of a variable.
+     * Sets a variable to a value.
      * @param variable a string representing the variable's name
-     * @return the integer associated with the given string in 
+     * @param value an integer representing the variable's new value
+     * @postcondition The variable with the given name is set as 
+     *                described in setVariable(int, int).
+     */
+    public void setVariable(String variable, int value)
+    {
+        setVariable(SymbolTable.getGlobal().intern(variable), value);
+    }
+    
+    /**
+     * Gets the value of a variable.
+     * @param variable the symbol id of the variable's name
+     * @return the integer associated with the given id in 
      *         variableMap in this environment if variableMap in this 
-     *         environment contains the given string as a key
-     *       - the integer associated with the given string in 
-     *         variableMap in the global environment otherwise
+     *         environment contains the given id as a key
+     *       - the integer associated with the given id in 
+     *         globalValues in the global environment otherwise
+     * @throws RuntimeException if the variable is not defined
      */
-    public int getVariable(String variable)
+    public int getVariable(int variable)
     {
         if (parent == null)
         {
-            int value = variableMap.get(variable);
-            
-            return value;
+            return globalValue(variable);
         }
-        else
+        
+        if (variableMap.containsKey(variable))
+        {
+            return variableMap.get(variable);
+        }
+        
+        return parent.globalValue(variable);
+    }
+    
+    /**
+     * Gets the value of a variable.
+     * @param variable a string representing the variable's name
+     * @return the value of the variable with the given name as 
+     *         described in getVariable(int)
+     */
+    public int getVariable(String variable)
+    {
+        return getVariable(SymbolTable.getGlobal().intern(variable));
+    }
+    
+    /**
+     * Gets the value in a slot of the frame.
+     * @param slot the index of the slot
+     * @return the value in the slot
+     */
+    public int getSlot(int slot)
+    {
+        return frame[base + slot];
+    }
+    
+    /**
+     * Sets the value in a slot of the frame.
+     * @param slot the index of the slot
+     * @param value the given value
+     * @postcondition The slot holds value.
+     */
+    public void setSlot(int slot, int value)
+    {
+        frame[base + slot] = value;
+    }
+    
+    /**
+     * Moves the frame to a window of the given stack, as when the 
+     * environment is reused for another call or the stack holding its 
+     * frame has grown. The values in the slots are not copied.
+     * @param stack the array holding the frame
+     * @param b the index in stack of the first slot of the frame
+     * @postcondition The instance variables frame and base are set to 
+     *                stack and b.
+     */
+    public void setFrame(int[] stack, int b)
+    {
+        frame = stack;
+        base = b;
+    }
+    
+    /**
+     * Gets the value of a global variable, without first looking for a 
+     * variable of that name in this environment.
+     * @param variable the symbol id of the variable's name
+     * @return the integer associated with the given id in globalValues 
+     *         in the global environment
+     * @throws RuntimeException if the variable is not defined
+     */
+    public int getGlobal(int variable)
+    {
+        Environment global = this;
+        
+        if (parent != null)
+        {
+            global = parent;
+        }
+        
+        return global.globalValue(variable);
+    }
+    
+    /**
+     * Sets a global variable to a value, without first looking for a 
+     * variable of that name in this environment.
+     * @param variable the symbol id of the variable's name
+     * @param value an integer representing the variable's new value
+     * @postcondition The given id is associated with the given integer 
+     *                in globalValues in the global environment.
+     */
+    public void setGlobal(int variable, int value)
+    {
+        Environment global = this;
+        
+        if (parent != null)
+        {
+            global = parent;
+        }
+        
+        global.defineGlobal(variable, value);
+    }
+    
+    /**
+     * Gets the value in the slot of a variable of this environment, 
+     * which is the global environment.
+     * @param variable the symbol id of the variable's name
+     * @return the integer at the given id in globalValues
+     * @throws RuntimeException if the variable is not defined
+     */
+    private int globalValue(int variable)
+    {
+        if (variable >= globalDefined.length || !globalDefined[variable])
+        {
+            throw new RuntimeException("Variable " + 
+                SymbolTable.getGlobal().getName(variable) + 
+                " is not defined");
+        }
+        
+        return globalValues[variable];
+    }
+    
+    /**
+     * Defines a variable of this environment, which is the global 
+     * environment, or sets it if it is already defined.
+     * @param variable the symbol id of the variable's name
+     * @param value an integer representing the variable's value
+     * @postcondition The given integer is at the given id in 
+     *                globalValues, which are grown to hold it if need 
+     *                be, and the variable is defined.
+     */
+    private void defineGlobal(int variable, int value)
+    {
+        if (variable >= globalValues.length)
         {
-            if (variableMap.containsKey(variable))
-            {
-                int value = variableMap.get(variable);
-                
-                return value;
-            }
-            else
-            {
-                Map<String, Integer> pVariableMap = parent.variableMap;
-                
-                int value = pVariableMap.get(variable);
-                
-                return value;
-            }
+            int n = Math.max(variable + 1, globalValues.length * 2);
+            
+            globalValues = Arrays.copyOf(globalValues, n);
+            globalDefined = Arrays.copyOf(globalDefined, n);
         }
+        
+        globalValues[variable] = value;
+        globalDefined[variable] = true;
     }
     
     /**
      * Associates a procedure name with a procedure declaration.
-     * @param name a string representing the procedure name
+     * @param name the symbol id of the procedure name
      * @param pd a ProcedureDeclaration object representing the 
      *           procedure declaration
-     * @postcondition The given string is associated with the given 
+     * @postcondition The given id is associated with the given 
      *                ProcedureDeclaration object in procedureMap in 
      *                the global environment.
+     *              - The procedure version of the global environment 
+     *                is one greater.
      */
-    public void setProcedure(String name, ProcedureDeclaration pd)
+    public void setProcedure(int name, ProcedureDeclaration pd)
     {
-        if (parent == null)
+        Environment global = this;
+        
+        if (parent != null)
         {
-            procedureMap.put(name, pd);
+            global = parent;
         }
-        else
+        
+        if (name >= global.procedureMap.length)
         {
-            Map<String, ProcedureDeclaration> pPM = parent.procedureMap;
+            ProcedureDeclaration[] map = 
+                    new ProcedureDeclaration[Math.max(name + 1, 
+                    global.procedureMap.length * 2)];
+            
+            System.arraycopy(global.procedureMap, 0, map, 0, 
+                    global.procedureMap.length);
             
-            pPM.put(name, pd);
+            global.procedureMap = map;
         }
+        
+        global.procedureMap[name] = pd;
+        global.procedureVersion++;
     }
     
     /**
-     * Gets the procedure declaration associated with a procedure name.
+     * Associates a procedure name with a procedure declaration.
      * @param name a string representing the procedure name
+     * @param pd a ProcedureDeclaration object representing the 
+     *           procedure declaration
+     * @postcondition The id of the given string is associated with the 
+     *                given ProcedureDeclaration object in the global 
+     *                environment.
+     */
+    public void setProcedure(String name, ProcedureDeclaration pd)
+    {
+        setProcedure(SymbolTable.getGlobal().intern(name), pd);
+    }
+    
+    /**
+     * Gets the number of times a procedure has been declared in the 
+     * global environment, so that a call bound to a procedure can tell 
+     * whether the binding may be out of date.
+     * @return the instance variable procedureVersion of the global 
+     *         environment
+     */
+    public int getProcedureVersion()
+    {
+        if (parent != null)
+        {
+            return parent.procedureVersion;
+        }
+        
+        return procedureVersion;
+    }
+    
+    /**
+     * Gets the procedure declaration associated with a procedure name.
+     * @param name the symbol id of the procedure name
      * @return the ProcedureDeclaration object associated with the 
-     *         given string in procedureMap in the global environment.
+     *         given id in procedureMap in the global environment, or 
+     *         null if there is none
      */
-    public ProcedureDeclaration getProcedure(String name)
+    public ProcedureDeclaration getProcedure(int name)
     {
-        if (parent == null)
+        Environment global = this;
+        
+        if (parent != null)
         {
-            ProcedureDeclaration pd = procedureMap.get(name);
-            
-            return pd;
+            global = parent;
         }
-        else
+        
+        if (name >= global.procedureMap.length)
         {
-            Map<String, ProcedureDeclaration> pPM = parent.procedureMap;
-            
-            ProcedureDeclaration pd = pPM.get(name);
-            
-            return pd;
+            return null;
         }
+        
+        return global.procedureMap[name];
+    }
+    
+    /**
+     * Gets the procedure declaration associated with a procedure name.
+     * @param name a string representing the procedure name
+     * @return the ProcedureDeclaration object associated with the 
+     *         given string in the global environment, or null
+     */
+    public ProcedureDeclaration getProcedure(String name)
+    {
+        return getProcedure(SymbolTable.getGlobal().intern(name));
     }
 }
@@ -0,0 +1,144 @@
+package environment;
+
+/**
+ * IntMap is a hash map from non-negative int keys to int values that
+ * stores both in flat arrays, so neither lookups nor updates box.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: IntMap map = new IntMap();
+ *        map.put(<key>, <value>);
+ *        if (map.containsKey(<key>))
+ *            int value = map.get(<key>);
+ */
+public class IntMap
+{
+    /**
+     * Instance variables
+     */
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int shift;
+    
+    /**
+     * Constructs an empty IntMap object.
+     * @postcondition The instance fields keys and values are empty
+     *                tables of 8 slots.
+     *              - The instance field size is set to 0.
+     *              - The instance field shift is set to 29, so that a
+     *                hash keeps the top 3 bits of the product.
+     */
+    public IntMap()
+    {
+        keys = new int[8];
+        values = new int[8];
+        size = 0;
+        shift = 29;
+    }
+    
+    /**
+     * Finds the slot of the given key. The first slot tried is the top
+     * log2(capacity) bits of the key times the golden ratio, which
+     * spreads the keys over the whole table however large it grows.
+     * @param key the given key
+     * @return the slot holding key, or the free slot at which key
+     *         would be inserted
+     */
+    private int slot(int key)
+    {
+        int mask = keys.length - 1;
+        int index = (key * 0x9E3779B9) >>> shift;
+        
+        while (keys[index] != 0 && keys[index] != key + 1)
+        {
+            index = (index + 1) & mask;
+        }
+        
+        return index;
+    }
+    
+    /**
+     * Checks whether the given key is in this map.
+     * @param key the given key
+     * @return true if key is in this map, false otherwise
+     */
+    public boolean containsKey(int key)
+    {
+        return keys[slot(key)] != 0;
+    }
+    
+    /**
+     * Gets the value of the given key.
+     * @param key the given key
+     * @return the value associated with key, or 0 if key is not in
+     *         this map
+     */
+    public int get(int key)
+    {
+        return values[slot(key)];
+    }
+    
+    /**
+     * Associates the given key with the given value.
+     * @param key the given key
+     * @param value the given value
+     * @postcondition key is associated with value, and the tables are
+     *                doubled once they are half full.
+     */
+    public void put(int key, int value)
+    {
+        int index = slot(key);
+        
+        if (keys[index] == 0)
+        {
+            keys[index] = key + 1;
+            size++;
+            
+            if (size * 2 > keys.length)
+            {
+                values[index] = value;
+                grow();
+                
+                return;
+            }
+        }
+        
+        values[index] = value;
+    }
+    
+    /**
+     * Doubles the size of the tables.
+     * @postcondition Every key is rehashed into tables twice as large.
+     *              - The instance field shift is one less, so that a
+     *                hash keeps one more bit.
+     */
+    private void grow()
+    {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        shift--;
+        
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldKeys[i] != 0)
+            {
+                int index = slot(oldKeys[i] - 1);
+                
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+    
+    /**
+     * Gets the number of keys in this map.
+     * @return the instance field size
+     */
+    public int size()
+    {
+        return size;
+    }
+}
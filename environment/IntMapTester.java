@@ -0,0 +1,86 @@
+package environment;
+
+/**
+ * IntMapTester is a tester for the IntMap class. It fills maps with 
+ * more keys than a 16 bit hash can spread, checks that every key maps 
+ * to its value, and checks that the time per key stays about the same 
+ * as the maps grow, which it would not if the keys clustered.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: Run the main method in this class
+ */
+public class IntMapTester
+{
+    /**
+     * Driver method for this class.
+     * @param args command line arguments
+     */
+    public static void main(String[] args)
+    {
+        boolean error = false;
+        
+        for (int stride = 1; stride <= 7; stride += 6)
+        {
+            fill(1 << 17, stride);
+            
+            long small = fill(1 << 17, stride);
+            long large = fill(1 << 20, stride);
+            
+            double ratio = (double) large / small / 8;
+            
+            System.out.println("stride " + stride + ": " + 
+                (small / 1000000) + " ms for 131072 keys, " + 
+                (large / 1000000) + " ms for 1048576 keys, " + 
+                "time per key grew " + ratio + " times");
+            
+            if (ratio > 4)
+            {
+                error = true;
+                
+                System.out.println("Time per key grows with the size");
+            }
+        }
+        
+        if (error)
+        {
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Puts the given number of keys into a new map, each mapped to its 
+     * own negation, and looks every one of them up again.
+     * @param count the number of keys
+     * @param stride the distance between consecutive keys
+     * @return the time taken, in nanoseconds
+     * @throws RuntimeException if a key is missing or has the wrong 
+     *                          value
+     */
+    private static long fill(int count, int stride)
+    {
+        long start = System.nanoTime();
+        
+        IntMap map = new IntMap();
+        
+        for (int i = 0; i < count; i++)
+        {
+            map.put(i * stride, -i);
+        }
+        
+        for (int i = 0; i < count; i++)
+        {
+            if (!map.containsKey(i * stride) || map.get(i * stride) != -i)
+            {
+                throw new RuntimeException("Key " + (i * stride) + 
+                    " lost");
+            }
+        }
+        
+        if (map.size() != count || map.containsKey(count * stride + 1))
+        {
+            throw new RuntimeException("Wrong keys in a map of " + count);
+        }
+        
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,160 @@
+package parser;
+import ast.Program;
+import ast.ProgramCodec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * AstCache keeps parsed programs in a directory on disk, so that a 
+ * program whose source has not changed since it was last parsed can be 
+ * loaded instead of being scanned and parsed again. 
+ * Each program is stored by ProgramCodec in a file named by the SHA-256 
+ * hash of its source, and the hash is also stored inside the file. A 
+ * cached file is memory-mapped and decoded in place, without reading it 
+ * into a separate buffer first. A file that is missing, stale, or 
+ * corrupt is treated as a miss, so the cache can only ever cost a parse.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: AstCache cache = new AstCache(Paths.get(<directory>));
+ *        parser.setCache(cache);
+ */
+public class AstCache
+{
+    /**
+     * The extension of the files in the cache
+     */
+    private static final String EXTENSION = ".ast";
+    
+    /**
+     * Instance variables
+     */
+    private Path dir;
+    
+    /**
+     * Constructs an AstCache object that keeps its files in the given 
+     * directory. The directory is created when the first program is 
+     * stored.
+     * @param d the given directory
+     * @postcondition The instance field dir is set to d.
+     */
+    public AstCache(Path d)
+    {
+        dir = d;
+    }
+    
+    /**
+     * Computes the key of the given source.
+     * @param input the given source, read from its position to its 
+     *              limit
+     * @return the SHA-256 hash of input
+     * @postcondition The position of input is unchanged.
+     */
+    public byte[] keyOf(ByteBuffer input)
+    {
+        try
+        {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            
+            md.update(input.duplicate());
+            
+            return md.digest();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * Loads the program stored under the given key.
+     * @param key the given key
+     * @return the stored program, or null if there is no usable program 
+     *         stored under key
+     */
+    public Program load(byte[] key)
+    {
+        Path file = fileOf(key);
+        
+        if (!Files.isRegularFile(file))
+        {
+            return null;
+        }
+        
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            MappedByteBuffer buf = 
+                fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+            
+            return ProgramCodec.decode(buf, key);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            return null;
+        }
+    }
+    
+    /**
+     * Stores the given program under the given key. The program is 
+     * written to a temporary file which is then renamed, so that a 
+     * reader never sees a file that is only partly written.
+     * @param key the given key
+     * @param p the given program
+     * @return true if p was stored, otherwise false
+     * @postcondition Any program stored under key before is replaced.
+     */
+    public boolean store(byte[] key, Program p)
+    {
+        try
+        {
+            byte[] bytes = ProgramCodec.encode(p, key);
+            
+            Files.createDirectories(dir);
+            
+            Path temp = Files.createTempFile(dir, null, EXTENSION);
+            
+            try
+            {
+                Files.write(temp, bytes);
+                Files.move(temp, fileOf(key), 
+                    StandardCopyOption.REPLACE_EXISTING, 
+                    StandardCopyOption.ATOMIC_MOVE);
+            }
+            finally
+            {
+                Files.deleteIfExists(temp);
+            }
+            
+            return true;
+        }
+        catch (IOException | IllegalArgumentException e)
+        {
+            return false;
+        }
+    }
+    
+    /**
+     * Finds the file of the given key.
+     * @param key the given key
+     * @return the file in dir named by the hexadecimal digits of key
+     */
+    private Path fileOf(byte[] key)
+    {
+        StringBuilder name = new StringBuilder();
+        
+        for (byte b : key)
+        {
+            name.append(Character.forDigit(b >> 4 & 0xF, 16));
+            name.append(Character.forDigit(b & 0xF, 16));
+        }
+        
+        return dir.resolve(name.append(EXTENSION).toString());
+    }
+}
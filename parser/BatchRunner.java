@@ -0,0 +1,219 @@
+package parser;
+import ast.Program;
+import environment.Environment;
+import scanner.Scanner;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * BatchRunner runs many small programs held in one source, each ended 
+ * by a '.', so that they share the start-up cost of one JVM. One 
+ * Scanner and one Parser work through the whole source, parsing the 
+ * programs back to back into the same buffers, and each program that 
+ * parses without error is handed to a pool to be interpreted or 
+ * compiled while the next one is parsed.
+ * Programs are numbered from 1 in the order they appear. Interpreted 
+ * programs run at the same time, so the lines they write may be 
+ * interleaved unless the pool has a single thread.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: BatchRunner runner = new BatchRunner();
+ *        List<String> errors = runner.compile(new Scanner(<input
+ *            stream>), <prefix>);
+ */
+public class BatchRunner
+{
+    /**
+     * Instance variable
+     */
+    private ExecutorService pool;
+    
+    /**
+     * Constructs a BatchRunner object that runs on the common pool.
+     * @postcondition The instance field pool is set to the common pool.
+     */
+    public BatchRunner()
+    {
+        this(ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Constructs a BatchRunner object that runs on the given pool.
+     * @param p the given pool
+     * @postcondition The instance field pool is set to p.
+     */
+    public BatchRunner(ExecutorService p)
+    {
+        pool = p;
+    }
+    
+    /**
+     * Interprets every program of the given source, each in an 
+     * environment of its own.
+     * @param scanner the Scanner over the source
+     * @return for each program in order, null if it ran, or else the 
+     *         errors that kept it from parsing or the exception it 
+     *         failed with
+     * @throws RuntimeException if the wait is interrupted
+     */
+    public List<String> exec(Scanner scanner)
+    {
+        return run(scanner, null);
+    }
+    
+    /**
+     * Compiles every program of the given source, program n into the 
+     * file named by the given prefix followed by n and ".asm".
+     * @param scanner the Scanner over the source
+     * @param prefix the given prefix
+     * @return for each program in order, null if it was compiled, or 
+     *         else the errors that kept it from parsing or the 
+     *         exception it failed with
+     * @throws RuntimeException if the wait is interrupted
+     */
+    public List<String> compile(Scanner scanner, String prefix)
+    {
+        return run(scanner, prefix);
+    }
+    
+    /**
+     * Parses every program of the given source and hands each one that 
+     * parses to the pool, then waits for all of them.
+     * @param scanner the Scanner over the source
+     * @param prefix the prefix of the files to compile into, or null to 
+     *               interpret the programs
+     * @return for each program in order, null if it succeeded, or else 
+     *         why it did not
+     * @throws RuntimeException if the wait is interrupted
+     */
+    private List<String> run(Scanner scanner, String prefix)
+    {
+        List<String> results = new ArrayList<String>();
+        List<Future<String>> tasks = new ArrayList<Future<String>>();
+        Diagnostics diagnostics = new Diagnostics();
+        
+        try
+        {
+            Parser parser = new Parser(scanner, diagnostics);
+            
+            do
+            {
+                Program program = null;
+                String errors = null;
+                
+                try
+                {
+                    program = parser.parseProgram();
+                }
+                catch (Exception e)
+                {
+                    errors = e.getMessage() + "\n";
+                }
+                
+                if (diagnostics.size() > 0)
+                {
+                    errors = diagnostics.toString();
+                }
+                
+                diagnostics.clear();
+                results.add(errors);
+                
+                if (errors == null)
+                {
+                    tasks.add(pool.submit( 
+                        new ProgramTask(program, prefix, results.size())));
+                }
+                else
+                {
+                    tasks.add(null);
+                }
+            }
+            while (parser.nextProgram());
+        }
+        catch (Exception e)
+        {
+            // With diagnostics, scan errors are recorded, not thrown.
+            throw new IllegalStateException(e);
+        }
+        
+        try
+        {
+            for (int i = 0; i < tasks.size(); i++)
+            {
+                if (tasks.get(i) != null)
+                {
+                    try
+                    {
+                        results.set(i, tasks.get(i).get());
+                    }
+                    catch (ExecutionException e)
+                    {
+                        results.set(i, e.getCause() + "\n");
+                    }
+                    
+                    tasks.set(i, null);
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            
+            throw new RuntimeException("Batch interrupted", e);
+        }
+        
+        return results;
+    }
+    
+    /**
+     * ProgramTask interprets or compiles one program of a batch.
+     */
+    private static class ProgramTask implements Callable<String>
+    {
+        /**
+         * Instance variables
+         */
+        private Program program;
+        private String prefix;
+        private int number;
+        
+        /**
+         * Constructs a ProgramTask object for the given program.
+         * @param p the given program
+         * @param pre the prefix of the file to compile into, or null to 
+         *            interpret the program
+         * @param n the number of the program in its batch
+         * @postcondition The instance fields are set to the given 
+         *                values.
+         */
+        ProgramTask(Program p, String pre, int n)
+        {
+            program = p;
+            prefix = pre;
+            number = n;
+        }
+        
+        /**
+         * Interprets or compiles the program.
+         * @return null
+         */
+        public String call()
+        {
+            if (prefix == null)
+            {
+                program.exec(new Environment(null));
+            }
+            else
+            {
+                program.compile(prefix + number + ".asm");
+            }
+            
+            return null;
+        }
+    }
+}
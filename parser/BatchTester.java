@@ -0,0 +1,36 @@
+package parser;
+import scanner.Scanner;
+import java.nio.file.Paths;
+import java.util.List;
+
+public class BatchTester
+{
+    public static void main(String[] args) throws Exception
+    {
+        Scanner scanner = new Scanner(Paths.get(args[0]));
+        
+        BatchRunner runner = new BatchRunner();
+        
+        List<String> errors;
+        
+        if (args.length > 1)
+        {
+            errors = runner.compile(scanner, args[1]);
+        }
+        else
+        {
+            errors = runner.exec(scanner);
+        }
+        
+        for (int i = 0; i < errors.size(); i++)
+        {
+            if (errors.get(i) != null)
+            {
+                System.err.print("Program " + (i + 1) + ":\n" + 
+                    errors.get(i));
+            }
+        }
+        
+        System.err.println(errors.size() + " programs");
+    }
+}
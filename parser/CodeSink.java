@@ -0,0 +1,41 @@
+package parser;
+import ast.ProcedureDeclaration;
+import ast.Statement;
+
+/**
+ * CodeSink receives the parts of a program from Parser.compileProgram 
+ * as soon as each is parsed, in the order their code must appear in the 
+ * output: first the start, then each statement of the main block, then 
+ * the exit, then each procedure.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ */
+interface CodeSink
+{
+    /**
+     * Receives the start of the program.
+     * @param globals the symbol ids of the global variables
+     * @throws InterruptedException if the thread is interrupted
+     */
+    void start(int[] globals) throws InterruptedException;
+    
+    /**
+     * Receives a statement of the main block.
+     * @param s the given statement
+     * @throws InterruptedException if the thread is interrupted
+     */
+    void statement(Statement s) throws InterruptedException;
+    
+    /**
+     * Receives the end of the main block.
+     * @throws InterruptedException if the thread is interrupted
+     */
+    void exit() throws InterruptedException;
+    
+    /**
+     * Receives a procedure whose body has been parsed.
+     * @param pd the given procedure
+     * @throws InterruptedException if the thread is interrupted
+     */
+    void procedure(ProcedureDeclaration pd) throws InterruptedException;
+}
@@ -0,0 +1,113 @@
+package parser;
+import java.util.Arrays;
+
+/**
+ * Diagnostics collects the errors a Parser finds in one pass over a 
+ * source. Each error is kept as its message and packed position in 
+ * arrays that are allocated up front and only grow when they fill up, 
+ * rather than as an exception, so recording an error does not capture 
+ * a stack trace. A Parser with diagnostics also has its Scanner throw 
+ * scan errors without stack traces.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: Diagnostics diagnostics = new Diagnostics();
+ *        Parser parser = new Parser(<scanner>, diagnostics);
+ *        Program program = parser.parseProgram();
+ *        if (diagnostics.size() > 0) ...
+ */
+public class Diagnostics
+{
+    /**
+     * Instance variables
+     */
+    private String[] messages;
+    private long[] positions;
+    private int count;
+    
+    /**
+     * Constructs an empty Diagnostics object.
+     * @postcondition Room for 16 errors is allocated.
+     *              - The instance field count is set to 0.
+     */
+    public Diagnostics()
+    {
+        messages = new String[16];
+        positions = new long[16];
+        count = 0;
+    }
+    
+    /**
+     * Records an error.
+     * @param message the message of the error, including its position
+     * @param pos the packed position of the error
+     * @postcondition The error is the last of the recorded errors.
+     */
+    void add(String message, long pos)
+    {
+        if (count == messages.length)
+        {
+            messages = Arrays.copyOf(messages, count * 2);
+            positions = Arrays.copyOf(positions, count * 2);
+        }
+        
+        messages[count] = message;
+        positions[count] = pos;
+        count++;
+    }
+    
+    /**
+     * Gets the number of recorded errors.
+     * @return the instance field count
+     */
+    public int size()
+    {
+        return count;
+    }
+    
+    /**
+     * Gets the message of a recorded error.
+     * @param i the index of the error, in the order they were found
+     * @return the message of error i
+     */
+    public String getMessage(int i)
+    {
+        return messages[i];
+    }
+    
+    /**
+     * Gets the position of a recorded error.
+     * @param i the index of the error, in the order they were found
+     * @return the packed position of error i
+     */
+    public long getPosition(int i)
+    {
+        return positions[i];
+    }
+    
+    /**
+     * Forgets every recorded error, so that this object can be reused 
+     * for another source.
+     * @postcondition The instance field count is set to 0.
+     */
+    public void clear()
+    {
+        Arrays.fill(messages, 0, count, null);
+        count = 0;
+    }
+    
+    /**
+     * Lists the messages of the recorded errors.
+     * @return the messages, one per line
+     */
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        
+        for (int i = 0; i < count; i++)
+        {
+            sb.append(messages[i]).append('\n');
+        }
+        
+        return sb.toString();
+    }
+}
@@ -0,0 +1,66 @@
+package parser;
+import ast.Emitter;
+import ast.ProcedureDeclaration;
+import ast.Program;
+import ast.Statement;
+
+/**
+ * EmitterSink compiles each part of a program it receives with an 
+ * Emitter, producing the same code as Program.compile.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: parser.compileProgram(new EmitterSink(<emitter>));
+ */
+class EmitterSink implements CodeSink
+{
+    /**
+     * Instance variables
+     */
+    private Emitter emitter;
+    
+    /**
+     * Constructs an EmitterSink object that compiles with the given 
+     * emitter.
+     * @param e the given emitter
+     * @postcondition The instance field emitter is set to e.
+     */
+    EmitterSink(Emitter e)
+    {
+        emitter = e;
+    }
+    
+    /**
+     * Emits the start of the program.
+     * @param globals the symbol ids of the global variables
+     */
+    public void start(int[] globals)
+    {
+        Program.emitStart(emitter, globals);
+    }
+    
+    /**
+     * Compiles a statement of the main block.
+     * @param s the given statement
+     */
+    public void statement(Statement s)
+    {
+        emitter.compile(s);
+    }
+    
+    /**
+     * Emits the end of the main block.
+     */
+    public void exit()
+    {
+        Program.emitExit(emitter);
+    }
+    
+    /**
+     * Compiles a procedure.
+     * @param pd the given procedure
+     */
+    public void procedure(ProcedureDeclaration pd)
+    {
+        emitter.compile(pd);
+    }
+}
@@ -0,0 +1,341 @@
+package parser;
+import scanner.TokenKind;
+import ast.FlatTree;
+import java.util.Arrays;
+
+/**
+ * FlatTreeBuilder builds a FlatTree for the Parser. Nodes are added to 
+ * the tree as soon as they are built, and the stack holds the indices 
+ * of the nodes, so the items of a list, such as the statements of a 
+ * block, are already in order on the stack when the list is made, and 
+ * building allocates nothing per node.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: Scanner scanner = new Scanner(<source>);
+ *        FlatTreeBuilder builder = 
+ *            new FlatTreeBuilder(scanner.getSource());
+ *        new Parser(scanner).parseProgram(builder);
+ *        FlatTree tree = builder.getTree();
+ */
+public class FlatTreeBuilder implements TreeBuilder
+{
+    /**
+     * Instance variables
+     */
+    private FlatTree tree;
+    private int[] stack;
+    private int top;
+    
+    /**
+     * Constructs a FlatTreeBuilder object for a new, empty tree of the 
+     * given source.
+     * @param src the buffer that the tokens of the program lie in
+     * @postcondition The instance field tree is a new, empty tree for 
+     *                src.
+     *              - The stack is empty.
+     */
+    public FlatTreeBuilder(byte[] src)
+    {
+        tree = new FlatTree(src);
+        stack = new int[64];
+        top = 0;
+    }
+    
+    /**
+     * Gets the tree being built.
+     * @return the instance field tree
+     */
+    public FlatTree getTree()
+    {
+        return tree;
+    }
+    
+    /**
+     * Pushes the given index.
+     * @param n the given index
+     * @postcondition n is on top of the stack.
+     */
+    private void push(int n)
+    {
+        if (top == stack.length)
+        {
+            stack = Arrays.copyOf(stack, top * 2);
+        }
+        
+        stack[top++] = n;
+    }
+    
+    /**
+     * Adds a node to the tree and pushes its index.
+     * @param kind the kind of the node
+     * @param a the first operand
+     * @param b the second operand, or 0 if the kind has only one
+     * @param pos the packed position of the node
+     * @postcondition The index of the new node is on top of the stack.
+     */
+    private void add(int kind, int a, int b, long pos)
+    {
+        push(tree.add(kind, a, b, pos));
+    }
+    
+    /**
+     * Makes a list of the items on top of the stack and pops them.
+     * @param count the number of items
+     * @return the index of the new list in the tree
+     */
+    private int popList(int count)
+    {
+        top -= count;
+        
+        return tree.addList(stack, top, count);
+    }
+    
+    /**
+     * Gets the number of nodes on the stack.
+     * @return the instance field top
+     */
+    public int size()
+    {
+        return top;
+    }
+    
+    /**
+     * Discards the nodes on top of the stack. Their rows stay in the 
+     * tree, unused.
+     * @param count the number of nodes to discard
+     * @postcondition The stack is count nodes lower.
+     */
+    public void pop(int count)
+    {
+        top -= count;
+    }
+    
+    /**
+     * Adds a NUMBER node.
+     * @param value the value of the integer
+     * @param pos the packed position of the integer
+     * @postcondition The node is pushed.
+     */
+    public void number(int value, long pos)
+    {
+        add(FlatTree.NUMBER, value, 0, pos);
+    }
+    
+    /**
+     * Adds a VARIABLE node.
+     * @param name the symbol id of the name of the variable
+     * @param pos the packed position of the variable
+     * @postcondition The node is pushed.
+     */
+    public void variable(int name, long pos)
+    {
+        add(FlatTree.VARIABLE, name, 0, pos);
+    }
+    
+    /**
+     * Adds an ADD, SUBTRACT, MULTIPLY or DIVIDE node.
+     * @param op PLUS, MINUS, TIMES or DIVIDE
+     * @param pos the packed position of the operator
+     * @postcondition The two expressions on top of the stack are 
+     *                replaced by the node.
+     */
+    public void binOp(TokenKind op, long pos)
+    {
+        int kind;
+        
+        switch (op)
+        {
+            case PLUS: 
+                kind = FlatTree.ADD;
+                break;
+            case MINUS: 
+                kind = FlatTree.SUBTRACT;
+                break;
+            case TIMES: 
+                kind = FlatTree.MULTIPLY;
+                break;
+            default: 
+                kind = FlatTree.DIVIDE;
+        }
+        
+        top -= 2;
+        add(kind, stack[top], stack[top + 1], pos);
+    }
+    
+    /**
+     * Adds a NUMBER node for 0 and a SUBTRACT node that subtracts the 
+     * expression on top of the stack from it.
+     * @param pos the packed position of the minus sign
+     * @postcondition The expression is replaced by the SUBTRACT node.
+     */
+    public void negate(long pos)
+    {
+        int e = stack[--top];
+        int zero = tree.add(FlatTree.NUMBER, 0, 0, pos);
+        
+        add(FlatTree.SUBTRACT, zero, e, pos);
+    }
+    
+    /**
+     * Adds a CALL node.
+     * @param name the symbol id of the name of the procedure
+     * @param count the number of arguments
+     * @param pos the packed position of the name of the procedure
+     * @postcondition The arguments on top of the stack are replaced by 
+     *                the node.
+     */
+    public void call(int name, int count, long pos)
+    {
+        add(FlatTree.CALL, name, popList(count), pos);
+    }
+    
+    /**
+     * Adds an EQUALS through GREATER_EQUALS node.
+     * @param relop the relational operator
+     * @param pos the packed position of the operator
+     * @postcondition The two expressions on top of the stack are 
+     *                replaced by the node.
+     */
+    public void condition(TokenKind relop, long pos)
+    {
+        int kind;
+        
+        switch (relop)
+        {
+            case EQUALS: 
+                kind = FlatTree.EQUALS;
+                break;
+            case NOT_EQUALS: 
+                kind = FlatTree.NOT_EQUALS;
+                break;
+            case LESS: 
+                kind = FlatTree.LESS;
+                break;
+            case GREATER: 
+                kind = FlatTree.GREATER;
+                break;
+            case LESS_EQUALS: 
+                kind = FlatTree.LESS_EQUALS;
+                break;
+            default: 
+                kind = FlatTree.GREATER_EQUALS;
+        }
+        
+        top -= 2;
+        add(kind, stack[top], stack[top + 1], pos);
+    }
+    
+    /**
+     * Adds a WRITELN node.
+     * @param pos the packed position of the statement
+     * @postcondition The expression on top of the stack is replaced by 
+     *                the node.
+     */
+    public void writeln(long pos)
+    {
+        add(FlatTree.WRITELN, stack[--top], 0, pos);
+    }
+    
+    /**
+     * Adds a WRITELNTIMES node.
+     * @param pos the packed position of the statement
+     * @postcondition The expression and the count on top of the stack 
+     *                are replaced by the node.
+     */
+    public void writelnTimes(long pos)
+    {
+        top -= 2;
+        add(FlatTree.WRITELNTIMES, stack[top], stack[top + 1], pos);
+    }
+    
+    /**
+     * Adds an ASSIGNMENT node.
+     * @param name the symbol id of the name of the variable
+     * @param pos the packed position of the statement
+     * @postcondition The expression on top of the stack is replaced by 
+     *                the node.
+     */
+    public void assignment(int name, long pos)
+    {
+        add(FlatTree.ASSIGNMENT, name, stack[--top], pos);
+    }
+    
+    /**
+     * Adds a BLOCK node.
+     * @param count the number of statements
+     * @param pos the packed position of the block
+     * @postcondition The statements on top of the stack are replaced by 
+     *                the node.
+     */
+    public void block(int count, long pos)
+    {
+        add(FlatTree.BLOCK, popList(count), 0, pos);
+    }
+    
+    /**
+     * Adds an IF node.
+     * @param pos the packed position of the statement
+     * @postcondition The condition and the statement on top of the 
+     *                stack are replaced by the node.
+     */
+    public void ifStatement(long pos)
+    {
+        top -= 2;
+        add(FlatTree.IF, stack[top], stack[top + 1], pos);
+    }
+    
+    /**
+     * Adds a WHILE node.
+     * @param pos the packed position of the loop
+     * @postcondition The condition and the statement on top of the 
+     *                stack are replaced by the node.
+     */
+    public void whileLoop(long pos)
+    {
+        top -= 2;
+        add(FlatTree.WHILE, stack[top], stack[top + 1], pos);
+    }
+    
+    /**
+     * Adds a procedure declaration to the tree and pushes its index 
+     * among the procedures.
+     * @param name the symbol id of the name of the procedure
+     * @param parameters the symbol ids of the parameters
+     * @param locals the symbol ids of the local variables
+     * @param pos the packed position of the declaration, which the 
+     *            tree does not keep
+     * @postcondition The body on top of the stack is replaced by the 
+     *                index of the procedure.
+     */
+    public void procedure(int name, int[] parameters, int[] locals, 
+            long pos)
+    {
+        int body = stack[--top];
+        
+        push(tree.getProcedureCount());
+        tree.addProcedure(name, tree.addList(parameters, 0, 
+            parameters.length), tree.addList(locals, 0, locals.length), 
+            body);
+    }
+    
+    /**
+     * Sets the program of the tree and trims the tree, since nothing 
+     * more will be added to it. The tree keeps no node for the program 
+     * itself, so the stack is left empty.
+     * @param globals the symbol ids of the global variables
+     * @param count the number of procedure declarations
+     * @param pos the packed position of the program, which the tree 
+     *            does not keep
+     * @postcondition The declarations and the statement on top of the 
+     *                stack are popped.
+     *              - The tree describes a whole program.
+     */
+    public void program(int[] globals, int count, long pos)
+    {
+        int stmt = stack[--top];
+        
+        top -= count;
+        tree.setProgram(tree.addList(globals, 0, globals.length), stmt);
+        tree.trim();
+    }
+}
@@ -0,0 +1,336 @@
+package parser;
+import scanner.Position;
+import scanner.Scanner;
+import scanner.Token;
+import scanner.TokenKind;
+import ast.ProcedureDeclaration;
+import ast.Program;
+import ast.Statement;
+import java.util.List;
+import java.util.ArrayList;
+
+/**
+ * IncrementalParser keeps a parsed Program up to date as its source is 
+ * edited, as in an editor that re-checks the program on every 
+ * keystroke. Besides the Program, it keeps a checkpoint at the first 
+ * token of every procedure declaration and of the main body: the 
+ * offsets of that token in the source and its line and column.
+ * When the source changes, the edit is found by comparing the old and 
+ * new text from both ends. If the edit lies inside one procedure or 
+ * inside the main body, only that part is scanned and parsed again, 
+ * starting from its checkpoint, and the result is spliced into the 
+ * existing Program. The re-parse must stop exactly at the checkpoint 
+ * of the next part, which shows that the rest of the source still 
+ * scans and parses as before; the parts after the edit are then only 
+ * moved by the number of lines the edit added or removed. Anything 
+ * else, such as an edit to the global VAR declarations or one that 
+ * crosses a procedure boundary, falls back to parsing the whole 
+ * source again.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: IncrementalParser parser = new IncrementalParser(<buffer>);
+ *        Program program = parser.getProgram();
+ *        program = parser.update(<edited buffer>);
+ */
+public class IncrementalParser
+{
+    /**
+     * Instance variables
+     */
+    private byte[] source;
+    private Program program;
+    private int[] starts;
+    private int[] ends;
+    private long[] positions;
+    
+    /**
+     * Constructs an IncrementalParser object and parses the given 
+     * source in full.
+     * @param src the given source, one byte per character
+     * @throws Exception if the source cannot be scanned or parsed
+     * @postcondition The instance field program holds the parsed 
+     *                source, with a checkpoint at every procedure 
+     *                and at the main body.
+     */
+    public IncrementalParser(byte[] src) throws Exception
+    {
+        source = src;
+        parseAll();
+    }
+    
+    /**
+     * Gets the program parsed from the current source.
+     * @return the instance field program
+     */
+    public Program getProgram()
+    {
+        return program;
+    }
+    
+    /**
+     * Gets the current source.
+     * @return the instance field source
+     */
+    public byte[] getSource()
+    {
+        return source;
+    }
+    
+    /**
+     * Brings the program up to date with the given edited source, 
+     * re-parsing as little of it as possible. If re-parsing a part 
+     * fails in any way, the checkpoints may be left half updated, so 
+     * the whole source is parsed again instead.
+     * @param src the edited source, one byte per character
+     * @return the updated program, which is the same Program object 
+     *         unless the whole source had to be parsed again
+     * @throws Exception if the edited source cannot be scanned or 
+     *                   parsed; the next update then parses the whole 
+     *                   source
+     */
+    public Program update(byte[] src) throws Exception
+    {
+        byte[] old = source;
+        int min = Math.min(old.length, src.length);
+        int prefix = 0;
+        
+        while (prefix < min && old[prefix] == src[prefix])
+        {
+            prefix++;
+        }
+        
+        int suffix = 0;
+        
+        while (suffix < min - prefix && 
+                old[old.length - 1 - suffix] == src[src.length - 1 - suffix])
+        {
+            suffix++;
+        }
+        
+        source = src;
+        
+        if (program != null && prefix == old.length && 
+                prefix == src.length)
+        {
+            return program;
+        }
+        
+        int segment = -1;
+        
+        if (program != null)
+        {
+            segment = findSegment(prefix, old.length - suffix);
+        }
+        
+        boolean done = false;
+        
+        if (segment >= 0)
+        {
+            try
+            {
+                done = reparse(segment, old, prefix, old.length - suffix, 
+                    src.length - suffix);
+            }
+            catch (Throwable t)
+            {
+                // The whole source is parsed again below.
+            }
+        }
+        
+        try
+        {
+            if (!done)
+            {
+                parseAll();
+            }
+        }
+        catch (Throwable t)
+        {
+            program = null;
+            
+            throw t;
+        }
+        
+        return program;
+    }
+    
+    /**
+     * Parses the whole source, recording a checkpoint at every 
+     * procedure and at the main body.
+     * @throws Exception if the source cannot be scanned or parsed
+     * @postcondition The instance fields program, starts, ends and 
+     *                positions describe the current source.
+     */
+    private void parseAll() throws Exception
+    {
+        program = null;
+        
+        Parser parser = new Parser(new Scanner(source));
+        long programPos = parser.getCurrentToken().getPosition();
+        
+        int[] vars = parser.parseGlobalVariables();
+        
+        List<ProcedureDeclaration> ps = new ArrayList<ProcedureDeclaration>();
+        List<Token> checkpoints = new ArrayList<Token>();
+        
+        while (parser.getCurrentToken().getKind() == TokenKind.PROCEDURE)
+        {
+            checkpoints.add(parser.getCurrentToken());
+            ps.add(parser.parseProcedure());
+        }
+        
+        checkpoints.add(parser.getCurrentToken());
+        
+        Statement stmt = parser.parseStatement();
+        
+        parser.parseEnd();
+        
+        starts = new int[checkpoints.size()];
+        ends = new int[checkpoints.size()];
+        positions = new long[checkpoints.size()];
+        
+        for (int i = 0; i < starts.length; i++)
+        {
+            Token t = checkpoints.get(i);
+            
+            starts[i] = t.getOffset();
+            ends[i] = t.getOffset() + t.getLength();
+            positions[i] = t.getPosition();
+        }
+        
+        Program p = new Program(vars, ps, stmt);
+        p.setPosition(programPos);
+        
+        program = p;
+    }
+    
+    /**
+     * Finds the part of the old source that wholly contains the given 
+     * edited range. The first token of a part and the character just 
+     * after it do not count as inside it, since an edit there may 
+     * change that token and so the way the part is parsed.
+     * @param from the offset of the first edited character
+     * @param to the offset just past the last edited character in the 
+     *           old source
+     * @return the index of the procedure containing the range, the 
+     *         number of procedures for the main body, or -1 if no 
+     *         single part contains the range
+     */
+    private int findSegment(int from, int to)
+    {
+        int last = starts.length - 1;
+        
+        for (int i = 0; i < last; i++)
+        {
+            if (from > ends[i] && to <= starts[i + 1])
+            {
+                return i;
+            }
+        }
+        
+        if (from > ends[last])
+        {
+            return last;
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Re-parses the given part of the source and splices it into the 
+     * program.
+     * @param segment the index of the part
+     * @param old the old source
+     * @param from the offset of the first edited character
+     * @param oldTo the offset just past the edit in the old source
+     * @param newTo the offset just past the edit in the new source
+     * @return true if the part was re-parsed and spliced in, false if 
+     *         the whole source must be parsed again
+     * @throws Exception if the part cannot be scanned or parsed, in 
+     *                   which case the whole source cannot either
+     */
+    private boolean reparse(int segment, byte[] old, int from, int oldTo, 
+            int newTo) throws Exception
+    {
+        int last = starts.length - 1;
+        int delta = newTo - oldTo;
+        int lineDelta = countNewlines(source, from, newTo) - 
+                countNewlines(old, from, oldTo);
+        
+        if (segment < last && countNewlines(old, oldTo, 
+                starts[segment + 1]) == 0)
+        {
+            return false;
+        }
+        
+        Parser parser = new Parser(new Scanner(source, starts[segment], 
+                source.length, positions[segment]));
+        
+        if (segment == last)
+        {
+            Statement stmt = parser.parseStatement();
+            
+            parser.parseEnd();
+            
+            program.setStatement(stmt);
+            
+            return true;
+        }
+        
+        ProcedureDeclaration pd = parser.parseProcedure();
+        
+        if (parser.getCurrentToken().getOffset() != starts[segment + 1] + 
+                delta)
+        {
+            return false;
+        }
+        
+        program.setProcedure(segment, pd);
+        
+        List<ProcedureDeclaration> ps = program.getProcedures();
+        
+        for (int i = segment + 1; i <= last; i++)
+        {
+            starts[i] += delta;
+            ends[i] += delta;
+            positions[i] = Position.pack(Position.line(positions[i]) + 
+                lineDelta, Position.column(positions[i]));
+            
+            if (lineDelta != 0)
+            {
+                if (i < last)
+                {
+                    ps.get(i).shiftLines(lineDelta);
+                }
+                else
+                {
+                    program.getStatement().shiftLines(lineDelta);
+                }
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Counts the newlines in the given range of the given buffer.
+     * @param buf the given buffer
+     * @param from the offset at which the range begins
+     * @param to the offset just past the end of the range
+     * @return the number of '\n' characters in the range
+     */
+    private static int countNewlines(byte[] buf, int from, int to)
+    {
+        int count = 0;
+        
+        for (int i = from; i < to; i++)
+        {
+            if (buf[i] == '\n')
+            {
+                count++;
+            }
+        }
+        
+        return count;
+    }
+}
@@ -0,0 +1,105 @@
+package parser;
+import ast.ProcedureDeclaration;
+import ast.Statement;
+import scanner.Scanner;
+import scanner.Token;
+
+/**
+ * LazyProcedure is a procedure declaration whose body has only been 
+ * skimmed by the parser. It remembers where the body starts in the 
+ * source and parses it the first time the body is needed, as when the 
+ * procedure is first called or compiled, so procedures that are never 
+ * used are never parsed. An error in the body is therefore only 
+ * reported when the body is first needed.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ */
+class LazyProcedure extends ProcedureDeclaration
+{
+    /**
+     * Instance variables
+     */
+    private byte[] source;
+    private int offset;
+    private long position;
+    private Diagnostics diagnostics;
+    private volatile Statement body;
+    
+    /**
+     * Constructs a LazyProcedure object using the symbol ids of the 
+     * procedure name, parameter names, and local variable names, and 
+     * the first token of the body.
+     * @param id the symbol id of the procedure name
+     * @param pn the symbol ids of the parameter names
+     * @param lvn the symbol ids of the local variable names
+     * @param first the first token of the body
+     * @param d the diagnostics to record errors in the body in, or null 
+     *          to throw the first error instead
+     * @postcondition The instance fields source, offset and position 
+     *                are set to the buffer, offset and position of 
+     *                first.
+     *              - The instance field diagnostics is set to d.
+     *              - The instance field body is null.
+     */
+    LazyProcedure(int id, int[] pn, int[] lvn, Token first, 
+            Diagnostics d)
+    {
+        super(id, pn, null, lvn);
+        source = first.getSource();
+        offset = first.getOffset();
+        position = first.getPosition();
+        diagnostics = d;
+        body = null;
+    }
+    
+    /**
+     * Gets the body of this procedure, parsing it if it has not been 
+     * parsed yet.
+     * @return a statement representing the body of this procedure
+     * @throws IllegalArgumentException if the body is not a valid 
+     *                                  statement and there are no 
+     *                                  diagnostics
+     */
+    public Statement getStatement()
+    {
+        Statement s = body;
+        
+        if (s == null)
+        {
+            s = parseBody();
+        }
+        
+        return s;
+    }
+    
+    /**
+     * Parses the body of this procedure, unless another thread already 
+     * has.
+     * @return a statement representing the body of this procedure
+     * @throws IllegalArgumentException if the body is not a valid 
+     *                                  statement
+     * @postcondition The instance field body holds the parsed body and 
+     *                the instance field source is null.
+     */
+    private synchronized Statement parseBody()
+    {
+        if (body == null)
+        {
+            try
+            {
+                Parser parser = new Parser(new Scanner(source, offset, 
+                    source.length, position), diagnostics);
+                
+                body = parser.parseStatement();
+            }
+            catch (Exception e)
+            {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+            
+            source = null;
+        }
+        
+        return body;
+    }
+}
@@ -0,0 +1,400 @@
+package parser;
+import scanner.TokenKind;
+import ast.Assignment;
+import ast.BinOp;
+import ast.Block;
+import ast.Condition;
+import ast.Expression;
+import ast.ExpressionFactory;
+import ast.If;
+import ast.Node;
+import ast.Number;
+import ast.ProcedureCall;
+import ast.ProcedureDeclaration;
+import ast.Program;
+import ast.Statement;
+import ast.Variable;
+import ast.While;
+import ast.Writeln;
+import ast.WritelnTimes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * NodeBuilder builds a tree of node objects for the Parser. With a 
+ * factory, numbers, variables and binary operations are built through 
+ * it so that structurally equal expressions are shared, and the factory 
+ * is cleared after each procedure body.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: NodeBuilder nodes = new NodeBuilder();
+ *        nodes.number(1, <pos>);
+ *        Expression e = (Expression) nodes.pop();
+ */
+class NodeBuilder implements TreeBuilder
+{
+    /**
+     * Instance variables
+     */
+    private Node[] stack;
+    private int top;
+    private ExpressionFactory factory;
+    
+    /**
+     * Constructs an empty NodeBuilder object.
+     * @postcondition The stack is empty.
+     *              - The instance field factory is null.
+     */
+    NodeBuilder()
+    {
+        stack = new Node[16];
+        top = 0;
+        factory = null;
+    }
+    
+    /**
+     * Sets the factory through which expressions are built.
+     * @param f the given factory, or null to build every node afresh
+     * @postcondition The instance field factory is set to f.
+     */
+    void setFactory(ExpressionFactory f)
+    {
+        factory = f;
+    }
+    
+    /**
+     * Pushes the given node.
+     * @param n the given node
+     * @postcondition n is on top of the stack.
+     */
+    void push(Node n)
+    {
+        if (top == stack.length)
+        {
+            stack = Arrays.copyOf(stack, top * 2);
+        }
+        
+        stack[top++] = n;
+    }
+    
+    /**
+     * Pops the node on top of the stack.
+     * @return the node that was on top of the stack
+     */
+    Node pop()
+    {
+        Node n = stack[--top];
+        
+        stack[top] = null;
+        
+        return n;
+    }
+    
+    /**
+     * Gets the number of nodes on the stack.
+     * @return the instance field top
+     */
+    public int size()
+    {
+        return top;
+    }
+    
+    /**
+     * Discards the nodes on top of the stack.
+     * @param count the number of nodes to discard
+     * @postcondition The stack is count nodes lower.
+     */
+    public void pop(int count)
+    {
+        Arrays.fill(stack, top - count, top, null);
+        top -= count;
+    }
+    
+    /**
+     * Builds a Number object.
+     * @param value the value of the integer
+     * @param pos the packed position of the integer
+     * @postcondition The Number is pushed.
+     */
+    public void number(int value, long pos)
+    {
+        push(makeNumber(value, pos));
+    }
+    
+    /**
+     * Makes a Number object, through the factory if there is one.
+     * @param value the value of the integer
+     * @param pos the packed position of the integer
+     * @return the Number object
+     */
+    private Number makeNumber(int value, long pos)
+    {
+        if (factory != null)
+        {
+            return factory.number(value, pos);
+        }
+        
+        Number n = new Number(value);
+        n.setPosition(pos);
+        
+        return n;
+    }
+    
+    /**
+     * Builds a Variable object.
+     * @param name the symbol id of the name of the variable
+     * @param pos the packed position of the variable
+     * @postcondition The Variable is pushed.
+     */
+    public void variable(int name, long pos)
+    {
+        if (factory != null)
+        {
+            push(factory.variable(name, pos));
+            
+            return;
+        }
+        
+        Variable v = new Variable(name);
+        v.setPosition(pos);
+        push(v);
+    }
+    
+    /**
+     * Builds a BinOp object out of the two expressions on top of the 
+     * stack.
+     * @param op PLUS, MINUS, TIMES or DIVIDE
+     * @param pos the packed position of the operator
+     * @postcondition The two expressions are replaced by the BinOp.
+     */
+    public void binOp(TokenKind op, long pos)
+    {
+        Expression e2 = (Expression) pop();
+        Expression e1 = (Expression) pop();
+        
+        push(makeBinOp(op.getLexeme(), e1, e2, pos));
+    }
+    
+    /**
+     * Makes a BinOp object, through the factory if there is one.
+     * @param op the lexeme of the operator
+     * @param e1 the left operand
+     * @param e2 the right operand
+     * @param pos the packed position of the operator
+     * @return the BinOp object
+     */
+    private BinOp makeBinOp(String op, Expression e1, Expression e2, 
+            long pos)
+    {
+        if (factory != null)
+        {
+            return factory.binOp(op, e1, e2, pos);
+        }
+        
+        BinOp b = BinOp.create(op, e1, e2);
+        b.setPosition(pos);
+        
+        return b;
+    }
+    
+    /**
+     * Builds the subtraction of the expression on top of the stack 
+     * from a Number object for 0.
+     * @param pos the packed position of the minus sign
+     * @postcondition The expression is replaced by the BinOp.
+     */
+    public void negate(long pos)
+    {
+        Expression e = (Expression) pop();
+        
+        push(makeBinOp("-", makeNumber(0, pos), e, pos));
+    }
+    
+    /**
+     * Builds a ProcedureCall object out of the arguments on top of the 
+     * stack.
+     * @param name the symbol id of the name of the procedure
+     * @param count the number of arguments
+     * @param pos the packed position of the name of the procedure
+     * @postcondition The arguments are replaced by the ProcedureCall.
+     */
+    public void call(int name, int count, long pos)
+    {
+        List<Expression> args = new ArrayList<Expression>(count);
+        
+        for (int i = top - count; i < top; i++)
+        {
+            args.add((Expression) stack[i]);
+        }
+        
+        pop(count);
+        
+        ProcedureCall pc = new ProcedureCall(name, args);
+        pc.setPosition(pos);
+        push(pc);
+    }
+    
+    /**
+     * Builds a Condition object out of the two expressions on top of 
+     * the stack.
+     * @param relop the relational operator
+     * @param pos the packed position of the operator
+     * @postcondition The two expressions are replaced by the Condition.
+     */
+    public void condition(TokenKind relop, long pos)
+    {
+        Expression e2 = (Expression) pop();
+        Expression e1 = (Expression) pop();
+        
+        Condition c = Condition.create(relop.getLexeme(), e1, e2);
+        c.setPosition(pos);
+        push(c);
+    }
+    
+    /**
+     * Builds a Writeln object.
+     * @param pos the packed position of the statement
+     * @postcondition The expression on top of the stack is replaced by 
+     *                the Writeln.
+     */
+    public void writeln(long pos)
+    {
+        Writeln w = new Writeln((Expression) pop());
+        w.setPosition(pos);
+        push(w);
+    }
+    
+    /**
+     * Builds a WritelnTimes object.
+     * @param pos the packed position of the statement
+     * @postcondition The expression and the count on top of the stack 
+     *                are replaced by the WritelnTimes.
+     */
+    public void writelnTimes(long pos)
+    {
+        Expression times = (Expression) pop();
+        Expression e = (Expression) pop();
+        
+        WritelnTimes wt = new WritelnTimes(e, times);
+        wt.setPosition(pos);
+        push(wt);
+    }
+    
+    /**
+     * Builds an Assignment object.
+     * @param name the symbol id of the name of the variable
+     * @param pos the packed position of the statement
+     * @postcondition The expression on top of the stack is replaced by 
+     *                the Assignment.
+     */
+    public void assignment(int name, long pos)
+    {
+        Assignment a = new Assignment(name, (Expression) pop());
+        a.setPosition(pos);
+        push(a);
+    }
+    
+    /**
+     * Builds a Block object out of the statements on top of the stack.
+     * @param count the number of statements
+     * @param pos the packed position of the block
+     * @postcondition The statements are replaced by the Block.
+     */
+    public void block(int count, long pos)
+    {
+        List<Statement> statements = new ArrayList<Statement>(count);
+        
+        for (int i = top - count; i < top; i++)
+        {
+            statements.add((Statement) stack[i]);
+        }
+        
+        pop(count);
+        
+        Block b = new Block(statements);
+        b.setPosition(pos);
+        push(b);
+    }
+    
+    /**
+     * Builds an If object.
+     * @param pos the packed position of the statement
+     * @postcondition The condition and the statement on top of the 
+     *                stack are replaced by the If.
+     */
+    public void ifStatement(long pos)
+    {
+        Statement s = (Statement) pop();
+        
+        If i = new If((Condition) pop(), s);
+        i.setPosition(pos);
+        push(i);
+    }
+    
+    /**
+     * Builds a While object.
+     * @param pos the packed position of the loop
+     * @postcondition The condition and the statement on top of the 
+     *                stack are replaced by the While.
+     */
+    public void whileLoop(long pos)
+    {
+        Statement s = (Statement) pop();
+        
+        While w = new While((Condition) pop(), s);
+        w.setPosition(pos);
+        push(w);
+    }
+    
+    /**
+     * Builds a ProcedureDeclaration object, and clears the factory if 
+     * there is one, since a name in another procedure may refer to 
+     * another variable.
+     * @param name the symbol id of the name of the procedure
+     * @param parameters the symbol ids of the parameters
+     * @param locals the symbol ids of the local variables
+     * @param pos the packed position of the declaration
+     * @postcondition The body on top of the stack is replaced by the 
+     *                ProcedureDeclaration.
+     */
+    public void procedure(int name, int[] parameters, int[] locals, 
+            long pos)
+    {
+        if (factory != null)
+        {
+            factory.clear();
+        }
+        
+        ProcedureDeclaration p = new ProcedureDeclaration(name, 
+            parameters, (Statement) pop(), locals);
+        p.setPosition(pos);
+        push(p);
+    }
+    
+    /**
+     * Builds a Program object.
+     * @param globals the symbol ids of the global variables
+     * @param count the number of procedure declarations
+     * @param pos the packed position of the program
+     * @postcondition The declarations and the statement on top of the 
+     *                stack are replaced by the Program.
+     */
+    public void program(int[] globals, int count, long pos)
+    {
+        Statement stmt = (Statement) pop();
+        List<ProcedureDeclaration> ps = 
+            new ArrayList<ProcedureDeclaration>(count);
+        
+        for (int i = top - count; i < top; i++)
+        {
+            ps.add((ProcedureDeclaration) stack[i]);
+        }
+        
+        pop(count);
+        
+        Program program = new Program(globals, ps, stmt);
+        program.setPosition(pos);
+        push(program);
+    }
+}
@@ -1,31 +1,29 @@
 package parser;
 import scanner.Scanner;
+import scanner.TokenSource;
 import scanner.ScanErrorException;
-import ast.Assignment;
-import ast.BinOp;
-import ast.Block;
+import scanner.Position;
+import scanner.Token;
+import scanner.TokenKind;
 import ast.Condition;
-import ast.Expression;
-import ast.If;
-import ast.Number;
-import ast.ProcedureCall;
+import ast.Emitter;
+import ast.ExpressionFactory;
 import ast.ProcedureDeclaration;
 import ast.Program;
 import ast.Statement;
-import ast.Variable;
-import ast.While;
-import ast.Writeln;
-import ast.WritelnTimes;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
- * Parser is a parser for Compilers and Interpreters.
+ * Parser is a parser for Compilers and Interpreters. 
  * The purpose of the Parser is to read in a program consisting of a 
  * stream of tokens and generate an abstract syntax tree (AST) 
  * for the program. An abstract syntax tree is a tree that shows the 
  * relationships between the statements, expressions, and 
- * subexpressions in the program.
+ * subexpressions in the program. 
+ * The nodes are built through a TreeBuilder, so the same grammar 
+ * builds either a tree of node objects or a FlatTree.
  * @author Daniel Wang
  * @version March 30, 2020
  * Usage: FileInputStream inStream = 
@@ -38,11 +36,47 @@ import java.util.ArrayList;
  */
 public class Parser
 {
+    /**
+     * The kinds of entry on the operator stack of parseExpression
+     */
+    private static final int OPERATOR_ADD = 0;
+    private static final int OPERATOR_SUBTRACT = 1;
+    private static final int OPERATOR_MULTIPLY = 2;
+    private static final int OPERATOR_DIVIDE = 3;
+    private static final int OPERATOR_NEGATE = 4;
+    private static final int OPERATOR_PAREN = 5;
+    private static final int OPERATOR_CALL = 6;
+    
+    /**
+     * The precedence of each kind of operator, and the operator of the 
+     * binary operation it builds
+     */
+    private static final int[] PRECEDENCES = {1, 1, 2, 2, 3, 0, 0};
+    private static final TokenKind[] OPERATOR_TOKENS = {TokenKind.PLUS, 
+        TokenKind.MINUS, TokenKind.TIMES, TokenKind.DIVIDE};
+    private static final int PRECEDENCE_ADD = 1;
+    private static final int PRECEDENCE_MULTIPLY = 2;
+    
+    /**
+     * The exception that unwinds from a recorded syntax error to the 
+     * nearest point at which the parser resynchronizes
+     */
+    private static final Recovery RECOVER = new Recovery();
+    
     /**
      * Instance variables
      */
-    private Scanner scanner;
-    private String currentToken;
+    private TokenSource scanner;
+    private Token currentToken;
+    private int[] operatorKinds;
+    private long[] operatorPositions;
+    private int[] operatorSymbols;
+    private int[] operatorMarks;
+    private int operatorTop;
+    private AstCache cache;
+    private boolean lazy;
+    private Diagnostics diagnostics;
+    private NodeBuilder nodes;
     
     /**
      * Constructs a Parser object that uses the given Scanner object 
@@ -60,343 +94,544 @@ public class Parser
      *  @postcondition The instance field scanner is set to sc
      *               - The instance field currentToken is set to the 
      *                 first token in sc
+     *               - The operator stack and the stack of nodes are 
+     *                 empty
+     *               - The instance field cache is null
+     *               - Procedure bodies are parsed eagerly
+     *               - The nodes are built without a factory
      */
     public Parser(Scanner sc) throws ScanErrorException
     {
-        scanner = sc;
-        currentToken = sc.nextToken();
+        this((TokenSource) sc);
+    }
+    
+    /**
+     * Constructs a Parser object that reads tokens from the given 
+     * source, such as a TokenList produced by the ParallelLexer.
+     * Usage: TokenList tokens = new ParallelLexer().lex(<buffer>);
+     *        Parser parser = new Parser(tokens);
+     * @param source the given token source
+     * @throws ScanErrorException if the first token could not be 
+     *                            scanned
+     *  @postcondition The instance field scanner is set to source
+     *               - The instance field currentToken is set to the 
+     *                 first token in source
+     *               - The operator stack and the stack of nodes are 
+     *                 empty
+     *               - The instance field cache is null
+     *               - Procedure bodies are parsed eagerly
+     *               - The nodes are built without a factory
+     */
+    public Parser(TokenSource source) throws ScanErrorException
+    {
+        this(source, null);
+    }
+    
+    /**
+     * Constructs a Parser object that reads tokens from the given 
+     * source and records errors in the given diagnostics rather than 
+     * stopping at the first one. After an error the parser skips to 
+     * the next semicolon, END or PROCEDURE and carries on, so a single 
+     * pass finds every error it can; the program it returns is only 
+     * meaningful if no error was recorded.
+     * Usage: Diagnostics diagnostics = new Diagnostics();
+     *        Parser parser = new Parser(<scanner>, diagnostics);
+     * @param source the given token source
+     * @param d the diagnostics to record errors in, or null to throw 
+     *          the first error instead
+     * @throws ScanErrorException if the first token could not be 
+     *                            scanned and d is null
+     *  @postcondition The instance field scanner is set to source
+     *               - The instance field diagnostics is set to d
+     *               - If d is not null and source is a Scanner, its 
+     *                 scan errors no longer capture stack traces
+     *               - The instance field currentToken is set to the 
+     *                 first token in source
+     *               - The operator stack and the stack of nodes are 
+     *                 empty
+     *               - The instance field cache is null
+     *               - Procedure bodies are parsed eagerly
+     *               - The nodes are built without a factory
+     */
+    public Parser(TokenSource source, Diagnostics d)
+            throws ScanErrorException
+    {
+        scanner = source;
+        diagnostics = d;
+        
+        if (d != null && source instanceof Scanner)
+        {
+            ((Scanner) source).setStackTraces(false);
+        }
+        
+        currentToken = advance();
+        operatorKinds = new int[16];
+        operatorPositions = new long[16];
+        operatorSymbols = new int[16];
+        operatorMarks = new int[16];
+        operatorTop = 0;
+        cache = null;
+        lazy = false;
+        nodes = new NodeBuilder();
+    }
+    
+    /**
+     * Sets the cache that parseProgram consults before parsing.
+     * @param c the given cache, or null for none
+     * @postcondition The instance field cache is set to c.
+     */
+    public void setCache(AstCache c)
+    {
+        cache = c;
+    }
+    
+    /**
+     * Sets the factory through which numbers, variables and binary 
+     * operations are built, so that structurally equal expressions are 
+     * shared. Nodes are only shared within one procedure body or 
+     * within the main block, where a name always refers to the same 
+     * variable, so that each can be bound to a single slot of a frame. 
+     * Procedure bodies that are parsed lazily do not use the factory, 
+     * and a tree built with it must not have its lines shifted.
+     * @param f the given factory, or null to build every node afresh
+     * @postcondition The instance field factory is set to f.
+     */
+    public void setFactory(ExpressionFactory f)
+    {
+        nodes.setFactory(f);
+    }
+    
+    /**
+     * Sets whether procedure bodies are parsed lazily. A lazy body is 
+     * only skimmed for its extent when the procedure is parsed, and is 
+     * parsed the first time it is needed; an error in it is only 
+     * reported then.
+     * @param l true to parse procedure bodies lazily, false to parse 
+     *          them at once
+     * @postcondition The instance field lazy is set to l.
+     */
+    public void setLazy(boolean l)
+    {
+        lazy = l;
     }
     
     /**
-     * Advances currentToken to the next token if currentToken is 
-     * equal to the given String object.
-     * @param expectedToken the given String object
+     * Advances currentToken to the next token if currentToken is of 
+     * the given kind.
+     * @param expected the given kind
      * @throws ScanErrorException if a character other than a digit, 
      *                            letter, whitespace character, 
      *                            operand character, or separator 
      *                            character is encountered by the 
      *                            Scanner
      */
-    private void eat(String expectedToken) throws ScanErrorException
+    private void eat(TokenKind expected) throws ScanErrorException
     {
-        if (currentToken.equals(expectedToken))
+        if (currentToken.getKind() == expected)
         {
-            currentToken = scanner.nextToken();
+            currentToken = advance();
         }
         else
         {
-            throw new IllegalArgumentException("Expected " + 
-                expectedToken + " but found " + currentToken);
+            long pos = currentToken.getPosition();
+            String message = "Expected " + expected + " but found " + 
+                currentToken + " at " + Position.toString(pos);
+            
+            if (diagnostics != null)
+            {
+                throw recover(message, pos);
+            }
+            
+            throw new IllegalArgumentException(message);
         }
     }
     
     /**
-     * Parses an integer.
-     * @return a Number object representing the parsed integer
+     * Reads the next token from the source. With diagnostics, a scan 
+     * error is recorded and the token after it is read instead.
+     * @return the next token
      * @throws ScanErrorException if a character other than a digit, 
      *                            letter, whitespace character, 
      *                            operand character, or separator 
      *                            character is encountered by the 
-     *                            Scanner
+     *                            Scanner and there are no diagnostics
      */
-    private Number parseNumber() throws ScanErrorException
+    private Token advance() throws ScanErrorException
     {
-        int num = Integer.parseInt(currentToken);
-        
-        eat(currentToken);
-        
-        Number n = new Number(num);
+        while (true)
+        {
+            try
+            {
+                return scanner.next();
+            }
+            catch (ScanErrorException e)
+            {
+                if (diagnostics == null)
+                {
+                    throw e;
+                }
+                
+                diagnostics.add(e.getMessage(), e.getPosition());
+            }
+        }
+    }
+    
+    /**
+     * Records a syntax error in the diagnostics.
+     * @param message the message of the error, including its position
+     * @param pos the packed position of the error
+     * @return the shared Recovery, for the caller to throw
+     * @postcondition The error is recorded in diagnostics.
+     */
+    private RuntimeException recover(String message, long pos)
+    {
+        diagnostics.add(message, pos);
         
-        return n;
+        return RECOVER;
     }
     
     /**
-     * Parses a factor. A factor is a single integer, a procedure call, 
-     * or a sequence of tokens enclosed in parentheses.
-     * @return an Expression object representing the parsed factor
-     * @throws ScanErrorException if a character other than a digit, 
-     *                            letter, whitespace character, 
-     *                            operand character, or separator 
-     *                            character is encountered by the 
-     *                            Scanner
+     * Makes the exception for a syntax error other than an unexpected 
+     * token. With diagnostics the error is recorded and the shared 
+     * Recovery is returned instead.
+     * @param message the message of the error, including its position
+     * @param pos the packed position of the error
+     * @return the exception for the caller to throw
      */
-    private Expression parseFactor() throws ScanErrorException
+    private Exception syntaxError(String message, long pos)
     {
-        if (currentToken.equals("("))
+        if (diagnostics != null)
         {
-            eat("(");
-            Expression e = parseExpression();
-            eat(")");
-            
-            return e;
+            return recover(message, pos);
         }
-        else if (currentToken.equals("-"))
+        
+        return new Exception(message);
+    }
+    
+    /**
+     * Skips tokens after a syntax error until the parser can carry on: 
+     * past the next semicolon, or up to the next END, PROCEDURE, or the 
+     * end of the input.
+     * @throws ScanErrorException never, since scan errors are recorded 
+     *                            while there are diagnostics
+     */
+    private void synchronize() throws ScanErrorException
+    {
+        while (!at(TokenKind.SEMICOLON) && !at(TokenKind.END) && 
+                !at(TokenKind.PROCEDURE) && !at(TokenKind.EOF))
         {
-            eat("-");
-            Expression e = parseFactor();
-            Number zero = new Number(0);
-            BinOp b = new BinOp("-", zero, e);
-            
-            return b;
+            currentToken = advance();
         }
-        else
+        
+        if (at(TokenKind.SEMICOLON))
         {
-            char c = currentToken.charAt(0);
-            
-            if ('A' <= c && c <= 'Z' || 'a' <= c && c <= 'z')
-            {
-                String name = currentToken;
-                
-                eat(currentToken);
-                
-                if (currentToken.equals("("))
-                {
-                    eat("(");
-                    
-                    List<Expression> list = new ArrayList<Expression>();
-                    
-                    while (!currentToken.equals(")"))
-                    {
-                        Expression exp = parseExpression();
-                        
-                        list.add(exp);
-                        
-                        if (!currentToken.equals(")"))
-                        {
-                            eat(",");
-                        }
-                    }
-                    
-                    eat(")");
-                    
-                    ProcedureCall pc = new ProcedureCall(name, list);
-                    
-                    return pc;
-                }
-                else
-                {
-                    Variable v = new Variable(name);
-                    
-                    return v;
-                }
-            }
-            else
-            {
-                Number n = parseNumber();
-                return n;
-            }
+            currentToken = advance();
         }
     }
     
     /**
-     * Parses a term. A term is a sequence of tokens consisting of a 
-     * chain of contiguous multiplication or division operations.
-     * @return an Expression object representing the parsed term
+     * Checks whether currentToken is of the given kind.
+     * @param kind the given kind
+     * @return true if currentToken is of the given kind, false 
+     *         otherwise
+     */
+    private boolean at(TokenKind kind)
+    {
+        return currentToken.getKind() == kind;
+    }
+    
+    /**
+     * Parses an integer.
+     * @param b the builder to build the integer with
      * @throws ScanErrorException if a character other than a digit, 
      *                            letter, whitespace character, 
      *                            operand character, or separator 
      *                            character is encountered by the 
      *                            Scanner
+     * @postcondition The integer is pushed onto the stack of b.
      */
-    private Expression parseTerm() throws ScanErrorException
+    private void parseNumber(TreeBuilder b) throws ScanErrorException
     {
-        Expression e = parseFactor();
+        int num = currentToken.getValue();
+        long pos = currentToken.getPosition();
         
-        if (!currentToken.equals("*") && !currentToken.equals("/"))
-        {
-            return e;
-        }
+        eat(TokenKind.NUMBER);
         
-        Expression currentExp = e;
+        b.number(num, pos);
+    }
+    
+    /**
+     * Parses an expression. An expression is a chain of additions and 
+     * subtractions of terms, a term is a chain of multiplications and 
+     * divisions of factors, and a factor is an integer, a variable, a 
+     * procedure call, a negated factor, or an expression enclosed in 
+     * parentheses. 
+     * The expression is parsed by operator precedence with an explicit 
+     * operator stack, and with the stack of the builder for its 
+     * operands, rather than by recursion, so long chains and deep 
+     * nesting are bounded by the heap rather than by the size of the 
+     * thread stack.
+     * @param b the builder to build the expression with
+     * @throws ScanErrorException if a character other than a digit, 
+     *                            letter, whitespace character, 
+     *                            operand character, or separator 
+     *                            character is encountered by the 
+     *                            Scanner
+     * @postcondition The expression is pushed onto the stack of b.
+     */
+    private void parseExpression(TreeBuilder b) throws ScanErrorException
+    {
+        int operatorBase = operatorTop;
         
-        while (currentToken.equals("*") || currentToken.equals("/"))
+        try
         {
-            if (currentToken.equals("*"))
-            {
-                eat("*");
-                Expression e2 = parseFactor();
-                
-                currentExp = new BinOp("*", currentExp, e2);
-            }
-            else
+            while (true)
             {
-                eat("/");
-                Expression e2 = parseFactor();
-                
-                currentExp = new BinOp("/", currentExp, e2);
+                if (parseOperand(b, operatorBase) && 
+                        !parseOperators(b, operatorBase))
+                {
+                    reduce(b, operatorBase, PRECEDENCE_ADD);
+                    
+                    return;
+                }
             }
         }
-        
-        return currentExp;
+        finally
+        {
+            operatorTop = operatorBase;
+        }
     }
     
     /**
-     * Parses an expression. An expression is a sequence of tokens 
-     * consisting of a chain of contiguous addition and subtraction 
-     * operations.
-     * @return an Expression object representing the parsed expression
+     * Parses the next operand of an expression, or the prefix before 
+     * it. A left parenthesis, a unary minus and the left parenthesis 
+     * of a procedure call are pushed onto the operator stack; a 
+     * variable or an integer is pushed onto the stack of the builder. 
+     * A right parenthesis right after the start of an argument list 
+     * closes the procedure call.
+     * @param b the builder to build the operand with
+     * @param operatorBase the height of the operator stack when the 
+     *                     expression began
+     * @return true if an operand was pushed onto the stack of b, false 
+     *         if only a prefix was pushed
      * @throws ScanErrorException if a character other than a digit, 
      *                            letter, whitespace character, 
      *                            operand character, or separator 
      *                            character is encountered by the 
      *                            Scanner
      */
-    private Expression parseExpression() throws ScanErrorException
+    private boolean parseOperand(TreeBuilder b, int operatorBase)
+            throws ScanErrorException
     {
-        Expression e = parseTerm();
-        
-        if (!currentToken.equals("+") && !currentToken.equals("-"))
-        {
-            return e;
-        }
+        long pos = currentToken.getPosition();
         
-        Expression currentExp = e;
-        
-        while (currentToken.equals("+") || currentToken.equals("-"))
+        switch (currentToken.getKind())
         {
-            if (currentToken.equals("+"))
-            {
-                eat("+");
-                Expression e2 = parseTerm();
+            case LEFT_PAREN: 
+                eat(TokenKind.LEFT_PAREN);
+                pushOperator(b, OPERATOR_PAREN, pos, 0);
                 
-                currentExp = new BinOp("+", currentExp, e2);
-            }
-            else
+                return false;
+            case MINUS: 
+                eat(TokenKind.MINUS);
+                pushOperator(b, OPERATOR_NEGATE, pos, 0);
+                
+                return false;
+            case IDENTIFIER: 
             {
-                eat("-");
-                Expression e2 = parseTerm();
+                int name = currentToken.getSymbol();
+                
+                eat(TokenKind.IDENTIFIER);
+                
+                if (at(TokenKind.LEFT_PAREN))
+                {
+                    eat(TokenKind.LEFT_PAREN);
+                    pushOperator(b, OPERATOR_CALL, pos, name);
+                    
+                    return false;
+                }
                 
-                currentExp = new BinOp("-", currentExp, e2);
+                b.variable(name, pos);
+                
+                return true;
             }
+            case RIGHT_PAREN: 
+                if (operatorTop > operatorBase && 
+                        operatorKinds[operatorTop - 1] == OPERATOR_CALL)
+                {
+                    eat(TokenKind.RIGHT_PAREN);
+                    closeCall(b);
+                    
+                    return true;
+                }
+                
+                parseNumber(b);
+                
+                return true;
+            default: 
+                parseNumber(b);
+                
+                return true;
         }
-        
-        return currentExp;
     }
     
     /**
-     * Parses a statement.
-     * @return a Statement object representing the parsed statement
-     * @throws Exception if either of these two conditions is 
-     *                   encountered:
-     *                 - a character other than a digit, 
-     *                   letter, whitespace character, 
-     *                   operand character, or separator 
-     *                   character is encountered by the 
-     *                   Scanner
-     *                 - the statement is not WRITELN, WRITELNTIMES, 
-     *                   BEGIN/END, IF, WHILE, or variable assignment
+     * Parses the operators that follow an operand. Closing parentheses 
+     * complete further operands, so they are consumed until either a 
+     * binary operator or a comma between arguments is found, after 
+     * which another operand is expected, or the expression ends.
+     * @param b the builder to build the operations with
+     * @param operatorBase the height of the operator stack when the 
+     *                     expression began
+     * @return true if another operand is expected, false if the 
+     *         expression ends before currentToken
+     * @throws ScanErrorException if a character other than a digit, 
+     *                            letter, whitespace character, 
+     *                            operand character, or separator 
+     *                            character is encountered by the 
+     *                            Scanner
+     * @throws IllegalArgumentException if a parenthesis or an argument 
+     *                                  list is left open
      */
-    public Statement parseStatement() throws Exception
+    private boolean parseOperators(TreeBuilder b, int operatorBase)
+            throws ScanErrorException
     {
-        if (currentToken.equals("WRITELN"))
-        {
-            eat("WRITELN");
-            eat("(");
-            Expression e = parseExpression();
-            eat(")");
-            eat(";");
-            
-            Writeln w = new Writeln(e);
-            
-            return w;
-        }
-        else if (currentToken.equals("WRITELNTIMES"))
-        {
-            eat("WRITELNTIMES");
-            eat("(");
-            Expression e = parseExpression();
-            eat(",");
-            Expression times = parseExpression();
-            eat(")");
-            eat(";");
-            
-            WritelnTimes wt = new WritelnTimes(e, times);
-            
-            return wt;
-        }
-        else if (currentToken.equals("BEGIN"))
+        while (true)
         {
-            eat("BEGIN");
-            
-            List<Statement> list = new ArrayList<Statement>();
+            long pos = currentToken.getPosition();
+            TokenKind kind = currentToken.getKind();
             
-            boolean ended = false;
-            
-            while (!ended)
+            switch (kind)
             {
-                if (currentToken.equals("END"))
-                {
-                    eat("END");
-                    eat(";");
-                    ended = true;
-                }
-                else
+                case PLUS: 
+                case MINUS: 
+                    reduce(b, operatorBase, PRECEDENCE_ADD);
+                    eat(kind);
+                    pushOperator(b, kind == TokenKind.PLUS ? OPERATOR_ADD : 
+                        OPERATOR_SUBTRACT, pos, 0);
+                    
+                    return true;
+                case TIMES: 
+                case DIVIDE: 
+                    reduce(b, operatorBase, PRECEDENCE_MULTIPLY);
+                    eat(kind);
+                    pushOperator(b, kind == TokenKind.TIMES ? 
+                        OPERATOR_MULTIPLY : OPERATOR_DIVIDE, pos, 0);
+                    
+                    return true;
+                default: 
                 {
-                    Statement s = parseStatement();
+                    reduce(b, operatorBase, PRECEDENCE_ADD);
+                    
+                    if (operatorTop == operatorBase)
+                    {
+                        return false;
+                    }
                     
-                    list.add(s);
+                    if (operatorKinds[operatorTop - 1] == OPERATOR_PAREN)
+                    {
+                        eat(TokenKind.RIGHT_PAREN);
+                        operatorTop--;
+                    }
+                    else if (kind == TokenKind.RIGHT_PAREN)
+                    {
+                        eat(TokenKind.RIGHT_PAREN);
+                        closeCall(b);
+                    }
+                    else
+                    {
+                        eat(TokenKind.COMMA);
+                        
+                        return true;
+                    }
                 }
             }
-            
-            Block b = new Block(list);
-            
-            return b;
         }
-        else if (currentToken.equals("IF"))
+    }
+    
+    /**
+     * Pushes an operator onto the operator stack.
+     * @param b the builder whose stack holds the operands
+     * @param kind the kind of the operator
+     * @param pos the packed position of the operator
+     * @param symbol the name of the procedure for a procedure call, or 0
+     * @postcondition The operator is on top of the operator stack, 
+     *                together with the current height of the stack of 
+     *                b.
+     */
+    private void pushOperator(TreeBuilder b, int kind, long pos, 
+            int symbol)
+    {
+        if (operatorTop == operatorKinds.length)
         {
-            eat("IF");
-            
-            Condition c = parseCondition();
+            int n = operatorTop * 2;
             
-            eat("THEN");
-            
-            Statement s = parseStatement();
-            
-            If ifStatement = new If(c, s);
-            
-            return ifStatement;
+            operatorKinds = Arrays.copyOf(operatorKinds, n);
+            operatorPositions = Arrays.copyOf(operatorPositions, n);
+            operatorSymbols = Arrays.copyOf(operatorSymbols, n);
+            operatorMarks = Arrays.copyOf(operatorMarks, n);
         }
-        else if (currentToken.equals("WHILE"))
+        
+        operatorKinds[operatorTop] = kind;
+        operatorPositions[operatorTop] = pos;
+        operatorSymbols[operatorTop] = symbol;
+        operatorMarks[operatorTop] = b.size();
+        operatorTop++;
+    }
+    
+    /**
+     * Applies the operators on top of the operator stack whose 
+     * precedence is at least the given precedence. Parentheses and 
+     * procedure calls have the lowest precedence, so they are never 
+     * applied here.
+     * @param b the builder to build the operations with
+     * @param operatorBase the height of the operator stack when the 
+     *                     expression began
+     * @param precedence the given precedence
+     * @postcondition Each applied operator is built by b out of the 
+     *                operands on top of its stack.
+     */
+    private void reduce(TreeBuilder b, int operatorBase, int precedence)
+    {
+        while (operatorTop > operatorBase && 
+                PRECEDENCES[operatorKinds[operatorTop - 1]] >= precedence)
         {
-            eat("WHILE");
-            
-            Condition c = parseCondition();
-            
-            eat("DO");
-            
-            Statement s = parseStatement();
+            operatorTop--;
             
-            While whileStatement = new While(c, s);
-            
-            return whileStatement;
-        }
-        else
-        {
-            char c = currentToken.charAt(0);
+            int kind = operatorKinds[operatorTop];
+            long pos = operatorPositions[operatorTop];
             
-            if ('A' <= c && c <= 'Z' || 'a' <= c && c <= 'z')
+            if (kind == OPERATOR_NEGATE)
             {
-                String s = currentToken;
-                eat(currentToken);
-                eat(":=");
-                Expression e = parseExpression();
-                eat(";");
-                
-                Assignment a = new Assignment(s, e);
-                
-                return a;
+                b.negate(pos);
             }
             else
             {
-                throw new Exception("Invalid statement");
+                b.binOp(OPERATOR_TOKENS[kind], pos);
             }
         }
     }
     
     /**
-     * Parses a boolean condition.
-     * @return a Condition object representing the parsed boolean 
-     *         condition
+     * Closes the procedure call on top of the operator stack. Its 
+     * arguments are the operands pushed since it was opened.
+     * @param b the builder to build the procedure call with
+     * @postcondition The procedure call is popped from the operator 
+     *                stack and its arguments are replaced on the stack 
+     *                of b by the procedure call.
+     */
+    private void closeCall(TreeBuilder b)
+    {
+        operatorTop--;
+        
+        b.call(operatorSymbols[operatorTop], 
+            b.size() - operatorMarks[operatorTop], 
+            operatorPositions[operatorTop]);
+    }
+    
+    /**
+     * Parses a statement.
+     * @return a Statement object representing the parsed statement
      * @throws Exception if either of these two conditions is 
      *                   encountered:
      *                 - a character other than a digit, 
@@ -404,134 +639,807 @@ public class Parser
      *                   operand character, or separator 
      *                   character is encountered by the 
      *                   Scanner
-     *                 - the operator is not a boolean operator
+     *                 - the statement is not WRITELN, WRITELNTIMES, 
+     *                   BEGIN/END, IF, WHILE, or variable assignment
      */
-    public Condition parseCondition() throws Exception
+    public Statement parseStatement() throws Exception
     {
-        Expression e1 = parseExpression();
+        parseStatement(nodes);
         
-        if (currentToken.equals("=") || currentToken.equals("<>") || 
-                currentToken.equals("<") || currentToken.equals(">") || 
-                currentToken.equals("<=") || currentToken.equals(">="))
-        {
-            String relop = currentToken;
-            
-            eat(relop);
-            
-            Expression e2 = parseExpression();
-            
-            Condition c = new Condition(relop, e1, e2);
-            
-            return c;
-        }
-        else
-        {
-            throw new Exception("Operator not relop");
-        }
+        return (Statement) nodes.pop();
     }
     
     /**
-     * Parses a program, which includes global variables, procedure 
-     * declarations, and local variables.
-     * @return a Program object representing the parsed program
-     * @throws Exception if one of these three conditions is 
+     * Parses a statement. 
+     * BEGIN blocks, IF statements and WHILE loops are kept on an 
+     * explicit stack while their bodies are parsed rather than parsed 
+     * by recursion, so deep nesting is bounded by the heap rather than 
+     * by the size of the thread stack. The statements of an open block 
+     * and the condition of an open IF or WHILE wait on the stack of the 
+     * builder. 
+     * With diagnostics, a statement with an error is recorded and 
+     * skipped: an IF or WHILE around it is dropped, and an empty block 
+     * stands in for it if nothing encloses it.
+     * @param b the builder to build the statement with
+     * @throws Exception if either of these two conditions is 
      *                   encountered:
      *                 - a character other than a digit, 
      *                   letter, whitespace character, 
      *                   operand character, or separator 
      *                   character is encountered by the 
      *                   Scanner
-     *                 - the name of a procedure is not an ID
-     *                 - the name of a parameter is not an ID
+     *                 - the statement is not WRITELN, WRITELNTIMES, 
+     *                   BEGIN/END, IF, WHILE, or variable assignment
+     * @postcondition The statement is pushed onto the stack of b.
      */
-    public Program parseProgram() throws Exception
+    private void parseStatement(TreeBuilder b) throws Exception
     {
-        List<String> vars = new ArrayList<String>();
+        List<OpenStatement> open = new ArrayList<OpenStatement>();
+        int base = b.size();
         
-        List<ProcedureDeclaration> ps = new ArrayList<ProcedureDeclaration>();
-        
-        while (currentToken.equals("VAR"))
+        while (true)
         {
-            eat("VAR");
-            
-            String var = parseID();
-            
-            vars.add(var);
+            long pos = currentToken.getPosition();
+            int height = b.size();
+            boolean parsed = false;
             
-            while (!currentToken.equals(";"))
+            try
             {
-                eat(",");
+                switch (currentToken.getKind())
+                {
+                    case BEGIN: 
+                        eat(TokenKind.BEGIN);
+                        open.add(new OpenStatement(TokenKind.BEGIN, pos, 
+                            height));
+                        break;
+                    case IF: 
+                        eat(TokenKind.IF);
+                        parseCondition(b);
+                        eat(TokenKind.THEN);
+                        open.add(new OpenStatement(TokenKind.IF, pos, 
+                            height));
+                        
+                        continue;
+                    case WHILE: 
+                        eat(TokenKind.WHILE);
+                        parseCondition(b);
+                        eat(TokenKind.DO);
+                        open.add(new OpenStatement(TokenKind.WHILE, pos, 
+                            height));
+                        
+                        continue;
+                    default: 
+                        parseSimpleStatement(b);
+                        parsed = true;
+                }
+            }
+            catch (Recovery r)
+            {
+                b.pop(b.size() - height);
+                synchronize();
+                
+                if (at(TokenKind.PROCEDURE) || at(TokenKind.EOF))
+                {
+                    b.pop(b.size() - base);
+                    b.block(0, pos);
+                    
+                    return;
+                }
+            }
+            
+            while (true)
+            {
+                if (open.isEmpty())
+                {
+                    if (!parsed)
+                    {
+                        b.block(0, pos);
+                    }
+                    
+                    return;
+                }
                 
-                var = parseID();
+                OpenStatement top = open.get(open.size() - 1);
                 
-                vars.add(var);
+                if (top.kind == TokenKind.BEGIN)
+                {
+                    if (!at(TokenKind.END))
+                    {
+                        break;
+                    }
+                    
+                    eat(TokenKind.END);
+                    
+                    try
+                    {
+                        eat(TokenKind.SEMICOLON);
+                    }
+                    catch (Recovery r)
+                    {
+                        synchronize();
+                    }
+                    
+                    b.block(b.size() - top.mark, top.position);
+                }
+                else if (!parsed)
+                {
+                    b.pop(b.size() - top.mark);
+                    open.remove(open.size() - 1);
+                    
+                    continue;
+                }
+                else if (top.kind == TokenKind.IF)
+                {
+                    b.ifStatement(top.position);
+                }
+                else
+                {
+                    b.whileLoop(top.position);
+                }
+                
+                parsed = true;
+                open.remove(open.size() - 1);
             }
+        }
+    }
+    
+    /**
+     * Parses a statement that contains no other statement: WRITELN, 
+     * WRITELNTIMES, or variable assignment.
+     * @param b the builder to build the statement with
+     * @throws Exception if either of these two conditions is 
+     *                   encountered:
+     *                 - a character other than a digit, 
+     *                   letter, whitespace character, 
+     *                   operand character, or separator 
+     *                   character is encountered by the 
+     *                   Scanner
+     *                 - the statement is not WRITELN, WRITELNTIMES, 
+     *                   or variable assignment
+     * @postcondition The statement is pushed onto the stack of b.
+     */
+    private void parseSimpleStatement(TreeBuilder b) throws Exception
+    {
+        long pos = currentToken.getPosition();
+        
+        switch (currentToken.getKind())
+        {
+            case WRITELN: 
+                eat(TokenKind.WRITELN);
+                eat(TokenKind.LEFT_PAREN);
+                parseExpression(b);
+                eat(TokenKind.RIGHT_PAREN);
+                eat(TokenKind.SEMICOLON);
+                
+                b.writeln(pos);
+                break;
+            case WRITELNTIMES: 
+                eat(TokenKind.WRITELNTIMES);
+                eat(TokenKind.LEFT_PAREN);
+                parseExpression(b);
+                eat(TokenKind.COMMA);
+                parseExpression(b);
+                eat(TokenKind.RIGHT_PAREN);
+                eat(TokenKind.SEMICOLON);
+                
+                b.writelnTimes(pos);
+                break;
+            case IDENTIFIER: 
+            {
+                int s = currentToken.getSymbol();
+                eat(TokenKind.IDENTIFIER);
+                eat(TokenKind.ASSIGN);
+                parseExpression(b);
+                eat(TokenKind.SEMICOLON);
+                
+                b.assignment(s, pos);
+                break;
+            }
+            default: 
+                throw syntaxError("Invalid statement at " + 
+                    Position.toString(pos), pos);
+        }
+    }
+    
+    /**
+     * Parses a boolean condition.
+     * @return a Condition object representing the parsed boolean 
+     *         condition
+     * @throws Exception if either of these two conditions is 
+     *                   encountered:
+     *                 - a character other than a digit, 
+     *                   letter, whitespace character, 
+     *                   operand character, or separator 
+     *                   character is encountered by the 
+     *                   Scanner
+     *                 - the operator is not a boolean operator
+     */
+    public Condition parseCondition() throws Exception
+    {
+        parseCondition(nodes);
+        
+        return (Condition) nodes.pop();
+    }
+    
+    /**
+     * Parses a boolean condition.
+     * @param b the builder to build the condition with
+     * @throws Exception if either of these two conditions is 
+     *                   encountered:
+     *                 - a character other than a digit, 
+     *                   letter, whitespace character, 
+     *                   operand character, or separator 
+     *                   character is encountered by the 
+     *                   Scanner
+     *                 - the operator is not a boolean operator
+     * @postcondition The condition is pushed onto the stack of b.
+     */
+    private void parseCondition(TreeBuilder b) throws Exception
+    {
+        parseExpression(b);
+        
+        TokenKind kind = currentToken.getKind();
+        long pos = currentToken.getPosition();
+        
+        if (kind.isRelop())
+        {
+            eat(kind);
+            
+            parseExpression(b);
+            
+            b.condition(kind, pos);
+        }
+        else
+        {
+            throw syntaxError("Operator not relop at " + 
+                Position.toString(pos), pos);
+        }
+    }
+    
+    /**
+     * Parses a program, which includes global variables, procedure 
+     * declarations, and local variables. If a cache is set and the 
+     * source comes from a Scanner, a program cached for the same 
+     * source is returned instead, and a newly parsed program is added 
+     * to the cache, unless it has errors.
+     * @return a Program object representing the parsed program
+     * @throws Exception if one of these three conditions is 
+     *                   encountered:
+     *                 - a character other than a digit, 
+     *                   letter, whitespace character, 
+     *                   operand character, or separator 
+     *                   character is encountered by the 
+     *                   Scanner
+     *                 - the name of a procedure is not an ID
+     *                 - the name of a parameter is not an ID
+     */
+    public Program parseProgram() throws Exception
+    {
+        if (cache == null || !(scanner instanceof Scanner))
+        {
+            return parseProgramSource();
+        }
+        
+        byte[] key = cache.keyOf(((Scanner) scanner).getInput());
+        Program program = cache.load(key);
+        
+        if (program == null)
+        {
+            int errors = diagnostics == null ? 0 : diagnostics.size();
             
-            eat(";");
+            program = parseProgramSource();
+            
+            if (diagnostics == null || diagnostics.size() == errors)
+            {
+                cache.store(key, program);
+            }
+        }
+        
+        return program;
+    }
+    
+    /**
+     * Parses a program from the source, without consulting the cache.
+     * @return a Program object representing the parsed program
+     * @throws Exception if one of these three conditions is 
+     *                   encountered:
+     *                 - a character other than a digit, 
+     *                   letter, whitespace character, 
+     *                   operand character, or separator 
+     *                   character is encountered by the 
+     *                   Scanner
+     *                 - the name of a procedure is not an ID
+     *                 - the name of a parameter is not an ID
+     */
+    private Program parseProgramSource() throws Exception
+    {
+        parseProgram(nodes);
+        
+        return (Program) nodes.pop();
+    }
+    
+    /**
+     * Parses a program from the source with the given builder, such as 
+     * a FlatTreeBuilder, without consulting the cache. Procedure bodies 
+     * are only parsed lazily into node objects, so with any other 
+     * builder they are parsed at once.
+     * @param b the given builder
+     * @throws Exception if one of these three conditions is 
+     *                   encountered:
+     *                 - a character other than a digit, 
+     *                   letter, whitespace character, 
+     *                   operand character, or separator 
+     *                   character is encountered by the 
+     *                   Scanner
+     *                 - the name of a procedure is not an ID
+     *                 - the name of a parameter is not an ID
+     * @postcondition The program has been built by b.
+     */
+    public void parseProgram(TreeBuilder b) throws Exception
+    {
+        long programPos = currentToken.getPosition();
+        
+        int[] vars = parseGlobalVariables();
+        int count = 0;
+        
+        while (at(TokenKind.PROCEDURE))
+        {
+            parseProcedure(b);
+            count++;
+        }
+        
+        parseStatement(b);
+        
+        try
+        {
+            parseEnd();
+        }
+        catch (Recovery r)
+        {
+            // The error is recorded, and nothing follows the end.
+        }
+        
+        b.program(vars, count, programPos);
+    }
+    
+    /**
+     * Parses a program and compiles it into the given file as it goes, 
+     * without ever holding the tree of the whole program. Procedure 
+     * bodies are only skimmed at first. Each statement of the main 
+     * block is compiled as soon as it is parsed and then dropped, and 
+     * then each procedure is parsed, compiled and dropped in turn. So 
+     * besides the source, memory is bounded by the largest procedure or 
+     * statement of the main block, and the output is the same as that 
+     * of Program.compile. 
+     * With diagnostics, parsing carries on after an error to find the 
+     * rest, but nothing more is compiled, so the output is incomplete 
+     * if an error was recorded.
+     * @param filename the name of the file
+     * @throws Exception if one of these three conditions is 
+     *                   encountered:
+     *                 - a character other than a digit, 
+     *                   letter, whitespace character, 
+     *                   operand character, or separator 
+     *                   character is encountered by the 
+     *                   Scanner
+     *                 - the name of a procedure is not an ID
+     *                 - the name of a parameter is not an ID
+     */
+    public void compileProgram(String filename) throws Exception
+    {
+        Emitter e = new Emitter(filename);
+        
+        try
+        {
+            compileProgram(new EmitterSink(e));
+        }
+        finally
+        {
+            e.close();
+        }
+    }
+    
+    /**
+     * Parses a program and hands each part of it to the given sink as 
+     * soon as it is parsed, in the order its code must appear in the 
+     * output, as compileProgram(String) describes. A part is only 
+     * handed over once its tree is complete, so the sink may compile it 
+     * on another thread.
+     * @param sink the given sink
+     * @throws Exception if one of these three conditions is 
+     *                   encountered:
+     *                 - a character other than a digit, 
+     *                   letter, whitespace character, 
+     *                   operand character, or separator 
+     *                   character is encountered by the 
+     *                   Scanner
+     *                 - the name of a procedure is not an ID
+     *                 - the name of a parameter is not an ID
+     */
+    void compileProgram(CodeSink sink) throws Exception
+    {
+        int errors = diagnostics == null ? 0 : diagnostics.size();
+        int[] vars = parseGlobalVariables();
+        
+        List<ProcedureDeclaration> ps = new ArrayList<ProcedureDeclaration>();
+        boolean wasLazy = lazy;
+        
+        lazy = true;
+        
+        try
+        {
+            while (at(TokenKind.PROCEDURE))
+            {
+                ps.add(parseProcedure());
+            }
+        }
+        finally
+        {
+            lazy = wasLazy;
         }
         
-        while (currentToken.equals("PROCEDURE"))
+        sink.start(vars);
+        
+        if (at(TokenKind.BEGIN))
         {
-            eat("PROCEDURE");
+            eat(TokenKind.BEGIN);
             
-            String name = parseID();
+            while (!at(TokenKind.END))
+            {
+                Token first = currentToken;
+                Statement stmt = parseStatement();
+                
+                if (noErrorsSince(errors))
+                {
+                    sink.statement(stmt);
+                }
+                
+                if (currentToken == first)
+                {
+                    break;
+                }
+            }
             
-            eat("(");
+            try
+            {
+                eat(TokenKind.END);
+                eat(TokenKind.SEMICOLON);
+            }
+            catch (Recovery r)
+            {
+                synchronize();
+            }
+        }
+        else
+        {
+            Statement stmt = parseStatement();
             
-            List<String> list = new ArrayList<String>();
+            if (noErrorsSince(errors))
+            {
+                sink.statement(stmt);
+            }
+        }
+        
+        try
+        {
+            parseEnd();
+        }
+        catch (Recovery r)
+        {
+            // The error is recorded, and nothing follows the end.
+        }
+        
+        sink.exit();
+        
+        for (int i = 0; i < ps.size(); i++)
+        {
+            ProcedureDeclaration pd = ps.get(i);
             
-            while (!currentToken.equals(")"))
+            ps.set(i, null);
+            pd.getStatement();
+            
+            if (noErrorsSince(errors))
             {
-                String parameterName = parseID();
+                sink.procedure(pd);
+            }
+        }
+    }
+    
+    /**
+     * Checks whether no error has been recorded since the diagnostics 
+     * held the given number of errors.
+     * @param errors the given number of errors
+     * @return true if there are no diagnostics or they still hold 
+     *         errors errors, otherwise false
+     */
+    private boolean noErrorsSince(int errors)
+    {
+        return diagnostics == null || diagnostics.size() == errors;
+    }
+    
+    /**
+     * Parses the VAR declarations at the start of a program.
+     * @return the symbol ids of the declared global variables, in order
+     * @throws Exception if a variable name is not an ID
+     */
+    public int[] parseGlobalVariables() throws Exception
+    {
+        List<Integer> vars = new ArrayList<Integer>();
+        
+        while (at(TokenKind.VAR))
+        {
+            try
+            {
+                eat(TokenKind.VAR);
                 
-                list.add(parameterName);
+                int var = parseSymbol();
+                
+                vars.add(var);
                 
-                if (!currentToken.equals(")"))
+                while (!at(TokenKind.SEMICOLON))
                 {
-                    eat(",");
+                    eat(TokenKind.COMMA);
+                    
+                    var = parseSymbol();
+                    
+                    vars.add(var);
                 }
+                
+                eat(TokenKind.SEMICOLON);
             }
+            catch (Recovery r)
+            {
+                synchronize();
+            }
+        }
+        
+        return toArray(vars);
+    }
+    
+    /**
+     * Parses one procedure declaration, starting at its PROCEDURE 
+     * token.
+     * @return a ProcedureDeclaration object representing the parsed 
+     *         procedure
+     * @throws Exception if the name of the procedure, a parameter or a 
+     *                   local variable is not an ID, or the body is 
+     *                   not a valid statement
+     */
+    public ProcedureDeclaration parseProcedure() throws Exception
+    {
+        parseProcedure(nodes);
+        
+        return (ProcedureDeclaration) nodes.pop();
+    }
+    
+    /**
+     * Parses one procedure declaration, starting at its PROCEDURE 
+     * token. Its body is only parsed lazily if it is built into node 
+     * objects.
+     * @param b the builder to build the procedure declaration with
+     * @throws Exception if the name of the procedure, a parameter or a 
+     *                   local variable is not an ID, or the body is 
+     *                   not a valid statement
+     * @postcondition The procedure declaration is pushed onto the stack 
+     *                of b.
+     */
+    private void parseProcedure(TreeBuilder b) throws Exception
+    {
+        long pos = currentToken.getPosition();
+        
+        eat(TokenKind.PROCEDURE);
+        
+        int name = -1;
+        List<Integer> list = new ArrayList<Integer>();
+        
+        try
+        {
+            name = parseSymbol();
             
-            eat(")");
+            eat(TokenKind.LEFT_PAREN);
             
-            eat(";");
+            while (!at(TokenKind.RIGHT_PAREN))
+            {
+                int parameterName = parseSymbol();
+                
+                list.add(parameterName);
+                
+                if (!at(TokenKind.RIGHT_PAREN))
+                {
+                    eat(TokenKind.COMMA);
+                }
+            }
             
-            List<String> varList = new ArrayList<String>();
+            eat(TokenKind.RIGHT_PAREN);
             
-            if (currentToken.equals("VAR"))
+            eat(TokenKind.SEMICOLON);
+        }
+        catch (Recovery r)
+        {
+            synchronize();
+        }
+        
+        List<Integer> varList = new ArrayList<Integer>();
+        
+        if (at(TokenKind.VAR))
+        {
+            try
             {
-                eat("VAR");
+                eat(TokenKind.VAR);
                 
-                while (!currentToken.equals(";"))
+                while (!at(TokenKind.SEMICOLON))
                 {
-                    String varName = parseID();
+                    int varName = parseSymbol();
                     
                     varList.add(varName);
                     
-                    if (!currentToken.equals(";"))
+                    if (!at(TokenKind.SEMICOLON))
                     {
-                        eat(",");
+                        eat(TokenKind.COMMA);
                     }
                 }
                 
-                eat(";");
+                eat(TokenKind.SEMICOLON);
+            }
+            catch (Recovery r)
+            {
+                synchronize();
             }
+        }
+        
+        if (lazy && b == nodes)
+        {
+            Token first = currentToken;
             
-            Statement stmt = parseStatement();
+            try
+            {
+                skipStatement();
+            }
+            catch (Recovery r)
+            {
+                synchronize();
+            }
             
-            ProcedureDeclaration p = new ProcedureDeclaration(name, 
-                    list, stmt, varList);
+            LazyProcedure p = new LazyProcedure(name, toArray(list), 
+                toArray(varList), first, diagnostics);
+            p.setPosition(pos);
+            nodes.push(p);
+        }
+        else
+        {
+            parseStatement(b);
+            b.procedure(name, toArray(list), toArray(varList), pos);
+        }
+    }
+    
+    /**
+     * Skips the tokens of a statement without parsing it. Every 
+     * statement ends with a semicolon, so the statement ends at the 
+     * first semicolon that is not between a BEGIN and its END.
+     * @throws ScanErrorException if a character other than a digit, 
+     *                            letter, whitespace character, 
+     *                            operand character, or separator 
+     *                            character is encountered by the 
+     *                            Scanner
+     * @throws IllegalArgumentException if an END has no BEGIN or the 
+     *                                  input ends inside the statement
+     */
+    private void skipStatement() throws ScanErrorException
+    {
+        int depth = 0;
+        
+        while (true)
+        {
+            switch (currentToken.getKind())
+            {
+                case BEGIN: 
+                    depth++;
+                    break;
+                case END: 
+                    if (depth == 0)
+                    {
+                        eat(TokenKind.SEMICOLON);
+                    }
+                    
+                    depth--;
+                    break;
+                case SEMICOLON: 
+                    if (depth == 0)
+                    {
+                        eat(TokenKind.SEMICOLON);
+                        
+                        return;
+                    }
+                    
+                    break;
+                case EOF: 
+                    eat(TokenKind.SEMICOLON);
+                    break;
+                default: 
+                    break;
+            }
             
-            ps.add(p);
+            currentToken = advance();
         }
+    }
+    
+    /**
+     * Parses the end of the program.
+     * @throws ScanErrorException if the end could not be scanned
+     * @throws IllegalArgumentException if the program does not end 
+     *                                  here
+     */
+    public void parseEnd() throws ScanErrorException
+    {
+        eat(TokenKind.EOF);
+    }
+    
+    /**
+     * Moves on to the next program of a source that holds several 
+     * programs, each ended by a '.'. Whatever is left of the current 
+     * program, as after an error, is skipped, and so is any program 
+     * with no tokens. Only a Scanner can hold more than one program; 
+     * any other source ends at its first '.'.
+     * Usage: do { Program program = parser.parseProgram(); ... }
+     *        while (parser.nextProgram());
+     * @return true if another program follows, false otherwise
+     * @throws ScanErrorException if the first token of the next 
+     *                            program could not be scanned and there 
+     *                            are no diagnostics
+     * @postcondition If true is returned, currentToken is the first 
+     *                token of the next program.
+     *              - The operator stack and the stack of nodes are 
+     *                empty.
+     *              - The instance field cache is null, since it is 
+     *                keyed on the whole source rather than on one 
+     *                program.
+     */
+    public boolean nextProgram() throws ScanErrorException
+    {
+        nodes.pop(nodes.size());
+        operatorTop = 0;
+        cache = null;
         
-        Statement stmt = parseStatement();
+        if (!(scanner instanceof Scanner))
+        {
+            return false;
+        }
         
-        eat(".");
+        Scanner sc = (Scanner) scanner;
         
-        Program program = new Program(vars, ps, stmt);
+        while (sc.hasNext())
+        {
+            try
+            {
+                sc.next();
+            }
+            catch (ScanErrorException e)
+            {
+                // The rest of the current program is skipped.
+            }
+        }
         
-        return program;
+        while (sc.skipDot())
+        {
+            currentToken = advance();
+            
+            if (!at(TokenKind.EOF))
+            {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Gets the token the parser is looking at, which is the first 
+     * token not yet parsed.
+     * @return the instance field currentToken
+     */
+    public Token getCurrentToken()
+    {
+        return currentToken;
     }
     
     /**
@@ -548,17 +1456,116 @@ public class Parser
      */
     public String parseID() throws Exception
     {
-        char c = currentToken.charAt(0);
+        if (!at(TokenKind.IDENTIFIER))
+        {
+            throw syntaxError("Not id at " + 
+                Position.toString(currentToken.getPosition()), 
+                currentToken.getPosition());
+        }
+        
+        String id = currentToken.getText();
+        
+        eat(TokenKind.IDENTIFIER);
         
-        if (!('A' <= c && c <= 'Z' || 'a' <= c && c <= 'z'))
+        return id;
+    }
+    
+    /**
+     * Parses an ID.
+     * @return the symbol id of the parsed ID
+     * @throws Exception if either of these two conditions is 
+     *                   encountered:
+     *                 - a character other than a digit, 
+     *                   letter, whitespace character, 
+     *                   operand character, or separator 
+     *                   character is encountered by the 
+     *                   Scanner
+     *                 - the parsed token is not an ID
+     */
+    private int parseSymbol() throws Exception
+    {
+        if (!at(TokenKind.IDENTIFIER))
         {
-            throw new Exception("Not id");
+            throw syntaxError("Not id at " + 
+                Position.toString(currentToken.getPosition()), 
+                currentToken.getPosition());
         }
         
-        String id = currentToken;
+        int id = currentToken.getSymbol();
         
-        eat(currentToken);
+        eat(TokenKind.IDENTIFIER);
         
         return id;
     }
+    
+    /**
+     * Copies the given list of symbol ids into an array.
+     * @param list the given list
+     * @return an array holding the elements of list, in order
+     */
+    private static int[] toArray(List<Integer> list)
+    {
+        int[] array = new int[list.size()];
+        
+        for (int i = 0; i < array.length; i++)
+        {
+            array[i] = list.get(i);
+        }
+        
+        return array;
+    }
+    
+    /**
+     * OpenStatement is a BEGIN block, IF statement or WHILE loop whose 
+     * body parseStatement has not finished parsing.
+     */
+    private static class OpenStatement
+    {
+        /**
+         * Instance variables
+         */
+        private final TokenKind kind;
+        private final long position;
+        private final int mark;
+        
+        /**
+         * Constructs an OpenStatement object.
+         * @param k BEGIN, IF or WHILE
+         * @param pos the packed position of the first token of the 
+         *            statement
+         * @param m the height of the stack of the builder before the 
+         *          statement, below its statements or its condition
+         * @postcondition The instance fields are set to the given values.
+         */
+        private OpenStatement(TokenKind k, long pos, int m)
+        {
+            kind = k;
+            position = pos;
+            mark = m;
+        }
+    }
+    
+    /**
+     * Recovery is thrown after a syntax error has been recorded in the 
+     * diagnostics, to unwind to the nearest point at which the parser 
+     * resynchronizes. It carries nothing, so a single instance without 
+     * a stack trace is shared by every error.
+     */
+    private static class Recovery extends RuntimeException
+    {
+        /**
+         * The version of the serialized form
+         */
+        private static final long serialVersionUID = 1L;
+        
+        /**
+         * Constructs a Recovery object.
+         * @postcondition The object has no message, no cause, and no 
+         *                stack trace.
+         */
+        private Recovery()
+        {
+            super(null, null, false, false);
+        }
+    }
 }
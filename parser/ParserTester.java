@@ -2,6 +2,9 @@ package parser;
 import ast.Program;
 import scanner.Scanner;
 import environment.Environment;
+import vm.BytecodeCompiler;
+import vm.Machine;
+import java.nio.file.Paths;
 import java.io.File;
 import java.io.FileInputStream;
 
@@ -15,11 +18,24 @@ public class ParserTester
         Scanner scanner = new Scanner(fis);
         
         Parser parser = new Parser(scanner);
+        String cache = System.getProperty("astcache");
+        
+        if (cache != null)
+        {
+            parser.setCache(new AstCache( 
+                Paths.get(cache.isEmpty() ? ".astcache" : cache)));
+        }
         
         Environment environment = new Environment(null);
         
         Program program = parser.parseProgram();
         
+        if (System.getProperty("vm") != null)
+        {
+            new Machine(new BytecodeCompiler().compile(program)).run();
+            return;
+        }
+        
         program.exec(environment);
     }
 }
@@ -0,0 +1,510 @@
+package parser;
+import ast.Emitter;
+import ast.ProcedureDeclaration;
+import ast.Statement;
+import scanner.ScanErrorException;
+import scanner.Token;
+import scanner.TokenKind;
+import scanner.TokenSource;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * PipelinedCompiler compiles a program on three threads at once: a 
+ * scan stage pulls tokens from the source in batches, a parse stage 
+ * parses them into statements and procedures, and an emit stage writes 
+ * the code of each one as soon as its tree is complete. The stages are 
+ * joined by bounded RingBuffers, so a stage that runs ahead waits for 
+ * the next one rather than piling up work, and memory stays bounded as 
+ * with Parser.compileProgram. 
+ * The output is the same as that of Program.compile. The emit stage 
+ * can only start on the main block once every procedure has been 
+ * skimmed, and procedure bodies are parsed again on the parse stage 
+ * once the main block is done, so the stages overlap most on the main 
+ * block. If a stage fails, the other stages are interrupted and the 
+ * first failure is thrown by compile.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: PipelinedCompiler compiler = new PipelinedCompiler();
+ *        compiler.compile(new Scanner(<input stream>), null, <file>);
+ */
+public class PipelinedCompiler
+{
+    /**
+     * The number of tokens in a batch handed from the scan stage to the 
+     * parse stage
+     */
+    private static final int BATCH_SIZE = 1024;
+    
+    /**
+     * The number of token batches and of parsed parts that may wait 
+     * between two stages
+     */
+    private static final int TOKEN_QUEUE_SIZE = 64;
+    private static final int PART_QUEUE_SIZE = 1024;
+    
+    /**
+     * The kinds of part handed from the parse stage to the emit stage
+     */
+    private static final int START = 0;
+    private static final int STATEMENT = 1;
+    private static final int EXIT = 2;
+    private static final int PROCEDURE = 3;
+    private static final int END = 4;
+    
+    /**
+     * Compiles the program read from the given source into a file with 
+     * the given name.
+     * @param source the given source, which is only read by the scan 
+     *               stage
+     * @param diagnostics the diagnostics to record syntax errors in, or 
+     *                    null to stop at the first error
+     * @param filename the name of the file
+     * @throws Exception if a stage fails, as Parser.compileProgram 
+     *                   would
+     * @postcondition Unless there are syntax errors, the file holds the 
+     *                code of the program.
+     */
+    public void compile(TokenSource source, Diagnostics diagnostics, 
+        String filename) throws Exception
+    {
+        RingBuffer<TokenBatch> tokens = 
+            new RingBuffer<TokenBatch>(TOKEN_QUEUE_SIZE);
+        RingBuffer<Part> parts = new RingBuffer<Part>(PART_QUEUE_SIZE);
+        
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        CompletionService<Void> stages = 
+            new ExecutorCompletionService<Void>(pool);
+        @SuppressWarnings("unchecked")
+        Future<Void>[] futures = (Future<Void>[]) new Future<?>[3];
+        
+        try
+        {
+            futures[0] = stages.submit(new ScanStage(source, tokens));
+            futures[1] = stages.submit( 
+                new ParseStage(tokens, diagnostics, parts));
+            futures[2] = stages.submit(new EmitStage(parts, filename));
+            
+            for (int i = 0; i < futures.length; i++)
+            {
+                Future<Void> f = stages.take();
+                
+                try
+                {
+                    f.get();
+                    
+                    if (f == futures[1])
+                    {
+                        futures[0].cancel(true);
+                    }
+                }
+                catch (CancellationException e)
+                {
+                    // The parser stopped before the end of the source.
+                }
+                catch (ExecutionException e)
+                {
+                    for (Future<Void> g : futures)
+                    {
+                        g.cancel(true);
+                    }
+                    
+                    Throwable cause = e.getCause();
+                    
+                    if (cause instanceof Exception)
+                    {
+                        throw (Exception) cause;
+                    }
+                    
+                    throw (Error) cause;
+                }
+            }
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+    
+    /**
+     * TokenBatch is a run of tokens handed from the scan stage to the 
+     * parse stage, possibly ended by a scan error.
+     */
+    private static class TokenBatch
+    {
+        /**
+         * Instance variables
+         */
+        private Token[] tokens;
+        private int count;
+        private ScanErrorException error;
+        
+        /**
+         * Constructs an empty TokenBatch object.
+         * @postcondition The instance field tokens has room for 
+         *                BATCH_SIZE tokens.
+         *              - The instance field count is set to 0.
+         */
+        TokenBatch()
+        {
+            tokens = new Token[BATCH_SIZE];
+            count = 0;
+        }
+    }
+    
+    /**
+     * Part is a statement of the main block, a procedure, or a marker 
+     * handed from the parse stage to the emit stage.
+     */
+    private static class Part
+    {
+        /**
+         * Instance variables
+         */
+        private int kind;
+        private Object node;
+        
+        /**
+         * Constructs a Part object.
+         * @param k the kind of the part
+         * @param n the statement, procedure or global variable ids of 
+         *          the part, or null
+         * @postcondition The instance fields are set to the given 
+         *                values.
+         */
+        Part(int k, Object n)
+        {
+            kind = k;
+            node = n;
+        }
+    }
+    
+    /**
+     * ScanStage pulls tokens from the source and hands them on in 
+     * batches, up to and including the EOF token. A scan error ends the 
+     * batch it occurs in.
+     */
+    private static class ScanStage implements Callable<Void>
+    {
+        /**
+         * Instance variables
+         */
+        private TokenSource source;
+        private RingBuffer<TokenBatch> out;
+        
+        /**
+         * Constructs a ScanStage object.
+         * @param s the source to scan
+         * @param o the queue to the parse stage
+         * @postcondition The instance fields are set to the given 
+         *                values.
+         */
+        ScanStage(TokenSource s, RingBuffer<TokenBatch> o)
+        {
+            source = s;
+            out = o;
+        }
+        
+        /**
+         * Scans the whole source.
+         * @return null
+         * @throws InterruptedException if another stage failed
+         */
+        public Void call() throws InterruptedException
+        {
+            boolean done = false;
+            
+            while (!done)
+            {
+                TokenBatch batch = new TokenBatch();
+                
+                while (!done && batch.error == null
+                    && batch.count < BATCH_SIZE)
+                {
+                    try
+                    {
+                        Token t = source.next();
+                        
+                        batch.tokens[batch.count++] = t;
+                        done = t.getKind() == TokenKind.EOF;
+                    }
+                    catch (ScanErrorException e)
+                    {
+                        batch.error = e;
+                    }
+                }
+                
+                out.put(batch);
+            }
+            
+            return null;
+        }
+    }
+    
+    /**
+     * QueueSource is the TokenSource the parse stage reads, which hands 
+     * out the tokens of each batch from the scan stage in turn and then 
+     * throws the error that ended the batch, if any.
+     */
+    private static class QueueSource implements TokenSource
+    {
+        /**
+         * Instance variables
+         */
+        private RingBuffer<TokenBatch> in;
+        private TokenBatch batch;
+        private int index;
+        private Token eof;
+        
+        /**
+         * Constructs a QueueSource object.
+         * @param i the queue from the scan stage
+         * @postcondition The instance field in is set to i, and no 
+         *                batch has been taken.
+         */
+        QueueSource(RingBuffer<TokenBatch> i)
+        {
+            in = i;
+            batch = null;
+            index = 0;
+            eof = null;
+        }
+        
+        /**
+         * Gets the next token.
+         * @return the next token, or the EOF token once it has been 
+         *         reached
+         * @throws ScanErrorException if the next token could not be 
+         *                            scanned
+         * @throws IllegalStateException if the parse stage is 
+         *                               interrupted
+         */
+        public Token next() throws ScanErrorException
+        {
+            if (eof != null)
+            {
+                return eof;
+            }
+            
+            if (batch != null && index == batch.count
+                && batch.error != null)
+            {
+                ScanErrorException e = batch.error;
+                
+                batch = null;
+                throw e;
+            }
+            
+            if (batch == null || index == batch.count)
+            {
+                try
+                {
+                    batch = in.take();
+                    index = 0;
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    
+                    throw new IllegalStateException("Parsing interrupted", 
+                        e);
+                }
+                
+                return next();
+            }
+            
+            Token t = batch.tokens[index++];
+            
+            if (t.getKind() == TokenKind.EOF)
+            {
+                eof = t;
+            }
+            
+            return t;
+        }
+    }
+    
+    /**
+     * QueueSink is the CodeSink the parse stage hands the parts of the 
+     * program to, which passes them on to the emit stage.
+     */
+    private static class QueueSink implements CodeSink
+    {
+        /**
+         * Instance variable
+         */
+        private RingBuffer<Part> out;
+        
+        /**
+         * Constructs a QueueSink object.
+         * @param o the queue to the emit stage
+         * @postcondition The instance field out is set to o.
+         */
+        QueueSink(RingBuffer<Part> o)
+        {
+            out = o;
+        }
+        
+        /**
+         * Passes on the start of the program.
+         * @param globals the symbol ids of the global variables
+         * @throws InterruptedException if another stage failed
+         */
+        public void start(int[] globals) throws InterruptedException
+        {
+            out.put(new Part(START, globals));
+        }
+        
+        /**
+         * Passes on a statement of the main block.
+         * @param s the given statement
+         * @throws InterruptedException if another stage failed
+         */
+        public void statement(Statement s) throws InterruptedException
+        {
+            out.put(new Part(STATEMENT, s));
+        }
+        
+        /**
+         * Passes on the end of the main block.
+         * @throws InterruptedException if another stage failed
+         */
+        public void exit() throws InterruptedException
+        {
+            out.put(new Part(EXIT, null));
+        }
+        
+        /**
+         * Passes on a procedure whose body has been parsed.
+         * @param pd the given procedure
+         * @throws InterruptedException if another stage failed
+         */
+        public void procedure(ProcedureDeclaration pd)
+            throws InterruptedException
+        {
+            out.put(new Part(PROCEDURE, pd));
+        }
+    }
+    
+    /**
+     * ParseStage parses the tokens from the scan stage and hands each 
+     * part of the program to the emit stage, followed by an END marker.
+     */
+    private static class ParseStage implements Callable<Void>
+    {
+        /**
+         * Instance variables
+         */
+        private RingBuffer<TokenBatch> in;
+        private Diagnostics diagnostics;
+        private RingBuffer<Part> out;
+        
+        /**
+         * Constructs a ParseStage object.
+         * @param i the queue from the scan stage
+         * @param d the diagnostics to record syntax errors in, or null
+         * @param o the queue to the emit stage
+         * @postcondition The instance fields are set to the given 
+         *                values.
+         */
+        ParseStage(RingBuffer<TokenBatch> i, Diagnostics d, 
+            RingBuffer<Part> o)
+        {
+            in = i;
+            diagnostics = d;
+            out = o;
+        }
+        
+        /**
+         * Parses the whole program.
+         * @return null
+         * @throws Exception if the program is not valid, or another 
+         *                   stage failed
+         */
+        public Void call() throws Exception
+        {
+            Parser parser = new Parser(new QueueSource(in), diagnostics);
+            
+            parser.compileProgram(new QueueSink(out));
+            out.put(new Part(END, null));
+            
+            return null;
+        }
+    }
+    
+    /**
+     * EmitStage writes the code of each part from the parse stage until 
+     * the END marker.
+     */
+    private static class EmitStage implements Callable<Void>
+    {
+        /**
+         * Instance variables
+         */
+        private RingBuffer<Part> in;
+        private String filename;
+        
+        /**
+         * Constructs an EmitStage object.
+         * @param i the queue from the parse stage
+         * @param f the name of the file to write
+         * @postcondition The instance fields are set to the given 
+         *                values.
+         */
+        EmitStage(RingBuffer<Part> i, String f)
+        {
+            in = i;
+            filename = f;
+        }
+        
+        /**
+         * Writes the code of the whole program.
+         * @return null
+         * @throws InterruptedException if another stage failed
+         */
+        public Void call() throws InterruptedException
+        {
+            Emitter e = new Emitter(filename);
+            EmitterSink sink = new EmitterSink(e);
+            
+            try
+            {
+                Part p = in.take();
+                
+                while (p.kind != END)
+                {
+                    if (p.kind == START)
+                    {
+                        sink.start((int[]) p.node);
+                    }
+                    else if (p.kind == STATEMENT)
+                    {
+                        sink.statement((Statement) p.node);
+                    }
+                    else if (p.kind == EXIT)
+                    {
+                        sink.exit();
+                    }
+                    else
+                    {
+                        sink.procedure((ProcedureDeclaration) p.node);
+                    }
+                    
+                    p = in.take();
+                }
+            }
+            finally
+            {
+                e.close();
+            }
+            
+            return null;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package parser;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * RingBuffer is a bounded queue between exactly one producer thread and 
+ * one consumer thread. It is lock-free: the producer only advances the 
+ * tail index and the consumer only advances the head index, and each 
+ * side keeps the last value it read of the other side's index, so it 
+ * only reads it again when the buffer looks full or empty. 
+ * A producer that finds the buffer full waits for the consumer, which 
+ * holds back a stage that runs ahead, and a consumer that finds it 
+ * empty waits for the producer. A waiting thread spins briefly, then 
+ * yields, then parks for short spells. A wait ends with an 
+ * InterruptedException if the waiting thread is interrupted, which is 
+ * how a failed stage stops the others.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * @param <T> the type of the items
+ * Usage: RingBuffer<Token[]> ring = new RingBuffer<Token[]>(64);
+ *        ring.put(<item>);            (on the producer thread)
+ *        Token[] item = ring.take();  (on the consumer thread)
+ */
+class RingBuffer<T>
+{
+    /**
+     * The number of rounds a waiting thread spins, and then yields, 
+     * before it parks, and how long it parks for, in nanoseconds
+     */
+    private static final int SPIN_ROUNDS = 128;
+    private static final int YIELD_ROUNDS = 256;
+    private static final long PARK_NANOS = 20000;
+    
+    /**
+     * Instance variables
+     */
+    private final Object[] slots;
+    private final int mask;
+    private final AtomicLong head;
+    private final AtomicLong tail;
+    private long knownHead;
+    private long knownTail;
+    
+    /**
+     * Constructs an empty RingBuffer object that holds at least the 
+     * given number of items.
+     * @param capacity the given number, which must be positive
+     * @postcondition The instance field slots has room for capacity 
+     *                items, rounded up to a power of two.
+     *              - The head and tail indexes are 0.
+     */
+    RingBuffer(int capacity)
+    {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        
+        slots = new Object[size];
+        mask = size - 1;
+        head = new AtomicLong();
+        tail = new AtomicLong();
+        knownHead = 0;
+        knownTail = 0;
+    }
+    
+    /**
+     * Adds an item at the tail, waiting while the buffer is full. Only 
+     * the producer thread may call this.
+     * @param item the given item
+     * @throws InterruptedException if the thread is interrupted while 
+     *                              it waits
+     * @postcondition item is published to the consumer.
+     */
+    void put(T item) throws InterruptedException
+    {
+        long t = tail.get();
+        int round = 0;
+        
+        while (t - knownHead == slots.length)
+        {
+            knownHead = head.get();
+            
+            if (t - knownHead == slots.length)
+            {
+                backOff(round++);
+            }
+        }
+        
+        slots[(int) t & mask] = item;
+        tail.lazySet(t + 1);
+    }
+    
+    /**
+     * Removes the item at the head, waiting while the buffer is empty. 
+     * Only the consumer thread may call this.
+     * @return the item at the head
+     * @throws InterruptedException if the thread is interrupted while 
+     *                              it waits
+     * @postcondition The slot of the item is free for the producer.
+     */
+    @SuppressWarnings("unchecked")
+    T take() throws InterruptedException
+    {
+        long h = head.get();
+        int round = 0;
+        
+        while (h == knownTail)
+        {
+            knownTail = tail.get();
+            
+            if (h == knownTail)
+            {
+                backOff(round++);
+            }
+        }
+        
+        int slot = (int) h & mask;
+        T item = (T) slots[slot];
+        
+        slots[slot] = null;
+        head.lazySet(h + 1);
+        
+        return item;
+    }
+    
+    /**
+     * Waits a little before the given round of checking again.
+     * @param round the number of rounds waited so far
+     * @throws InterruptedException if the thread has been interrupted
+     */
+    private static void backOff(int round) throws InterruptedException
+    {
+        if (Thread.interrupted())
+        {
+            throw new InterruptedException();
+        }
+        
+        if (round < SPIN_ROUNDS)
+        {
+            Thread.onSpinWait();
+        }
+        else if (round < YIELD_ROUNDS)
+        {
+            Thread.yield();
+        }
+        else
+        {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+}
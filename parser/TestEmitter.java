@@ -1,7 +1,9 @@
 package parser;
+import ast.ExpressionFactory;
 import ast.Program;
 import environment.Environment;
 import scanner.Scanner;
+import java.nio.file.Paths;
 import java.io.*;
 
 public class TestEmitter
@@ -18,12 +20,40 @@ public class TestEmitter
         
         Scanner scanner = new Scanner(fis);
         
-        Parser parser = new Parser(scanner);
+        Diagnostics diagnostics = new Diagnostics();
+        
+        if (System.getProperty("pipeline") != null)
+        {
+            new PipelinedCompiler().compile(scanner, diagnostics, 
+                outputFileName);
+            System.err.print(diagnostics);
+            return;
+        }
+        
+        Parser parser = new Parser(scanner, diagnostics);
+        String cache = System.getProperty("astcache");
+        
+        if (cache != null)
+        {
+            parser.setCache(new AstCache( 
+                Paths.get(cache.isEmpty() ? ".astcache" : cache)));
+        }
+        
+        if (System.getProperty("hashcons") != null)
+        {
+            parser.setFactory(new ExpressionFactory());
+        }
         
         Environment environment = new Environment(null);
         
         Program program = parser.parseProgram();
         
+        if (diagnostics.size() > 0)
+        {
+            System.err.print(diagnostics);
+            return;
+        }
+        
         program.compile(outputFileName);
     }
 }
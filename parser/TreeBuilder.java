@@ -0,0 +1,163 @@
+package parser;
+import scanner.TokenKind;
+
+/**
+ * TreeBuilder builds the nodes of a program for the Parser as it 
+ * parses, so that a single grammar can build either a tree of node 
+ * objects or a FlatTree. The parser calls it in postfix order: each 
+ * node is built only after the nodes it is made of, and the builder 
+ * keeps the nodes that are not yet part of another node on a stack of 
+ * its own. Each method takes the nodes it is made of off the top of 
+ * that stack, the last of them on top, and pushes the node it builds. 
+ * Every position is the packed position of the first token of the 
+ * node, or of its operator for a binary operation or a condition.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: Scanner scanner = new Scanner(<source>);
+ *        FlatTreeBuilder builder = 
+ *            new FlatTreeBuilder(scanner.getSource());
+ *        new Parser(scanner).parseProgram(builder);
+ *        FlatTree tree = builder.getTree();
+ */
+public interface TreeBuilder
+{
+    /**
+     * Gets the number of nodes on the stack.
+     * @return the height of the stack
+     */
+    int size();
+    
+    /**
+     * Discards the nodes on top of the stack, as after a syntax error.
+     * @param count the number of nodes to discard
+     * @postcondition The stack is count nodes lower.
+     */
+    void pop(int count);
+    
+    /**
+     * Builds an integer.
+     * @param value the value of the integer
+     * @param pos the packed position of the integer
+     * @postcondition The integer is pushed.
+     */
+    void number(int value, long pos);
+    
+    /**
+     * Builds a variable.
+     * @param name the symbol id of the name of the variable
+     * @param pos the packed position of the variable
+     * @postcondition The variable is pushed.
+     */
+    void variable(int name, long pos);
+    
+    /**
+     * Builds a binary operation out of the two expressions on top of 
+     * the stack.
+     * @param op PLUS, MINUS, TIMES or DIVIDE
+     * @param pos the packed position of the operator
+     * @postcondition The two expressions are replaced by the operation.
+     */
+    void binOp(TokenKind op, long pos);
+    
+    /**
+     * Builds the negation of the expression on top of the stack, which 
+     * is the same as subtracting it from 0.
+     * @param pos the packed position of the minus sign
+     * @postcondition The expression is replaced by its negation.
+     */
+    void negate(long pos);
+    
+    /**
+     * Builds a procedure call out of the arguments on top of the stack.
+     * @param name the symbol id of the name of the procedure
+     * @param count the number of arguments
+     * @param pos the packed position of the name of the procedure
+     * @postcondition The arguments are replaced by the call.
+     */
+    void call(int name, int count, long pos);
+    
+    /**
+     * Builds a condition out of the two expressions on top of the 
+     * stack.
+     * @param relop EQUALS, NOT_EQUALS, LESS, GREATER, LESS_EQUALS or 
+     *              GREATER_EQUALS
+     * @param pos the packed position of the operator
+     * @postcondition The two expressions are replaced by the condition.
+     */
+    void condition(TokenKind relop, long pos);
+    
+    /**
+     * Builds a WRITELN statement out of the expression on top of the 
+     * stack.
+     * @param pos the packed position of the statement
+     * @postcondition The expression is replaced by the statement.
+     */
+    void writeln(long pos);
+    
+    /**
+     * Builds a WRITELNTIMES statement out of the expression and the 
+     * count on top of the stack.
+     * @param pos the packed position of the statement
+     * @postcondition The expression and the count are replaced by the 
+     *                statement.
+     */
+    void writelnTimes(long pos);
+    
+    /**
+     * Builds an assignment of the expression on top of the stack.
+     * @param name the symbol id of the name of the variable
+     * @param pos the packed position of the statement
+     * @postcondition The expression is replaced by the statement.
+     */
+    void assignment(int name, long pos);
+    
+    /**
+     * Builds a BEGIN/END block out of the statements on top of the 
+     * stack.
+     * @param count the number of statements
+     * @param pos the packed position of the block
+     * @postcondition The statements are replaced by the block.
+     */
+    void block(int count, long pos);
+    
+    /**
+     * Builds an IF statement out of the condition and the statement on 
+     * top of the stack.
+     * @param pos the packed position of the statement
+     * @postcondition The condition and the statement are replaced by 
+     *                the IF statement.
+     */
+    void ifStatement(long pos);
+    
+    /**
+     * Builds a WHILE loop out of the condition and the statement on top 
+     * of the stack.
+     * @param pos the packed position of the loop
+     * @postcondition The condition and the statement are replaced by 
+     *                the loop.
+     */
+    void whileLoop(long pos);
+    
+    /**
+     * Builds a procedure declaration whose body is the statement on top 
+     * of the stack.
+     * @param name the symbol id of the name of the procedure
+     * @param parameters the symbol ids of the parameters
+     * @param locals the symbol ids of the local variables
+     * @param pos the packed position of the declaration
+     * @postcondition The body is replaced by the declaration.
+     */
+    void procedure(int name, int[] parameters, int[] locals, long pos);
+    
+    /**
+     * Builds a program out of the procedure declarations on the stack 
+     * and the statement on top of them.
+     * @param globals the symbol ids of the global variables
+     * @param count the number of procedure declarations
+     * @param pos the packed position of the program
+     * @postcondition The declarations and the statement are replaced by 
+     *                the program, or only popped if the builder keeps 
+     *                no node for the program itself.
+     */
+    void program(int[] globals, int count, long pos);
+}
@@ -0,0 +1,309 @@
+package scanner;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * ParallelLexer scans a large source on several threads at once. The 
+ * buffer is cut into chunks just after a newline, and every chunk is 
+ * scanned by a Scanner of its own on a ForkJoinPool. The tokens of all 
+ * chunks are then joined into one TokenList for the Parser.
+ * Cutting after a newline is what makes the chunks independent: a // 
+ * comment always ends at the newline, so every chunk begins in the 
+ * start state with no comment open, exactly as the one Scanner would 
+ * be at that point. The newlines of every chunk are counted first, so 
+ * each Scanner also knows the line at which its chunk begins.
+ * A '.' outside a comment still ends the program: the tokens of the 
+ * first chunk that stops at a '.' are the last ones kept. Scan errors 
+ * are kept in place in the TokenList and thrown when the Parser reaches 
+ * them. Identifiers are interned in the global SymbolTable from several 
+ * threads, so their ids do not follow the order of the source.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: ParallelLexer lexer = new ParallelLexer();
+ *        TokenList tokens = lexer.lex(<buffer>);
+ *        Parser parser = new Parser(tokens);
+ */
+public class ParallelLexer
+{
+    /**
+     * The smallest chunk worth handing to a thread, in bytes
+     */
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+    
+    /**
+     * The number of chunks per thread, so that a thread that finishes 
+     * early can take over work
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+    
+    /**
+     * Instance variable
+     */
+    private ForkJoinPool pool;
+    
+    /**
+     * Constructs a ParallelLexer object that runs on the common pool.
+     * @postcondition The instance field pool is set to the common pool.
+     */
+    public ParallelLexer()
+    {
+        this(ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Constructs a ParallelLexer object that runs on the given pool.
+     * @param p the given pool
+     * @postcondition The instance field pool is set to p.
+     */
+    public ParallelLexer(ForkJoinPool p)
+    {
+        pool = p;
+    }
+    
+    /**
+     * Scans the given buffer, which holds one byte per character.
+     * @param source the given buffer
+     * @return a TokenList object holding every token of source up to 
+     *         and including the EOF token
+     */
+    public TokenList lex(byte[] source)
+    {
+        int[] bounds = split(source);
+        int chunks = bounds.length - 1;
+        
+        if (chunks == 1)
+        {
+            return TokenList.scan(new Scanner(source));
+        }
+        
+        List<Callable<Integer>> counts = new ArrayList<Callable<Integer>>();
+        
+        for (int i = 0; i < chunks; i++)
+        {
+            counts.add(new CountTask(source, bounds[i], bounds[i + 1]));
+        }
+        
+        List<Integer> newlines = runAll(counts);
+        
+        List<ScanTask> scans = new ArrayList<ScanTask>();
+        int line = 1;
+        
+        for (int i = 0; i < chunks; i++)
+        {
+            scans.add(new ScanTask(source, bounds[i], bounds[i + 1], 
+                line));
+            line += newlines.get(i);
+        }
+        
+        List<TokenList> lists = runAll(scans);
+        
+        int total = 1;
+        
+        for (TokenList list : lists)
+        {
+            total += list.size();
+        }
+        
+        TokenList result = new TokenList(total);
+        
+        for (int i = 0; i < chunks; i++)
+        {
+            TokenList list = lists.get(i);
+            
+            result.addAllButEof(list);
+            
+            if (scans.get(i).stoppedAtDot() || i == chunks - 1)
+            {
+                result.add(list.get(list.size() - 1));
+                
+                return result;
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Cuts the given buffer into chunks, each ending just after a 
+     * newline or at the end of the buffer.
+     * @param source the given buffer
+     * @return the offsets at which the chunks begin, followed by the 
+     *         length of source
+     */
+    private int[] split(byte[] source)
+    {
+        int n = source.length;
+        int size = Math.max(MIN_CHUNK_SIZE, 
+            n / (pool.getParallelism() * CHUNKS_PER_THREAD));
+        
+        List<Integer> bounds = new ArrayList<Integer>();
+        int from = 0;
+        
+        bounds.add(0);
+        
+        while (from < n)
+        {
+            int to = from + size;
+            
+            if (to >= n)
+            {
+                to = n;
+            }
+            else
+            {
+                while (to < n && source[to - 1] != '\n')
+                {
+                    to++;
+                }
+            }
+            
+            bounds.add(to);
+            from = to;
+        }
+        
+        if (bounds.size() == 1)
+        {
+            bounds.add(0);
+        }
+        
+        int[] result = new int[bounds.size()];
+        
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = bounds.get(i);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Runs the given tasks on the pool and waits for all of them.
+     * @param <T> the result type of the tasks
+     * @param tasks the given tasks
+     * @return the results of the tasks, in order
+     * @throws RuntimeException if a task fails or the wait is 
+     *                          interrupted
+     */
+    private <T> List<T> runAll(List<? extends Callable<T>> tasks)
+    {
+        List<T> results = new ArrayList<T>();
+        
+        try
+        {
+            for (Future<T> f : pool.invokeAll(tasks))
+            {
+                results.add(f.get());
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            
+            throw new RuntimeException("Lexing interrupted", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            
+            throw new RuntimeException(e.getCause());
+        }
+        
+        return results;
+    }
+    
+    /**
+     * CountTask counts the newlines in one chunk.
+     */
+    private static class CountTask implements Callable<Integer>
+    {
+        /**
+         * Instance variables
+         */
+        private byte[] buf;
+        private int from;
+        private int to;
+        
+        /**
+         * Constructs a CountTask object for the given chunk.
+         * @param b the buffer
+         * @param f the offset at which the chunk begins
+         * @param t the offset just past the end of the chunk
+         * @postcondition The instance fields are set to the given 
+         *                values.
+         */
+        CountTask(byte[] b, int f, int t)
+        {
+            buf = b;
+            from = f;
+            to = t;
+        }
+        
+        /**
+         * Counts the newlines in the chunk.
+         * @return the number of '\n' characters in the chunk
+         */
+        public Integer call()
+        {
+            int count = 0;
+            
+            for (int i = from; i < to; i++)
+            {
+                if (buf[i] == '\n')
+                {
+                    count++;
+                }
+            }
+            
+            return count;
+        }
+    }
+    
+    /**
+     * ScanTask scans one chunk into a TokenList.
+     */
+    private static class ScanTask implements Callable<TokenList>
+    {
+        /**
+         * Instance variables
+         */
+        private Scanner scanner;
+        
+        /**
+         * Constructs a ScanTask object for the given chunk.
+         * @param b the buffer
+         * @param f the offset at which the chunk begins
+         * @param t the offset just past the end of the chunk
+         * @param line the line number of the first line of the chunk
+         * @postcondition The instance field scanner covers the chunk.
+         */
+        ScanTask(byte[] b, int f, int t, int line)
+        {
+            scanner = new Scanner(b, f, t, Position.pack(line, 1));
+        }
+        
+        /**
+         * Scans the chunk.
+         * @return the tokens of the chunk, ending with an EOF token
+         */
+        public TokenList call()
+        {
+            return TokenList.scan(scanner);
+        }
+        
+        /**
+         * Checks whether the chunk ended at a '.' before its end.
+         * @return true if the scanner stopped at a '.', false otherwise
+         */
+        boolean stoppedAtDot()
+        {
+            return scanner.stoppedAtDot();
+        }
+    }
+}
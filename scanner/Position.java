@@ -0,0 +1,74 @@
+package scanner;
+
+/**
+ * Position packs a line and a column of the source into one long, so 
+ * that a token or AST node can carry its location in a single field. 
+ * The line is kept in the high 32 bits and the column in the low 32 
+ * bits; both count from 1.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: long pos = Position.pack(<line>, <column>);
+ *        int line = Position.line(pos);
+ *        String where = Position.toString(pos);
+ */
+public final class Position
+{
+    /**
+     * The position of something that does not come from the source
+     */
+    public static final long UNKNOWN = 0;
+    
+    /**
+     * Position only has static methods.
+     */
+    private Position()
+    {
+    }
+    
+    /**
+     * Packs the given line and column.
+     * @param line the given line, counting from 1
+     * @param column the given column, counting from 1
+     * @return the packed position
+     */
+    public static long pack(int line, int column)
+    {
+        return (long) line << 32 | column & 0xFFFFFFFFL;
+    }
+    
+    /**
+     * Gets the line of the given position.
+     * @param pos the given packed position
+     * @return the line, counting from 1
+     */
+    public static int line(long pos)
+    {
+        return (int) (pos >>> 32);
+    }
+    
+    /**
+     * Gets the column of the given position.
+     * @param pos the given packed position
+     * @return the column, counting from 1
+     */
+    public static int column(long pos)
+    {
+        return (int) pos;
+    }
+    
+    /**
+     * Formats the given position for a diagnostic.
+     * @param pos the given packed position
+     * @return a string of the form "line L, column C", or "unknown 
+     *         position" for UNKNOWN
+     */
+    public static String toString(long pos)
+    {
+        if (pos == UNKNOWN)
+        {
+            return "unknown position";
+        }
+        
+        return "line " + line(pos) + ", column " + column(pos);
+    }
+}
@@ -11,12 +11,18 @@ package scanner;
  */
 public class ScanErrorException extends Exception
 {
+    /**
+     * Instance variable
+     */
+    private long position;
+    
     /**
      * Default constructor for ScanErrorException objects.
      */
     public ScanErrorException()
     {
         super();
+        position = -1;
     }
     
     /**
@@ -27,5 +33,44 @@ public class ScanErrorException extends Exception
     public ScanErrorException(String reason)
     {
         super(reason);
+        position = -1;
+    }
+    
+    /**
+     * Constructor for ScanErrorException objects that includes an 
+     * error message and the source position at which the error was 
+     * found.
+     * @param reason the error message
+     * @param pos the packed line and column of the error
+     */
+    public ScanErrorException(String reason, long pos)
+    {
+        super(reason + " at " + Position.toString(pos));
+        position = pos;
+    }
+    
+    /**
+     * Constructor for ScanErrorException objects that includes an 
+     * error message and the source position at which the error was 
+     * found, and that may skip capturing a stack trace.
+     * @param reason the error message
+     * @param pos the packed line and column of the error
+     * @param stackTrace whether to capture a stack trace
+     */
+    public ScanErrorException(String reason, long pos, boolean stackTrace)
+    {
+        super(reason + " at " + Position.toString(pos), null, true, 
+            stackTrace);
+        position = pos;
+    }
+    
+    /**
+     * Gets the source position at which the error was found.
+     * @return the packed line and column of the error, or -1 if it is 
+     *         not known
+     */
+    public long getPosition()
+    {
+        return position;
     }
 }
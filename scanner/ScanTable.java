@@ -0,0 +1,257 @@
+package scanner;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * ScanTable holds the transition table of the deterministic finite
+ * automaton that drives the Scanner. Every input byte is first mapped
+ * to a character class, and the next state is then a single lookup in
+ * NEXT at (state + class). States are numbered by the offset of their
+ * row in NEXT, so no multiplication is needed. A negative entry means
+ * that the current state is final for the character at hand, and
+ * ACCEPT, indexed by state / CLASS_COUNT, gives the kind of token
+ * recognized in that state.
+ * The states for operators are generated from the fixed lexemes in
+ * TokenKind, so adding an operator there is enough to scan it.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ */
+final class ScanTable
+{
+    /**
+     * Row numbers of the fixed states. START also skips whitespace, and
+     * COMMENT skips the rest of a line after //. Operator rows are
+     * numbered from FIRST_OPERATOR on.
+     */
+    private static final int START_ROW = 0;
+    private static final int COMMENT_ROW = 1;
+    private static final int IDENTIFIER_ROW = 2;
+    private static final int NUMBER_ROW = 3;
+    private static final int BAD_NUMBER_ROW = 4;
+    private static final int UNKNOWN_ROW = 5;
+    private static final int FIRST_OPERATOR = 6;
+    
+    /**
+     * Fixed character classes. Every operator character gets a class
+     * of its own numbered from FIRST_OPERATOR_CLASS on.
+     */
+    static final int C_LETTER = 0;
+    static final int C_DIGIT = 1;
+    static final int C_SPACE = 2;
+    static final int C_NEWLINE = 3;
+    static final int C_DOT = 4;
+    static final int C_OTHER = 5;
+    static final int C_END = 6;
+    private static final int FIRST_OPERATOR_CLASS = 7;
+    
+    /**
+     * The entry in NEXT for a character that ends the current token
+     */
+    static final int STOP = -1;
+    
+    /**
+     * The character class of every byte value
+     */
+    static final byte[] CLASS = new byte[256];
+    
+    /**
+     * The number of character classes, which is the width of a row of
+     * NEXT
+     */
+    static final int CLASS_COUNT;
+    
+    /**
+     * The transition table
+     */
+    static final int[] NEXT;
+    
+    /**
+     * The fixed states, as offsets into NEXT
+     */
+    static final int START;
+    static final int COMMENT;
+    static final int IDENTIFIER;
+    static final int NUMBER;
+    static final int BAD_NUMBER;
+    static final int UNKNOWN;
+    
+    /**
+     * The kind of token recognized in each state, or null if stopping
+     * in that state is an error
+     */
+    static final TokenKind[] ACCEPT;
+    
+    static
+    {
+        Arrays.fill(CLASS, (byte) C_OTHER);
+        
+        for (int c = 0; c < 128; c++)
+        {
+            if (Scanner.isLetter((char) c))
+            {
+                CLASS[c] = C_LETTER;
+            }
+            else if (Scanner.isDigit((char) c))
+            {
+                CLASS[c] = C_DIGIT;
+            }
+            else if (c == '\n')
+            {
+                CLASS[c] = C_NEWLINE;
+            }
+            else if (Scanner.isWhiteSpace((char) c))
+            {
+                CLASS[c] = C_SPACE;
+            }
+        }
+        
+        CLASS['.'] = C_DOT;
+        
+        int classCount = FIRST_OPERATOR_CLASS;
+        
+        List<int[]> rows = new ArrayList<int[]>();
+        List<TokenKind> accepts = new ArrayList<TokenKind>();
+        
+        for (int row = 0; row < FIRST_OPERATOR; row++)
+        {
+            rows.add(null);
+            accepts.add(null);
+        }
+        
+        accepts.set(START_ROW, TokenKind.EOF);
+        accepts.set(COMMENT_ROW, TokenKind.EOF);
+        accepts.set(IDENTIFIER_ROW, TokenKind.IDENTIFIER);
+        accepts.set(NUMBER_ROW, TokenKind.NUMBER);
+        
+        List<String> lexemes = new ArrayList<String>();
+        
+        for (TokenKind kind : TokenKind.values())
+        {
+            String s = kind.getLexeme();
+            
+            if (s != null && !kind.isKeyword() && kind != TokenKind.EOF)
+            {
+                lexemes.add(s);
+                
+                for (int i = 0; i < s.length(); i++)
+                {
+                    if (CLASS[s.charAt(i)] == C_OTHER)
+                    {
+                        CLASS[s.charAt(i)] = (byte) classCount;
+                        classCount++;
+                    }
+                }
+            }
+        }
+        
+        CLASS_COUNT = classCount;
+        
+        for (int row = 0; row < FIRST_OPERATOR; row++)
+        {
+            rows.set(row, newRow());
+        }
+        
+        for (TokenKind kind : TokenKind.values())
+        {
+            String s = kind.getLexeme();
+            
+            if (lexemes.contains(s))
+            {
+                int state = START_ROW;
+                
+                for (int i = 0; i < s.length(); i++)
+                {
+                    int[] row = rows.get(state);
+                    int cls = CLASS[s.charAt(i)];
+                    
+                    if (row[cls] == STOP)
+                    {
+                        row[cls] = rows.size();
+                        rows.add(newRow());
+                        accepts.add(null);
+                    }
+                    
+                    state = row[cls];
+                }
+                
+                accepts.set(state, kind);
+            }
+        }
+        
+        int[] start = rows.get(START_ROW);
+        
+        start[C_LETTER] = IDENTIFIER_ROW;
+        start[C_DIGIT] = NUMBER_ROW;
+        start[C_SPACE] = START_ROW;
+        start[C_NEWLINE] = START_ROW;
+        start[C_OTHER] = UNKNOWN_ROW;
+        
+        int[] comment = rows.get(COMMENT_ROW);
+        
+        Arrays.fill(comment, COMMENT_ROW);
+        comment[C_NEWLINE] = START_ROW;
+        comment[C_END] = STOP;
+        
+        int slash = start[CLASS['/']];
+        
+        rows.get(slash)[CLASS['/']] = COMMENT_ROW;
+        
+        rows.get(IDENTIFIER_ROW)[C_LETTER] = IDENTIFIER_ROW;
+        rows.get(IDENTIFIER_ROW)[C_DIGIT] = IDENTIFIER_ROW;
+        rows.get(NUMBER_ROW)[C_DIGIT] = NUMBER_ROW;
+        rows.get(NUMBER_ROW)[C_LETTER] = BAD_NUMBER_ROW;
+        rows.get(BAD_NUMBER_ROW)[C_LETTER] = BAD_NUMBER_ROW;
+        rows.get(BAD_NUMBER_ROW)[C_DIGIT] = BAD_NUMBER_ROW;
+        
+        NEXT = new int[rows.size() * CLASS_COUNT];
+        
+        for (int state = 0; state < rows.size(); state++)
+        {
+            int[] row = rows.get(state);
+            
+            for (int cls = 0; cls < CLASS_COUNT; cls++)
+            {
+                if (row[cls] == STOP)
+                {
+                    NEXT[state * CLASS_COUNT + cls] = STOP;
+                }
+                else
+                {
+                    NEXT[state * CLASS_COUNT + cls] = 
+                            row[cls] * CLASS_COUNT;
+                }
+            }
+        }
+        
+        ACCEPT = accepts.toArray(new TokenKind[0]);
+        
+        START = START_ROW * CLASS_COUNT;
+        COMMENT = COMMENT_ROW * CLASS_COUNT;
+        IDENTIFIER = IDENTIFIER_ROW * CLASS_COUNT;
+        NUMBER = NUMBER_ROW * CLASS_COUNT;
+        BAD_NUMBER = BAD_NUMBER_ROW * CLASS_COUNT;
+        UNKNOWN = UNKNOWN_ROW * CLASS_COUNT;
+    }
+    
+    /**
+     * Makes a row of the transition table in which every character
+     * ends the token.
+     * @return a new row filled with STOP
+     */
+    private static int[] newRow()
+    {
+        int[] row = new int[CLASS_COUNT];
+        
+        Arrays.fill(row, STOP);
+        
+        return row;
+    }
+    
+    /**
+     * ScanTable only holds static tables.
+     */
+    private ScanTable()
+    {
+    }
+}
@@ -1,25 +1,85 @@
 package scanner;
 import java.io.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 /**
  * Scanner is a simple scanner for Compilers and Interpreters 
  * lab exercise 1.
+ * The whole source is loaded into a byte buffer up front, one byte per 
+ * character, and tokens refer to their lexemes as offset/length spans 
+ * of that buffer instead of copying them. Tokens are recognized by the 
+ * table-driven automaton in ScanTable, so each character costs one 
+ * class lookup and one transition lookup. The current line and the 
+ * offset at which it starts are only updated on a newline, and every 
+ * token carries its line and column packed as described in Position.
+ * Runs of whitespace and whole // comments are skipped eight bytes at a 
+ * time before the automaton is entered, since machine-generated sources 
+ * are mostly indentation and comments.
+ * A Scanner may also cover just a range of lines of a buffer, which is 
+ * how the ParallelLexer hands out chunks of one large source.
  * @author Ms. Datar
  * @author Daniel Wang
  * @version January 30, 2020
  * Usage: FileInputStream inStream = 
  *            new FileInputStream(new File(<file name>);
  *        Scanner scanner = new Scanner(inStream);
- *        String nextToken = scanner.nextToken();
+ *        Token nextToken = scanner.next();
  */
-public class Scanner
+public class Scanner implements TokenSource
 {
+    /**
+     * The byte that stands in for any character outside ASCII
+     */
+    private static final byte NON_ASCII = (byte) 0xFF;
+    
+    /**
+     * The size of the direct buffer through which channels are read
+     */
+    private static final int BLOCK_SIZE = 1 << 16;
+    
+    /**
+     * The high bit of every byte of a long word
+     */
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    
+    /**
+     * The low seven bits of every byte of a long word
+     */
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    
+    /**
+     * A long word with every byte set to 1
+     */
+    private static final long ONES = 0x0101010101010101L;
+    
+    /**
+     * Reads eight bytes of a byte array as one long word, the first 
+     * byte in the low bits
+     */
+    private static final VarHandle LONGS = 
+            MethodHandles.byteArrayViewVarHandle(long[].class, 
+            ByteOrder.LITTLE_ENDIAN);
+    
     /**
      * Instance variables
      */
-    private BufferedReader in;
-    private char currentChar;
-    private boolean eof;
+    private byte[] buf;
+    private int start;
+    private int limit;
+    private int position;
+    private int line;
+    private int lineStart;
+    private SymbolTable symbols;
+    private SymbolCache cache;
+    private boolean stackTraces;
     
     /**
      * Constructs a Scanner object that uses the given InputStream 
@@ -28,107 +88,511 @@ public class Scanner
      *            new FileInputStream(new File(<file name>);
      *        Scanner scanner = new Scanner(inStream);
      * @param inStream the given InputStream object
-     * @postcondition The instance field in is set to a BufferedReader 
-     *                object constructed using inStream.
-     *              - The instance field eof is set to false.
-     *              - The instance field currentChar is set to the 
-     *                first character in inStream.
+     * @postcondition The instance field buf holds every character in 
+     *                inStream.
+     *              - The instance field position is set to 0.
      */
     public Scanner(InputStream inStream)
     {
-        in = new BufferedReader(new InputStreamReader(inStream));
-        eof = false;
-        getNextChar();
-        
-        if (currentChar == '.')
-        {
-            eof = true;
-        }
+        this(readSource(inStream));
+    }
+    
+    /**
+     * Constructs a Scanner object that reads the file at the given 
+     * path. The file is read straight into the buffer; it is only 
+     * decoded as UTF-8 if it holds a byte outside ASCII.
+     * Usage: Scanner scanner = new Scanner(Paths.get(<file name>));
+     * @param path the given path
+     * @throws IOException if the file cannot be read
+     * @postcondition The instance field buf holds every character in 
+     *                the file.
+     *              - The instance field position is set to 0.
+     */
+    public Scanner(Path path) throws IOException
+    {
+        this(readSource(path));
+    }
+    
+    /**
+     * Constructs a Scanner object that reads the given channel to its 
+     * end. The bytes are read straight into the buffer; they are only 
+     * decoded as UTF-8 if one of them lies outside ASCII.
+     * Usage: Scanner scanner = new Scanner(Channels.newChannel(<in>));
+     * @param channel the given channel
+     * @throws IOException if the channel cannot be read
+     * @postcondition The instance field buf holds every character in 
+     *                channel.
+     *              - The instance field position is set to 0.
+     */
+    public Scanner(ReadableByteChannel channel) throws IOException
+    {
+        this(readSource(channel, BLOCK_SIZE));
     }
     
     /**
      * Constructs a Scanner object that scans the given string.
      * Usage: Scanner scanner = new Scanner(input_string);
      * @param inString the given string
-     * @postcondition The instance field in is set to a BufferedReader 
-     *                object constructed using inString.
-     *              - The instance field eof is set to false.
-     *              - The instance field currentChar is set to the 
-     *                first character in inString.
+     * @postcondition The instance field buf holds every character in 
+     *                inString.
+     *              - The instance field position is set to 0.
      */
     public Scanner(String inString)
     {
-        in = new BufferedReader(new StringReader(inString));
-        eof = false;
-        getNextChar();
+        this(toAscii(inString));
+    }
+    
+    /**
+     * Constructs a Scanner object that scans the given buffer, which 
+     * holds one byte per character. The buffer is not copied.
+     * Usage: Scanner scanner = new Scanner(<byte array>);
+     * @param source the given buffer
+     * @postcondition The instance field buf is set to source.
+     *              - The instance field position is set to 0.
+     *              - The instance field line is set to 1.
+     */
+    public Scanner(byte[] source)
+    {
+        this(source, 0, source.length, Position.pack(1, 1));
+    }
+    
+    /**
+     * Constructs a Scanner object that scans the given range of the 
+     * given buffer. The range must begin outside any token or comment, 
+     * such as at the start of a line or of a token.
+     * Usage: Scanner scanner = new Scanner(<byte array>, <from>, <to>, 
+     *            token.getPosition());
+     * @param source the given buffer
+     * @param from the offset of the first character of the range
+     * @param to the offset just past the last character of the range
+     * @param pos the packed line and column of the character at from
+     * @postcondition The instance field buf is set to source.
+     *              - The instance fields start and position are set to 
+     *                from.
+     *              - The instance field limit is set to to.
+     *              - The instance field line is set to the line of pos.
+     *              - Scan errors capture a stack trace.
+     */
+    public Scanner(byte[] source, int from, int to, long pos)
+    {
+        buf = source;
+        start = from;
+        limit = to;
+        position = from;
+        line = Position.line(pos);
+        lineStart = from - Position.column(pos) + 1;
+        symbols = SymbolTable.getGlobal();
+        cache = new SymbolCache(source, symbols);
+        stackTraces = true;
+    }
+    
+    /**
+     * Reads every byte of the given InputStream. Pure ASCII input is 
+     * used as is; anything else is decoded as UTF-8 and narrowed to one 
+     * byte per character.
+     * @param inStream the given InputStream object
+     * @return a buffer holding one byte per character of inStream
+     */
+    private static byte[] readSource(InputStream inStream)
+    {
+        try
+        {
+            byte[] bytes = inStream.readAllBytes();
+            
+            for (byte b : bytes)
+            {
+                if (b < 0)
+                {
+                    return toAscii(new String(bytes, 
+                        StandardCharsets.UTF_8));
+                }
+            }
+            
+            return bytes;
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+            System.exit(-1);
+            
+            return null;
+        }
+    }
+    
+    /**
+     * Reads every byte of the file at the given path.
+     * @param path the given path
+     * @return a buffer holding one byte per character of the file
+     * @throws IOException if the file cannot be read or is too large 
+     *                     to fit in one buffer
+     */
+    private static byte[] readSource(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path))
+        {
+            long size = channel.size();
+            
+            if (size > Integer.MAX_VALUE - 8)
+            {
+                throw new IOException("File too large to scan - " + path);
+            }
+            
+            return readSource(channel, (int) size);
+        }
+    }
+    
+    /**
+     * Reads every byte of the given channel through a direct buffer. 
+     * Each block is checked for bytes outside ASCII eight bytes at a 
+     * time before it is copied out, so pure ASCII input never goes 
+     * through a decoder. Anything else is decoded as UTF-8 and narrowed 
+     * to one byte per character.
+     * @param channel the given channel
+     * @param sizeHint the expected number of bytes
+     * @return a buffer holding one byte per character of channel
+     * @throws IOException if the channel cannot be read
+     */
+    private static byte[] readSource(ReadableByteChannel channel, 
+            int sizeHint) throws IOException
+    {
+        ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_SIZE);
+        byte[] bytes = new byte[Math.max(sizeHint, 1)];
+        int n = 0;
+        long high = 0;
         
-        if (currentChar == '.')
+        while (channel.read(block) >= 0)
         {
-            eof = true;
+            block.flip();
+            
+            int r = block.remaining();
+            
+            high |= highBits(block);
+            
+            if (n + r > bytes.length)
+            {
+                bytes = Arrays.copyOf(bytes, 
+                    Math.max(n + r, bytes.length * 2));
+            }
+            
+            block.get(bytes, n, r);
+            block.clear();
+            n += r;
         }
+        
+        if (high != 0)
+        {
+            return toAscii(new String(bytes, 0, n, StandardCharsets.UTF_8));
+        }
+        
+        if (n != bytes.length)
+        {
+            bytes = Arrays.copyOf(bytes, n);
+        }
+        
+        return bytes;
     }
     
     /**
-     * The getNextChar method attempts to get the next character from 
-     * the BufferedReader. It sets the instance field eof to true if 
-     * the end of the BufferedReader is reached. Otherwise, it reads 
-     * the next character from the BufferedReader and stores it in the 
-     * instance field currentChar.
-     * @postcondition If the end of the BufferedReader is not reached, 
-     *                the BufferedReader is advanced one character, and 
-     *                the instance field currentChar is set to the 
-     *                character read from the BufferedReader.
-     *              - Otherwise, the instance field eof is set to true.
+     * Collects the high bits of the remaining bytes of the given block, 
+     * eight bytes at a time.
+     * @param block the given block
+     * @return 0 if every remaining byte is ASCII, nonzero otherwise
      */
-    private void getNextChar()
+    private static long highBits(ByteBuffer block)
     {
-        try
+        long acc = 0;
+        int i = block.position();
+        int end = block.limit();
+        
+        while (i + 8 <= end)
+        {
+            acc |= block.getLong(i);
+            i += 8;
+        }
+        
+        while (i < end)
         {
-            int num = in.read();
+            acc |= block.get(i);
+            i++;
+        }
+        
+        return acc & HIGH_BITS;
+    }
+    
+    /**
+     * Narrows the given string to one byte per character. Characters 
+     * outside ASCII, which are never legal outside a comment, become 
+     * the byte NON_ASCII.
+     * @param s the given string
+     * @return a buffer holding one byte per character of s
+     */
+    private static byte[] toAscii(String s)
+    {
+        int n = s.length();
+        
+        byte[] bytes = new byte[n];
+        
+        for (int i = 0; i < n; i++)
+        {
+            char c = s.charAt(i);
             
-            if (num == -1)
+            if (c < 0x80)
             {
-                eof = true;
+                bytes[i] = (byte) c;
             }
             else
             {
-                currentChar = (char) num;
+                bytes[i] = NON_ASCII;
             }
         }
-        catch (IOException e)
+        
+        return bytes;
+    }
+    
+    /**
+     * Checks whether the input is exhausted. The input ends at the end 
+     * of the buffer or at the first '.' outside a comment.
+     * @return true if the input is not exhausted, false otherwise
+     */
+    public boolean hasNext()
+    {
+        return position < limit && buf[position] != '.';
+    }
+    
+    /**
+     * Checks whether scanning stopped at a '.' rather than at the end 
+     * of the range.
+     * @return true if a '.' outside a comment was reached, false 
+     *         otherwise
+     */
+    boolean stoppedAtDot()
+    {
+        return position < limit && buf[position] == '.';
+    }
+    
+    /**
+     * Moves past the '.' at which scanning stopped, so that the next 
+     * call of next scans whatever follows it. This is how one buffer 
+     * holding several programs, each ended by a '.', is scanned one 
+     * program after another.
+     * @return true if scanning had stopped at a '.', false if it had 
+     *         reached the end of the range
+     * @postcondition If true is returned, the buffer is advanced to the 
+     *                character after the '.'.
+     */
+    public boolean skipDot()
+    {
+        if (!stoppedAtDot())
         {
-            e.printStackTrace();
-            System.exit(-1);
+            return false;
+        }
+        
+        position++;
+        
+        return true;
+    }
+    
+    /**
+     * Gets the table in which this Scanner interns identifiers, which 
+     * is the global SymbolTable.
+     * @return the instance field symbols
+     */
+    public SymbolTable getSymbolTable()
+    {
+        return symbols;
+    }
+    
+    /**
+     * Gets the buffer that tokens produced by this Scanner refer to.
+     * @return the instance field buf
+     */
+    public byte[] getSource()
+    {
+        return buf;
+    }
+    
+    /**
+     * Gets the whole input of this Scanner, from the first character 
+     * it was given up to its limit, however far it has scanned. The 
+     * buffer is not copied.
+     * @return a read-only ByteBuffer over the range of buf this 
+     *         Scanner covers
+     */
+    public ByteBuffer getInput()
+    {
+        return ByteBuffer.wrap(buf, start, limit - start).asReadOnlyBuffer();
+    }
+    
+    /**
+     * Sets whether the scan errors this scanner throws capture a stack 
+     * trace. A caller that records each error and carries on, as a 
+     * Parser with diagnostics does, has no use for the trace, and 
+     * capturing it is most of the cost of an error.
+     * @param b true to capture stack traces, false to skip them
+     * @postcondition The instance field stackTraces is set to b.
+     */
+    public void setStackTraces(boolean b)
+    {
+        stackTraces = b;
+    }
+    
+    /**
+     * Makes a token of the given kind spanning from start up to the 
+     * current position.
+     * @param kind the given kind
+     * @param start the position of the first character of the token
+     * @return a Token object of the given kind
+     */
+    private Token makeToken(TokenKind kind, int start)
+    {
+        return new Token(kind, buf, start, position - start, -1, 0, 
+            positionOf(start));
+    }
+    
+    /**
+     * Gets the packed line and column of the given offset, which must 
+     * lie on the current line.
+     * @param offset the given offset in buf
+     * @return the packed position of offset
+     */
+    private long positionOf(int offset)
+    {
+        return Position.pack(line, offset - lineStart + 1);
+    }
+    
+    /**
+     * Finds the zero bytes of the given word. Unlike the usual 
+     * subtraction trick, this never flags a byte that is not zero.
+     * @param w the given word
+     * @return a word with the high bit set in exactly the bytes of w 
+     *         that are zero
+     */
+    private static long zeroBytes(long w)
+    {
+        return ~((w & LOW_BITS) + LOW_BITS | w | LOW_BITS);
+    }
+    
+    /**
+     * Finds the bytes of the given word equal to the given character.
+     * @param w the given word
+     * @param c the given character
+     * @return a word with the high bit set in exactly the bytes of w 
+     *         equal to c
+     */
+    private static long matchBytes(long w, int c)
+    {
+        return zeroBytes(w ^ c * ONES);
+    }
+    
+    /**
+     * Counts the newlines flagged in the given mask of the word at the 
+     * given offset, and moves lineStart past the last of them.
+     * @param newlines the high bits of the newline bytes of the word
+     * @param p the offset of the word
+     * @postcondition line and lineStart account for the newlines.
+     */
+    private void countNewlines(long newlines, int p)
+    {
+        if (newlines != 0)
+        {
+            line += Long.bitCount(newlines);
+            lineStart = p + (63 - Long.numberOfLeadingZeros(newlines)) / 8
+                + 1;
         }
     }
     
     /**
-     * Calls getNextChar if the given character is equal to currentChar
-     * @param expected the given character
-     * @throws ScanErrorException if expected does not equal 
-     *                            currentChar
+     * Skips whitespace and // comments from the given offset a word at 
+     * a time. Whatever is left near the end of the range is left to the 
+     * automaton, which also handles it correctly.
+     * @param p the given offset, which lies outside any token
+     * @return the offset of the first character not skipped
+     * @postcondition line and lineStart account for every newline 
+     *                skipped.
      */
-    private void eat(char expected) throws ScanErrorException
+    private int skipPadding(int p)
     {
-        if (expected == currentChar)
+        byte[] b = buf;
+        
+        if (p < limit && b[p] > ' ' && b[p] != '/')
         {
-            getNextChar();
+            return p;
         }
-        else
+        
+        while (true)
         {
-            throw new ScanErrorException("Illegal character - " + 
-                "expected " + currentChar + " and found " + expected);
+            while (p + 8 <= limit)
+            {
+                long w = (long) LONGS.get(b, p);
+                long newlines = matchBytes(w, '\n');
+                long spaces = newlines | matchBytes(w, ' ') |
+                        matchBytes(w, '\t') | matchBytes(w, '\r');
+                
+                if (spaces != HIGH_BITS)
+                {
+                    int n = Long.numberOfTrailingZeros(~spaces & HIGH_BITS)
+                            >>> 3;
+                    
+                    countNewlines(newlines & (1L << (n * 8)) - 1, p);
+                    p += n;
+                    
+                    break;
+                }
+                
+                countNewlines(newlines, p);
+                p += 8;
+            }
+            
+            if (p + 1 < limit && b[p] == '/' && b[p + 1] == '/')
+            {
+                p = skipComment(p + 2);
+            }
+            else
+            {
+                return p;
+            }
         }
     }
     
     /**
-     * Checks whether the BufferedReader is exhausted.
-     * @return true if the BufferedReader is not exhausted, false 
-     *         otherwise
+     * Skips the rest of a // comment a word at a time.
+     * @param p the offset just after the //
+     * @return the offset just past the newline that ends the comment, 
+     *         or the end of the range
+     * @postcondition line and lineStart account for that newline.
      */
-    public boolean hasNext()
+    private int skipComment(int p)
     {
-        return ! eof;
+        byte[] b = buf;
+        
+        while (p + 8 <= limit)
+        {
+            long newlines = matchBytes((long) LONGS.get(b, p), '\n');
+            
+            if (newlines != 0)
+            {
+                p += Long.numberOfTrailingZeros(newlines) >>> 3;
+                
+                break;
+            }
+            
+            p += 8;
+        }
+        
+        while (p < limit && b[p] != '\n')
+        {
+            p++;
+        }
+        
+        if (p == limit)
+        {
+            return p;
+        }
+        
+        line++;
+        lineStart = p + 1;
+        
+        return p + 1;
     }
     
     /**
@@ -187,547 +651,167 @@ public class Scanner
     }
     
     /**
-     * Scans a number from the BufferedReader.
-     * @return a string representing the scanned number
-     * @throws ScanErrorException if a character other than a digit or 
-     *                            a whitespace character is encountered
-     * @postcondition The BufferedReader is advanced to the character 
-     *                after the scanned number.
+     * Scans a lexeme from the buffer.
+     * @return a string representing the scanned lexeme
+     * @throws ScanErrorException if a character other than a digit, 
+     *                            letter, whitespace character, 
+     *                            operand character, or separator 
+     *                            character is encountered
+     * @postcondition The buffer is advanced to the character after 
+     *                the scanned lexeme.
      */
-    private String scanNumber() throws ScanErrorException
+    public String nextToken() throws ScanErrorException
     {
-        String s = "";
-        
-        if (isDigit(currentChar))
-        {
-            s += currentChar;
-            eat(currentChar);
-            
-            if (currentChar == '.')
-            {
-                eof = true;
-            }
-            
-            while (hasNext() && isDigit(currentChar))
-            {
-                s += currentChar;
-                eat(currentChar);
-                
-                if (currentChar == '.')
-                {
-                    eof = true;
-                }
-            }
-            
-            if (hasNext() && isLetter(currentChar))
-            {
-                while (hasNext() && 
-                    (isDigit(currentChar) || isLetter(currentChar)))
-                {
-                    eat(currentChar);
-                    
-                    if (currentChar == '.')
-                    {
-                        eof = true;
-                    }
-                }
-                
-                throw new ScanErrorException("Illegal character - " + 
-                    "number cannot contain letter");
-            }
-            else
-            {
-                return s;
-            }
-        }
-        else
-        {
-            throw new ScanErrorException("Illegal character - " + 
-                "expected digit but did not find digit");
-        }
+        return next().getText();
     }
     
     /**
-     * Scans an identifier from the BufferedReader.
-     * @return a string representing the scanned identifier
-     * @throws ScanErrorException if a character other than a letter, 
-     *                            a digit, or a whitespace character 
-     *                            is encountered
-     * @precondition The BufferedReader is advanced to the character 
-     *               after the scanned identifier.
+     * Scans a token from the buffer. Once the input is exhausted or a 
+     * '.' is reached, every call returns an EOF token.
+     * @return the scanned token
+     * @throws ScanErrorException if a character other than a digit, 
+     *                            letter, whitespace character, 
+     *                            operand character, or separator 
+     *                            character is encountered
+     * @postcondition The buffer is advanced to the character after 
+     *                the scanned token.
      */
-    private String scanIdentifier() throws ScanErrorException
+    public Token next() throws ScanErrorException
     {
-        String s = "";
+        byte[] b = buf;
+        int[] next = ScanTable.NEXT;
+        byte[] classes = ScanTable.CLASS;
+        int start0 = ScanTable.START;
         
-        if (isLetter(currentChar))
+        int p = skipPadding(position);
+        int start = p;
+        int state = ScanTable.START;
+        int newline = ScanTable.C_NEWLINE;
+        
+        while (true)
         {
-            s += currentChar;
-            eat(currentChar);
+            int cls;
             
-            if (currentChar == '.')
+            if (p < limit)
             {
-                eof = true;
+                cls = classes[b[p] & 0xFF];
             }
-            
-            while (hasNext() && (isLetter(currentChar) || 
-                isDigit(currentChar)))
+            else
             {
-                s += currentChar;
-                eat(currentChar);
-                
-                if (currentChar == '.')
-                {
-                    eof = true;
-                }
+                cls = ScanTable.C_END;
             }
             
-            return s;
-        }
-        else
-        {
-            throw new ScanErrorException("Illegal character - " + 
-                "expected letter but did not find letter");
-        }
-    }
-    
-    /**
-     * Scans an operand from the BufferedReader.
-     * @return a string representing the scanned operand
-     * @throws ScanErrorException if a character other than an operand 
-     *                            character is encountered
-     * @precondition The BufferedReader is advanced to the character 
-     *               after the scanned operand.
-     */
-    private String scanOperand() throws ScanErrorException
-    {
-        if (isOperandChar(currentChar))
-        {
-            if (currentChar == '=')
-            {
-                eat(currentChar);
-                
-                if (currentChar == '.')
-                {
-                    eof = true;
-                    
-                    return "=";
-                }
-                else
-                {
-                    return "=";
-                }
-            }
-            else if (currentChar == '+')
-            {
-                eat(currentChar);
-                
-                if (currentChar == '.')
-                {
-                    eof = true;
-                    
-                    return "+";
-                }
-                else if (currentChar == '=')
-                {
-                    eat(currentChar);
-                    
-                    if (currentChar == '.')
-                    {
-                        eof = true;
-                        
-                        return "+=";
-                    }
-                    else
-                    {
-                        return "+=";
-                    }
-                }
-                else
-                {
-                    return "+";
-                }
-            }
-            else if (currentChar == '-')
-            {
-                eat(currentChar);
-                
-                if (currentChar == '.')
-                {
-                    eof = true;
-                    
-                    return "-";
-                }
-                else if (currentChar == '=')
-                {
-                    eat(currentChar);
-                    
-                    if (currentChar == '.')
-                    {
-                        eof = true;
-                        
-                        return "-=";
-                    }
-                    else
-                    {
-                        return "-=";
-                    }
-                }
-                else
-                {
-                    return "-";
-                }
-            }
-            else if (currentChar == '*')
-            {
-                eat(currentChar);
-                
-                if (currentChar == '.')
-                {
-                    eof = true;
-                    
-                    return "*";
-                }
-                else if (currentChar == '=')
-                {
-                    eat(currentChar);
-                    
-                    if (currentChar == '.')
-                    {
-                        eof = true;
-                        
-                        return "*=";
-                    }
-                    else
-                    {
-                        return "*=";
-                    }
-                }
-                else
-                {
-                    return "*";
-                }
-            }
-            else if (currentChar == '%')
-            {
-                eat(currentChar);
-                
-                if (currentChar == '.')
-                {
-                    eof = true;
-                    
-                    return "%";
-                }
-                else if (currentChar == '=')
-                {
-                    eat(currentChar);
-                    
-                    if (currentChar == '.')
-                    {
-                        eof = true;
-                        
-                        return "%=";
-                    }
-                    else
-                    {
-                        return "%=";
-                    }
-                }
-                else
-                {
-                    return "%";
-                }
-            }
-            else if (currentChar == '(')
-            {
-                eat(currentChar);
-                
-                if (currentChar == '.')
-                {
-                    eof = true;
-                    
-                    return "(";
-                }
-                else
-                {
-                    return "(";
-                }
-            }
-            else if (currentChar == ')')
+            int nextState = next[state + cls];
+            
+            if (nextState == ScanTable.STOP)
             {
-                eat(currentChar);
-                
-                if (currentChar == '.')
-                {
-                    eof = true;
-                    
-                    return ")";
-                }
-                else
-                {
-                    return ")";
-                }
+                break;
             }
-            else if (currentChar == '<')
-            {
-                eat(currentChar);
-                
-                if (currentChar == '.')
-                {
-                    eof = true;
-                    
-                    return "<";
-                }
-                else if (currentChar == '>')
-                {
-                    eat(currentChar);
-                    
-                    if (currentChar == '.')
-                    {
-                        eof = true;
-                        
-                        return "<>";
-                    }
-                    else
-                    {
-                        return "<>";
-                    }
-                }
-                else if (currentChar == '=')
-                {
-                    eat(currentChar);
-                    
-                    if (currentChar == '.')
-                    {
-                        eof = true;
-                        
-                        return "<=";
-                    }
-                    else
-                    {
-                        return "<=";
-                    }
-                }
-                else
-                {
-                    return "<";
-                }
-            }
-            else if (currentChar == '>')
+            
+            if (cls == newline)
             {
-                eat(currentChar);
-                
-                if (currentChar == '.')
-                {
-                    eof = true;
-                    
-                    return ">";
-                }
-                else if (currentChar == '=')
-                {
-                    eat(currentChar);
-                    
-                    if (currentChar == '.')
-                    {
-                        eof = true;
-                        
-                        return ">=";
-                    }
-                    else
-                    {
-                        return ">=";
-                    }
-                }
-                else
-                {
-                    return ">";
-                }
+                line++;
+                lineStart = p + 1;
             }
-            else
+            
+            if (state == start0)
             {
-                eat(currentChar);
-                
-                if (currentChar == '.')
-                {
-                    eof = true;
-                    
-                    return ":";
-                }
-                else if (currentChar == '=')
-                {
-                    eat(currentChar);
-                    
-                    if (currentChar == '.')
-                    {
-                        eof = true;
-                        
-                        return ":=";
-                    }
-                    else
-                    {
-                        return ":=";
-                    }
-                }
-                else
-                {
-                    return ":";
-                }
+                start = p;
             }
+            
+            state = nextState;
+            p++;
         }
-        else
+        
+        if (state == ScanTable.START || state == ScanTable.COMMENT)
         {
-            throw new ScanErrorException("Illegal character - " + 
-                "expected operand character but did not find " + 
-                "operand character");
+            start = p;
         }
+        
+        position = p;
+        
+        return accept(state, start);
     }
     
     /**
-     * Scans a separator from the BufferedReader.
-     * @return a string representing the scanned separator
-     * @throws ScanErrorException if a character other than a 
-     *                            separator character is encountered
-     * @postcondition The BufferedReader is advanced to the character 
-     *                after the scanned separator.
+     * Accumulates the value of the number that starts at the given 
+     * position and ends at the current position, checking for 
+     * overflow digit by digit.
+     * @param start the position of the first digit of the number
+     * @return the value of the number
+     * @throws ScanErrorException if the number does not fit in an int
      */
-    private String scanSeparator() throws ScanErrorException
+    private int scanValue(int start) throws ScanErrorException
     {
-        String s = "";
+        int value = 0;
         
-        if (isSeparator(currentChar))
+        for (int i = start; i < position; i++)
         {
-            s += currentChar;
-            eat(currentChar);
+            int digit = buf[i] - '0';
             
-            if (currentChar == '.')
+            if (value > (Integer.MAX_VALUE - digit) / 10)
             {
-                eof = true;
+                throw new ScanErrorException("Number out of range - " + 
+                    new String(buf, start, position - start, 
+                    StandardCharsets.ISO_8859_1), positionOf(start), 
+                    stackTraces);
             }
             
-            return s;
-        }
-        else
-        {
-            throw new ScanErrorException("Illegal character - " + 
-                "expected separator but did not find separator");
+            value = value * 10 + digit;
         }
+        
+        return value;
     }
     
     /**
-     * Scans a lexeme from the BufferedReader.
-     * @return a string representing the scanned lexeme
-     * @throws ScanErrorException if a character other than a digit, 
-     *                            letter, whitespace character, 
-     *                            operand character, or separator 
-     *                            character is encountered
-     * @postcondition The BufferedReader is advanced to the character 
-     *                after the scanned lexeme.
+     * Makes the token recognized when the automaton stops in the given 
+     * state.
+     * @param state the state in which the automaton stopped
+     * @param start the position of the first character of the token
+     * @return a Token object for the characters from start up to the 
+     *         current position
+     * @throws ScanErrorException if the automaton stopped in an error 
+     *                            state
      */
-    public String nextToken() throws ScanErrorException
+    private Token accept(int state, int start) throws ScanErrorException
     {
-        int state = 0;
+        int length = position - start;
         
-        while (hasNext() && 
-            (state == 0 && 
-                (currentChar == '/' || isWhiteSpace(currentChar)) || 
-            state == 1 || 
-            state == 2))
+        if (state == ScanTable.IDENTIFIER)
         {
-            if (hasNext())
-            {
-                if (state == 0)
-                {
-                    if (currentChar == '/')
-                    {
-                        state = 1;
-                    }
-                    else if (isWhiteSpace(currentChar))
-                    {
-                        state = 0;
-                    }
-                }
-                else if (state == 1)
-                {
-                    if (currentChar == '/')
-                    {
-                        state = 2;
-                    }
-                    else if (currentChar == '=')
-                    {
-                        eat(currentChar);
-                        
-                        return "/=";
-                    }
-                    else
-                    {
-                        return "/";
-                    }
-                }
-                else
-                {
-                    if (currentChar == '\n')
-                    {
-                        state = 0;
-                    }
-                    else
-                    {
-                        state = 2;
-                    }
-                }
-            }
+            TokenKind kind = TokenKind.keyword(buf, start, length);
             
-            eat(currentChar);
-            
-            if ((state == 0 || state == 1) && currentChar == '.')
+            if (kind == TokenKind.IDENTIFIER)
             {
-                eof = true;
+                int id = cache.intern(start, length);
+                
+                return new Token(kind, buf, start, length, id, 0, 
+                    positionOf(start));
             }
+            
+            return makeToken(kind, start);
         }
-        
-        if (hasNext())
+        else if (state == ScanTable.NUMBER)
         {
-            if (isDigit(currentChar))
-            {
-                return scanNumber();
-            }
-            else if (isLetter(currentChar))
-            {
-                return scanIdentifier();
-            }
-            else if (isOperandChar(currentChar))
-            {
-                return scanOperand();
-            }
-            else if (isSeparator(currentChar))
-            {
-                return scanSeparator();
-            }
-            else
-            {
-                eat(currentChar);
-                
-                if (currentChar == '.')
-                {
-                    eof = true;
-                }
-                
-                throw new ScanErrorException("Unknown character");
-            }
+            return new Token(TokenKind.NUMBER, buf, start, length, 
+                -1, scanValue(start), positionOf(start));
+        }
+        else if (state == ScanTable.BAD_NUMBER)
+        {
+            throw new ScanErrorException("Illegal character - " + 
+                "number cannot contain letter", positionOf(start), 
+                stackTraces);
+        }
+        else if (state == ScanTable.UNKNOWN)
+        {
+            throw new ScanErrorException("Unknown character", 
+                positionOf(start), stackTraces);
         }
         else
         {
-            if (state == 0)
-            {
-                return ".";
-            }
-            else if (state == 1)
-            {
-                return "/";
-            }
-            else
-            {
-                return ".";
-            }
+            int row = state / ScanTable.CLASS_COUNT;
+            
+            return makeToken(ScanTable.ACCEPT[row], start);
         }
     }
 }
@@ -0,0 +1,147 @@
+package scanner;
+
+/**
+ * SymbolCache sits between one Scanner and the global SymbolTable. It 
+ * remembers the id of every identifier span the Scanner has already 
+ * interned, keyed by the bytes of the span itself, so the shared table 
+ * is only locked the first time a Scanner meets a name. This keeps 
+ * scanners running on different threads from contending on the table.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ */
+final class SymbolCache
+{
+    /**
+     * Instance variables
+     */
+    private final byte[] buf;
+    private final SymbolTable symbols;
+    private int[] offsets;
+    private int[] lengths;
+    private int[] hashes;
+    private int[] ids;
+    private int size;
+    
+    /**
+     * Constructs an empty SymbolCache object in front of the given 
+     * table for spans of the given buffer.
+     * @param source the buffer holding the spans
+     * @param table the table that assigns ids
+     * @postcondition The cache is an empty table of 64 slots.
+     */
+    SymbolCache(byte[] source, SymbolTable table)
+    {
+        buf = source;
+        symbols = table;
+        offsets = new int[64];
+        lengths = new int[64];
+        hashes = new int[64];
+        ids = new int[64];
+        size = 0;
+    }
+    
+    /**
+     * Gets the id of the name spelled by the given span of the buffer, 
+     * interning the name in the table on the first lookup.
+     * @param off the offset of the name
+     * @param len the length of the name, at least 1
+     * @return the id of the name
+     */
+    int intern(int off, int len)
+    {
+        byte[] b = buf;
+        int h = 0;
+        
+        for (int i = off; i < off + len; i++)
+        {
+            h = 31 * h + b[i];
+        }
+        
+        int mask = lengths.length - 1;
+        int index = h & mask;
+        
+        while (lengths[index] != 0)
+        {
+            if (hashes[index] == h && lengths[index] == len && 
+                    matches(offsets[index], off, len))
+            {
+                return ids[index];
+            }
+            
+            index = (index + 1) & mask;
+        }
+        
+        int id = symbols.intern(b, off, len);
+        
+        offsets[index] = off;
+        lengths[index] = len;
+        hashes[index] = h;
+        ids[index] = id;
+        size++;
+        
+        if (size * 2 > lengths.length)
+        {
+            grow();
+        }
+        
+        return id;
+    }
+    
+    /**
+     * Checks whether two spans of the buffer hold the same bytes.
+     * @param a the offset of the first span
+     * @param b the offset of the second span
+     * @param len the length of both spans
+     * @return true if the spans are equal, false otherwise
+     */
+    private boolean matches(int a, int b, int len)
+    {
+        for (int i = 0; i < len; i++)
+        {
+            if (buf[a + i] != buf[b + i])
+            {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Doubles the size of the cache.
+     * @postcondition Every entry is rehashed into a table twice as 
+     *                large.
+     */
+    private void grow()
+    {
+        int[] oldOffsets = offsets;
+        int[] oldLengths = lengths;
+        int[] oldHashes = hashes;
+        int[] oldIds = ids;
+        int n = oldLengths.length * 2;
+        int mask = n - 1;
+        
+        offsets = new int[n];
+        lengths = new int[n];
+        hashes = new int[n];
+        ids = new int[n];
+        
+        for (int i = 0; i < oldLengths.length; i++)
+        {
+            if (oldLengths[i] != 0)
+            {
+                int index = oldHashes[i] & mask;
+                
+                while (lengths[index] != 0)
+                {
+                    index = (index + 1) & mask;
+                }
+                
+                offsets[index] = oldOffsets[i];
+                lengths[index] = oldLengths[i];
+                hashes[index] = oldHashes[i];
+                ids[index] = oldIds[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package scanner;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.ArrayList;
+
+/**
+ * SymbolTable interns identifier names to dense integer ids. The first
+ * name interned gets id 0, the next new name gets id 1, and so on.
+ * Names can be looked up straight from a span of the scanner's buffer, 
+ * so a String is only built the first time a name is seen.
+ * One global table is shared by the scanner, the parser, the AST and 
+ * the environments, so every stage after scanning keys on the id. The 
+ * table may be used from several threads at once.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: SymbolTable symbols = SymbolTable.getGlobal();
+ *        int id = symbols.intern(<identifier name>);
+ *        String name = symbols.getName(id);
+ */
+public class SymbolTable
+{
+    /**
+     * The table shared by every stage of the compiler
+     */
+    private static final SymbolTable GLOBAL = new SymbolTable();
+    
+    /**
+     * Instance variables
+     */
+    private int[] slots;
+    private int[] hashes;
+    private List<String> names;
+    
+    /**
+     * Constructs an empty SymbolTable object.
+     * @postcondition The instance field slots is an empty open 
+     *                addressing table.
+     *              - The instance field names is empty.
+     */
+    public SymbolTable()
+    {
+        slots = new int[64];
+        hashes = new int[32];
+        names = new ArrayList<String>();
+    }
+    
+    /**
+     * Gets the table shared by every stage of the compiler.
+     * @return the global SymbolTable object
+     */
+    public static SymbolTable getGlobal()
+    {
+        return GLOBAL;
+    }
+    
+    /**
+     * Gets the id of the given name, assigning the next id if the name
+     * has not been seen before.
+     * @param name the given name
+     * @return the id of name
+     */
+    public synchronized int intern(String name)
+    {
+        int h = 0;
+        
+        for (int i = 0; i < name.length(); i++)
+        {
+            h = 31 * h + name.charAt(i);
+        }
+        
+        int mask = slots.length - 1;
+        int index = h & mask;
+        
+        while (slots[index] != 0)
+        {
+            int id = slots[index] - 1;
+            
+            if (hashes[id] == h && names.get(id).equals(name))
+            {
+                return id;
+            }
+            
+            index = (index + 1) & mask;
+        }
+        
+        return add(index, h, name);
+    }
+    
+    /**
+     * Gets the id of the name spelled by the given span of a buffer, 
+     * assigning the next id if the name has not been seen before.
+     * @param buf the buffer holding the name, one byte per character
+     * @param off the offset of the name in buf
+     * @param len the length of the name
+     * @return the id of the name
+     */
+    public synchronized int intern(byte[] buf, int off, int len)
+    {
+        int h = 0;
+        
+        for (int i = off; i < off + len; i++)
+        {
+            h = 31 * h + buf[i];
+        }
+        
+        int mask = slots.length - 1;
+        int index = h & mask;
+        
+        while (slots[index] != 0)
+        {
+            int id = slots[index] - 1;
+            
+            if (hashes[id] == h && matches(names.get(id), buf, off, len))
+            {
+                return id;
+            }
+            
+            index = (index + 1) & mask;
+        }
+        
+        return add(index, h, 
+            new String(buf, off, len, StandardCharsets.ISO_8859_1));
+    }
+    
+    /**
+     * Gets the id of the name spelled by the given span of a ByteBuffer, 
+     * such as a memory-mapped file, assigning the next id if the name 
+     * has not been seen before. The span is only copied for a new name.
+     * @param buf the buffer holding the name, one byte per character
+     * @param off the absolute offset of the name in buf
+     * @param len the length of the name
+     * @return the id of the name
+     */
+    public synchronized int intern(ByteBuffer buf, int off, int len)
+    {
+        int h = 0;
+        
+        for (int i = off; i < off + len; i++)
+        {
+            h = 31 * h + buf.get(i);
+        }
+        
+        int mask = slots.length - 1;
+        int index = h & mask;
+        
+        while (slots[index] != 0)
+        {
+            int id = slots[index] - 1;
+            
+            if (hashes[id] == h && matches(names.get(id), buf, off, len))
+            {
+                return id;
+            }
+            
+            index = (index + 1) & mask;
+        }
+        
+        byte[] bytes = new byte[len];
+        
+        buf.get(off, bytes);
+        
+        return add(index, h, new String(bytes, StandardCharsets.ISO_8859_1));
+    }
+    
+    /**
+     * Checks whether the given name is spelled by the given span.
+     * @param name the given name
+     * @param buf the buffer holding the span
+     * @param off the offset of the span in buf
+     * @param len the length of the span
+     * @return true if the span spells name, false otherwise
+     */
+    private static boolean matches(String name, byte[] buf, int off, 
+            int len)
+    {
+        if (name.length() != len)
+        {
+            return false;
+        }
+        
+        for (int i = 0; i < len; i++)
+        {
+            if (name.charAt(i) != buf[off + i])
+            {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Checks whether the given name is spelled by the given span of a 
+     * ByteBuffer.
+     * @param name the given name
+     * @param buf the buffer holding the span
+     * @param off the absolute offset of the span in buf
+     * @param len the length of the span
+     * @return true if the span spells name, false otherwise
+     */
+    private static boolean matches(String name, ByteBuffer buf, int off, 
+            int len)
+    {
+        if (name.length() != len)
+        {
+            return false;
+        }
+        
+        for (int i = 0; i < len; i++)
+        {
+            if (name.charAt(i) != buf.get(off + i))
+            {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Adds a new name at the given free slot.
+     * @param index the given free slot
+     * @param h the hash of name
+     * @param name the new name
+     * @return the id assigned to name
+     * @postcondition name is added to names, and the table is doubled 
+     *                once it is half full.
+     */
+    private int add(int index, int h, String name)
+    {
+        int id = names.size();
+        
+        names.add(name);
+        
+        if (id == hashes.length)
+        {
+            int[] newHashes = new int[hashes.length * 2];
+            
+            System.arraycopy(hashes, 0, newHashes, 0, id);
+            
+            hashes = newHashes;
+        }
+        
+        hashes[id] = h;
+        slots[index] = id + 1;
+        
+        if (names.size() * 2 > slots.length)
+        {
+            int[] newSlots = new int[slots.length * 2];
+            int mask = newSlots.length - 1;
+            
+            for (int i = 0; i < names.size(); i++)
+            {
+                int j = hashes[i] & mask;
+                
+                while (newSlots[j] != 0)
+                {
+                    j = (j + 1) & mask;
+                }
+                
+                newSlots[j] = i + 1;
+            }
+            
+            slots = newSlots;
+        }
+        
+        return id;
+    }
+    
+    /**
+     * Gets the name with the given id.
+     * @param id the given id
+     * @return the name interned under id
+     */
+    public synchronized String getName(int id)
+    {
+        return names.get(id);
+    }
+    
+    /**
+     * Gets the number of names in this table.
+     * @return the number of distinct names interned so far
+     */
+    public synchronized int size()
+    {
+        return names.size();
+    }
+}
@@ -0,0 +1,150 @@
+package scanner;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Token is a single token produced by the Scanner. Besides its kind,
+ * a token carries the interned id of an identifier, the value of a
+ * number, and the position in the source at which it begins. The 
+ * lexeme is kept as a span of the scanner's buffer and only turned 
+ * into a String when getText is called.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: Token token = scanner.next();
+ *        if (token.getKind() == TokenKind.NUMBER)
+ *            int value = token.getValue();
+ */
+public class Token
+{
+    /**
+     * Instance variables
+     */
+    private final TokenKind kind;
+    private final byte[] source;
+    private final int offset;
+    private final int length;
+    private final int symbol;
+    private final int value;
+    private final long position;
+    private String text;
+    
+    /**
+     * Constructs a Token object whose lexeme is the given span of the 
+     * given buffer.
+     * @param k the kind of the token
+     * @param src the buffer holding the lexeme, one byte per character
+     * @param off the offset of the lexeme in src
+     * @param len the length of the lexeme
+     * @param sym the symbol id of an identifier, or -1
+     * @param v the value of a number, or 0
+     * @param pos the packed line and column of the first character of 
+     *            the token
+     * @postcondition The instance fields are set to the given values.
+     *              - The instance field text is set to null.
+     */
+    public Token(TokenKind k, byte[] src, int off, int len, int sym, 
+            int v, long pos)
+    {
+        kind = k;
+        source = src;
+        offset = off;
+        length = len;
+        symbol = sym;
+        value = v;
+        position = pos;
+    }
+    
+    /**
+     * Gets the kind of this token.
+     * @return the kind of this token
+     */
+    public TokenKind getKind()
+    {
+        return kind;
+    }
+    
+    /**
+     * Gets the text of this token exactly as scanned. Only numbers and 
+     * identifiers build a new String, and only on the first call.
+     * @return the text of this token
+     */
+    public String getText()
+    {
+        if (text == null)
+        {
+            text = kind.getLexeme();
+            
+            if (text == null)
+            {
+                text = new String(source, offset, length, 
+                    StandardCharsets.ISO_8859_1);
+            }
+        }
+        
+        return text;
+    }
+    
+    /**
+     * Gets the buffer holding the lexeme of this token.
+     * @return the instance field source
+     */
+    public byte[] getSource()
+    {
+        return source;
+    }
+    
+    /**
+     * Gets the offset of the lexeme of this token in its buffer.
+     * @return the instance field offset
+     */
+    public int getOffset()
+    {
+        return offset;
+    }
+    
+    /**
+     * Gets the length of the lexeme of this token.
+     * @return the instance field length
+     */
+    public int getLength()
+    {
+        return length;
+    }
+    
+    /**
+     * Gets the interned id of this identifier token.
+     * @return the symbol id, or -1 if this token is not an identifier
+     */
+    public int getSymbol()
+    {
+        return symbol;
+    }
+    
+    /**
+     * Gets the value of this number token.
+     * @return the value of the number, or 0 if this token is not a
+     *         number
+     */
+    public int getValue()
+    {
+        return value;
+    }
+    
+    /**
+     * Gets the source position of this token.
+     * @return the line and column of the first character of this 
+     *         token, packed as described in Position
+     */
+    public long getPosition()
+    {
+        return position;
+    }
+    
+    /**
+     * Gets the text of this token.
+     * @return the text of this token
+     */
+    public String toString()
+    {
+        return getText();
+    }
+}
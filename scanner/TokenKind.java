@@ -0,0 +1,227 @@
+package scanner;
+
+/**
+ * TokenKind is an enumeration of the kinds of tokens produced by the
+ * Scanner. Every kind except NUMBER and IDENTIFIER has a fixed lexeme.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: TokenKind kind = token.getKind();
+ *        if (kind == TokenKind.BEGIN) ...
+ */
+public enum TokenKind
+{
+    NUMBER(null),
+    IDENTIFIER(null),
+    
+    WRITELN("WRITELN"),
+    WRITELNTIMES("WRITELNTIMES"),
+    BEGIN("BEGIN"),
+    END("END"),
+    IF("IF"),
+    THEN("THEN"),
+    WHILE("WHILE"),
+    DO("DO"),
+    VAR("VAR"),
+    PROCEDURE("PROCEDURE"),
+    
+    PLUS("+"),
+    MINUS("-"),
+    TIMES("*"),
+    DIVIDE("/"),
+    MOD("%"),
+    PLUS_ASSIGN("+="),
+    MINUS_ASSIGN("-="),
+    TIMES_ASSIGN("*="),
+    DIVIDE_ASSIGN("/="),
+    MOD_ASSIGN("%="),
+    ASSIGN(":="),
+    COLON(":"),
+    EQUALS("="),
+    NOT_EQUALS("<>"),
+    LESS("<"),
+    GREATER(">"),
+    LESS_EQUALS("<="),
+    GREATER_EQUALS(">="),
+    LEFT_PAREN("("),
+    RIGHT_PAREN(")"),
+    SEMICOLON(";"),
+    COMMA(","),
+    
+    EOF(".");
+    
+    /**
+     * The size of KEYWORD_TABLE, a power of two
+     */
+    private static final int KEYWORD_TABLE_SIZE = 16;
+    
+    /**
+     * The multiplier of the last character in keywordHash
+     */
+    private static final int LAST_CHAR_WEIGHT = 10;
+    
+    /**
+     * Perfect hash table of the keywords: the keyword kind whose 
+     * lexeme hashes to each slot, or null
+     */
+    private static final TokenKind[] KEYWORD_TABLE = 
+            new TokenKind[KEYWORD_TABLE_SIZE];
+    
+    static
+    {
+        for (TokenKind kind : values())
+        {
+            if (kind.isKeyword())
+            {
+                String s = kind.lexeme;
+                int h = keywordHash(s.charAt(0), 
+                        s.charAt(s.length() - 1), s.length());
+                
+                if (KEYWORD_TABLE[h] != null)
+                {
+                    throw new IllegalStateException("Keyword hash is " + 
+                        "not perfect - " + s + " collides with " + 
+                        KEYWORD_TABLE[h].lexeme);
+                }
+                
+                KEYWORD_TABLE[h] = kind;
+            }
+        }
+    }
+    
+    /**
+     * Instance variable
+     */
+    private final String lexeme;
+    
+    /**
+     * Constructs a TokenKind with the given fixed lexeme.
+     * @param s the fixed lexeme, or null if the lexeme varies
+     * @postcondition The instance field lexeme is set to s.
+     */
+    private TokenKind(String s)
+    {
+        lexeme = s;
+    }
+    
+    /**
+     * Gets the fixed lexeme of this kind.
+     * @return the lexeme, or null for NUMBER and IDENTIFIER
+     */
+    public String getLexeme()
+    {
+        return lexeme;
+    }
+    
+    /**
+     * Gets a printable form of this kind for error messages.
+     * @return the fixed lexeme, or the name of this kind for NUMBER 
+     *         and IDENTIFIER
+     */
+    public String toString()
+    {
+        if (lexeme == null)
+        {
+            return name();
+        }
+        
+        return lexeme;
+    }
+    
+    /**
+     * Checks whether this kind is a reserved word.
+     * @return true if this kind lies between WRITELN and PROCEDURE,
+     *         false otherwise
+     */
+    public boolean isKeyword()
+    {
+        return compareTo(WRITELN) >= 0 && compareTo(PROCEDURE) <= 0;
+    }
+    
+    /**
+     * Checks whether this kind is a relational operator.
+     * @return true if this kind is =, <>, <, >, <=, or >=, false
+     *         otherwise
+     */
+    public boolean isRelop()
+    {
+        return compareTo(EQUALS) >= 0 && compareTo(GREATER_EQUALS) <= 0;
+    }
+    
+    /**
+     * Hashes a candidate keyword. The hash is perfect over the 
+     * keywords: no two keywords share a slot, which is checked when 
+     * this class is loaded.
+     * @param first the first character of the candidate
+     * @param last the last character of the candidate
+     * @param len the length of the candidate
+     * @return a slot of KEYWORD_TABLE
+     */
+    private static int keywordHash(int first, int last, int len)
+    {
+        return (first + last * LAST_CHAR_WEIGHT + len) & 
+                (KEYWORD_TABLE_SIZE - 1);
+    }
+    
+    /**
+     * Gets the keyword kind spelled by the given span of a buffer. The 
+     * span is hashed once and compared against at most one keyword.
+     * @param buf the buffer holding the identifier, one byte per 
+     *            character
+     * @param off the offset of the identifier in buf
+     * @param len the length of the identifier
+     * @return the keyword kind, or IDENTIFIER if the span is not a 
+     *         keyword
+     */
+    public static TokenKind keyword(byte[] buf, int off, int len)
+    {
+        TokenKind kind = KEYWORD_TABLE[keywordHash(buf[off], 
+                buf[off + len - 1], len)];
+        
+        if (kind == null)
+        {
+            return IDENTIFIER;
+        }
+        
+        String s = kind.lexeme;
+        
+        if (s.length() != len)
+        {
+            return IDENTIFIER;
+        }
+        
+        for (int i = 0; i < len; i++)
+        {
+            if (s.charAt(i) != buf[off + i])
+            {
+                return IDENTIFIER;
+            }
+        }
+        
+        return kind;
+    }
+    
+    /**
+     * Gets the keyword kind spelled by the given identifier text.
+     * @param s the given identifier text
+     * @return the keyword kind, or IDENTIFIER if s is not a keyword
+     */
+    public static TokenKind keyword(String s)
+    {
+        int len = s.length();
+        
+        if (len == 0)
+        {
+            return IDENTIFIER;
+        }
+        
+        TokenKind kind = KEYWORD_TABLE[keywordHash(s.charAt(0), 
+                s.charAt(len - 1), len)];
+        
+        if (kind == null || !kind.lexeme.equals(s))
+        {
+            return IDENTIFIER;
+        }
+        
+        return kind;
+    }
+}
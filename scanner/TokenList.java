@@ -0,0 +1,237 @@
+package scanner;
+import java.util.Arrays;
+
+/**
+ * TokenList is a token source backed by an array of tokens that were 
+ * scanned ahead of time. Scan errors are kept in order alongside the 
+ * tokens and are thrown when the parser reaches them, exactly as a 
+ * Scanner would have thrown them.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: TokenList tokens = new ParallelLexer().lex(<source>);
+ *        Parser parser = new Parser(tokens);
+ */
+public class TokenList implements TokenSource
+{
+    /**
+     * Instance variables
+     */
+    private Token[] tokens;
+    private int size;
+    private int[] errorIndexes;
+    private ScanErrorException[] errors;
+    private int errorCount;
+    private int index;
+    private int errorCursor;
+    
+    /**
+     * Constructs an empty TokenList object.
+     * @postcondition The list holds no tokens and no errors, and the 
+     *                read index is 0.
+     */
+    public TokenList()
+    {
+        this(16);
+    }
+    
+    /**
+     * Constructs an empty TokenList object with room for the given 
+     * number of tokens.
+     * @param capacity the given number of tokens, at least 1
+     * @postcondition The list holds no tokens and no errors, and the 
+     *                read index is 0.
+     */
+    TokenList(int capacity)
+    {
+        tokens = new Token[capacity];
+        size = 0;
+        errorIndexes = new int[0];
+        errors = new ScanErrorException[0];
+        errorCount = 0;
+        index = 0;
+        errorCursor = 0;
+    }
+    
+    /**
+     * Scans every token from the given scanner into a new list.
+     * @param scanner the given scanner
+     * @return a TokenList object holding every token of scanner, 
+     *         ending with its EOF token
+     */
+    public static TokenList scan(Scanner scanner)
+    {
+        TokenList list = new TokenList();
+        
+        list.addAll(scanner);
+        
+        return list;
+    }
+    
+    /**
+     * Appends every token of the given scanner, up to and including 
+     * its EOF token. Scan errors are recorded in place, without stack 
+     * traces.
+     * @param scanner the given scanner
+     * @postcondition The tokens and errors of scanner are appended.
+     */
+    void addAll(Scanner scanner)
+    {
+        // The errors are thrown long after they are scanned, often on 
+        // another thread, so a stack trace would say nothing useful.
+        scanner.setStackTraces(false);
+        
+        while (true)
+        {
+            try
+            {
+                Token t = scanner.next();
+                
+                add(t);
+                
+                if (t.getKind() == TokenKind.EOF)
+                {
+                    return;
+                }
+            }
+            catch (ScanErrorException e)
+            {
+                addError(e);
+            }
+        }
+    }
+    
+    /**
+     * Appends the given token.
+     * @param t the given token
+     * @postcondition t is the last token in this list.
+     */
+    void add(Token t)
+    {
+        if (size == tokens.length)
+        {
+            tokens = Arrays.copyOf(tokens, size * 2);
+        }
+        
+        tokens[size] = t;
+        size++;
+    }
+    
+    /**
+     * Records the given error just before the next token to be 
+     * appended.
+     * @param e the given error
+     * @postcondition e is thrown by next() when the read index reaches 
+     *                the current size.
+     */
+    void addError(ScanErrorException e)
+    {
+        addError(e, size);
+    }
+    
+    /**
+     * Records the given error just before the token at the given 
+     * index. Errors must be recorded in order of index.
+     * @param e the given error
+     * @param i the given index
+     * @postcondition e is thrown by next() when the read index reaches 
+     *                i.
+     */
+    private void addError(ScanErrorException e, int i)
+    {
+        if (errorCount == errors.length)
+        {
+            errors = Arrays.copyOf(errors, errorCount * 2 + 1);
+            errorIndexes = Arrays.copyOf(errorIndexes, errorCount * 2 + 1);
+        }
+        
+        errors[errorCount] = e;
+        errorIndexes[errorCount] = i;
+        errorCount++;
+    }
+    
+    /**
+     * Appends every token and error of the given list except its 
+     * trailing EOF token.
+     * @param other the given list
+     * @postcondition The tokens and errors of other are appended.
+     */
+    void addAllButEof(TokenList other)
+    {
+        int n = other.size;
+        
+        if (n > 0 && other.tokens[n - 1].getKind() == TokenKind.EOF)
+        {
+            n--;
+        }
+        
+        for (int i = 0; i < other.errorCount; i++)
+        {
+            if (other.errorIndexes[i] <= n)
+            {
+                addError(other.errors[i], size + other.errorIndexes[i]);
+            }
+        }
+        
+        if (size + n > tokens.length)
+        {
+            tokens = Arrays.copyOf(tokens, Math.max(size + n, size * 2));
+        }
+        
+        System.arraycopy(other.tokens, 0, tokens, size, n);
+        size += n;
+    }
+    
+    /**
+     * Gets the next token, or throws the scan error recorded before 
+     * it. After the last token, the last token is returned again.
+     * @return the next token
+     * @throws ScanErrorException if a scan error was recorded at the 
+     *                            read index
+     */
+    public Token next() throws ScanErrorException
+    {
+        if (errorCursor < errorCount && errorIndexes[errorCursor] == index)
+        {
+            errorCursor++;
+            
+            throw errors[errorCursor - 1];
+        }
+        
+        if (index < size)
+        {
+            index++;
+            
+            return tokens[index - 1];
+        }
+        
+        return tokens[size - 1];
+    }
+    
+    /**
+     * Gets the token at the given index.
+     * @param i the given index
+     * @return the token at index i
+     */
+    public Token get(int i)
+    {
+        return tokens[i];
+    }
+    
+    /**
+     * Gets the number of tokens in this list.
+     * @return the instance field size
+     */
+    public int size()
+    {
+        return size;
+    }
+    
+    /**
+     * Gets the number of scan errors recorded in this list.
+     * @return the instance field errorCount
+     */
+    public int getErrorCount()
+    {
+        return errorCount;
+    }
+}
@@ -0,0 +1,22 @@
+package scanner;
+
+/**
+ * TokenSource is anything the Parser can pull tokens from: a Scanner 
+ * working through its buffer, or a list of tokens that was scanned 
+ * ahead of time.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: TokenSource source = new Scanner(<input stream>);
+ *        Token token = source.next();
+ */
+public interface TokenSource
+{
+    /**
+     * Gets the next token. Once the input is exhausted, every call 
+     * returns an EOF token.
+     * @return the next token
+     * @throws ScanErrorException if the next token could not be 
+     *                            scanned
+     */
+    Token next() throws ScanErrorException;
+}
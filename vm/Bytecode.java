@@ -0,0 +1,230 @@
+package vm;
+
+/**
+ * Bytecode is a program compiled by BytecodeCompiler for the Machine to 
+ * run. All of its code is held in one int array: each instruction is an 
+ * opcode followed by its operands, and the main block comes first, 
+ * ending with HALT, followed by the procedures, each ending with RET. 
+ * Every value the program works on is in one int array, the memory. It 
+ * starts with the global variables and the constants, which together 
+ * are the statics, and above them is a frame for the main block and 
+ * one for each procedure call under way. The frame of a call holds a 
+ * slot for each distinct parameter name and one for the return value, 
+ * and every frame then holds the temporaries of its expressions. 
+ * Instructions name their values directly instead of pushing and 
+ * popping them: an operand is either the index of a static or, with 
+ * the LOCAL bit set, the offset of a value in the current frame.
+ * The operands of the instructions are:
+ * - MOVE: the destination and the source
+ * - ADD through DIVIDE: the destination and the two operands
+ * - JUMP: the address to jump to
+ * - JUMP_EQUALS through JUMP_GREATER_EQUALS: the two operands and the 
+ *   address to jump to if the comparison of them holds
+ * - CALL: the index of the procedure and the offset in the current 
+ *   frame of its first argument, where the arguments are in order and 
+ *   where the new frame starts and the return value is left
+ * - RET: the offset of the return value
+ * - WRITELN: the operand to write
+ * - WRITELN_TIMES: the operand to write and the number of times
+ * - CHECK: the index of a global variable that the program does not 
+ *   declare, which fails, as the interpreter does, if it is not set
+ * - SET: the index of such a global variable and the operand to set 
+ *   it to
+ * - FAIL: the index of the message to throw a RuntimeException with
+ * - HALT: none
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: Bytecode code = new BytecodeCompiler().compile(<program>);
+ *        new Machine(code).run();
+ */
+public class Bytecode
+{
+    /**
+     * The bit that marks an operand as an offset in the current frame
+     */
+    public static final int LOCAL = 0x80000000;
+    
+    /**
+     * Opcodes that move or compute a value
+     */
+    public static final int MOVE = 0;
+    public static final int ADD = 1;
+    public static final int SUBTRACT = 2;
+    public static final int MULTIPLY = 3;
+    public static final int DIVIDE = 4;
+    
+    /**
+     * Opcodes that jump
+     */
+    public static final int JUMP = 5;
+    public static final int JUMP_EQUALS = 6;
+    public static final int JUMP_NOT_EQUALS = 7;
+    public static final int JUMP_LESS = 8;
+    public static final int JUMP_GREATER = 9;
+    public static final int JUMP_LESS_EQUALS = 10;
+    public static final int JUMP_GREATER_EQUALS = 11;
+    
+    /**
+     * Opcodes that call and return, write, check, or stop
+     */
+    public static final int CALL = 12;
+    public static final int RET = 13;
+    public static final int WRITELN = 14;
+    public static final int WRITELN_TIMES = 15;
+    public static final int CHECK = 16;
+    public static final int SET = 17;
+    public static final int FAIL = 18;
+    public static final int HALT = 19;
+    
+    /**
+     * Instance variables for the code
+     */
+    private int[] code;
+    private int mainFrameSize;
+    private String[] messages;
+    
+    /**
+     * Instance variables for the procedures, indexed by procedure
+     */
+    private int[] entries;
+    private int[][] parameterSlots;
+    private int[] nameSlots;
+    private int[] frameSizes;
+    
+    /**
+     * Instance variables for the statics, indexed by static
+     */
+    private int[] statics;
+    private String[] staticNames;
+    private boolean[] defined;
+    
+    /**
+     * Constructs a Bytecode object from the given parts.
+     * @param c the code
+     * @param mf the number of temporaries in the frame of the main block
+     * @param m the messages of the FAIL instructions
+     * @param e the address of each procedure
+     * @param ps the slot of each parameter of each procedure
+     * @param ns the slot of the return value of each procedure
+     * @param fs the number of values in the frame of each procedure, 
+     *           counting its temporaries
+     * @param s the starting value of each static
+     * @param sn the name of each static that is a global variable
+     * @param d whether each static starts out set
+     * @postcondition The instance fields are set to the given values.
+     */
+    Bytecode(int[] c, int mf, String[] m, int[] e, int[][] ps, int[] ns, 
+            int[] fs, int[] s, String[] sn, boolean[] d)
+    {
+        code = c;
+        mainFrameSize = mf;
+        messages = m;
+        entries = e;
+        parameterSlots = ps;
+        nameSlots = ns;
+        frameSizes = fs;
+        statics = s;
+        staticNames = sn;
+        defined = d;
+    }
+    
+    /**
+     * Gets the code.
+     * @return the instance field code
+     */
+    int[] getCode()
+    {
+        return code;
+    }
+    
+    /**
+     * Gets the number of temporaries in the frame of the main block.
+     * @return the instance field mainFrameSize
+     */
+    int getMainFrameSize()
+    {
+        return mainFrameSize;
+    }
+    
+    /**
+     * Gets the messages of the FAIL instructions.
+     * @return the instance field messages
+     */
+    String[] getMessages()
+    {
+        return messages;
+    }
+    
+    /**
+     * Gets the address of each procedure.
+     * @return the instance field entries
+     */
+    int[] getEntries()
+    {
+        return entries;
+    }
+    
+    /**
+     * Gets the slot of each parameter of each procedure.
+     * @return the instance field parameterSlots
+     */
+    int[][] getParameterSlots()
+    {
+        return parameterSlots;
+    }
+    
+    /**
+     * Gets the slot of the return value of each procedure.
+     * @return the instance field nameSlots
+     */
+    int[] getNameSlots()
+    {
+        return nameSlots;
+    }
+    
+    /**
+     * Gets the number of values in the frame of each procedure.
+     * @return the instance field frameSizes
+     */
+    int[] getFrameSizes()
+    {
+        return frameSizes;
+    }
+    
+    /**
+     * Gets the starting value of each static.
+     * @return the instance field statics
+     */
+    int[] getStatics()
+    {
+        return statics;
+    }
+    
+    /**
+     * Gets the name of each static that is a global variable.
+     * @return the instance field staticNames
+     */
+    String[] getStaticNames()
+    {
+        return staticNames;
+    }
+    
+    /**
+     * Gets whether each static starts out set, as the constants and the 
+     * global variables the program declares do.
+     * @return the instance field defined
+     */
+    boolean[] getDefined()
+    {
+        return defined;
+    }
+    
+    /**
+     * Gets the number of ints of code.
+     * @return the length of the instance field code
+     */
+    public int size()
+    {
+        return code.length;
+    }
+}
@@ -0,0 +1,861 @@
+package vm;
+import ast.Assignment;
+import ast.BinOp;
+import ast.Block;
+import ast.Condition;
+import ast.If;
+import ast.Node;
+import ast.Number;
+import ast.ProcedureCall;
+import ast.ProcedureDeclaration;
+import ast.Program;
+import ast.Statement;
+import ast.Variable;
+import ast.While;
+import ast.Writeln;
+import ast.WritelnTimes;
+import environment.IntMap;
+import scanner.SymbolTable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BytecodeCompiler compiles a Program into Bytecode for the Machine. 
+ * Like the Emitter, it works through the tree with an explicit task 
+ * stack rather than by recursion, so trees of any depth can be 
+ * compiled. Names are resolved once, as the interpreter resolves them: 
+ * in a procedure, each distinct parameter name and the procedure name 
+ * have a slot in the frame, and every other name is a global variable. 
+ * Each call is bound to the last declaration of its procedure, and a 
+ * call to a procedure that is not declared, or with fewer arguments 
+ * than it takes, compiles to a FAIL after its arguments are evaluated, 
+ * just where the interpreter would fail.
+ * A variable or a number is used where it is, so only the value of an 
+ * operation or a call takes a temporary, and an operation assigned to 
+ * a variable is computed straight into it. A global variable is read 
+ * when the instruction that uses it runs, so if the operand after it 
+ * may call a procedure, which could set it, it is first copied to a 
+ * temporary. A condition is compiled together with the jump that 
+ * depends on it, and a WHILE loop tests its condition at the bottom, 
+ * so each pass through the loop takes a single jump.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: Bytecode code = new BytecodeCompiler().compile(<program>);
+ */
+public class BytecodeCompiler
+{
+    /**
+     * Instance variables for the code
+     */
+    private int[] code;
+    private int size;
+    private int lastDest;
+    private List<String> messages;
+    
+    /**
+     * Instance variables for the task stack, the addresses that tasks 
+     * leave for later ones, and the operands that hold the values of 
+     * the expressions compiled so far
+     */
+    private Node[] taskNodes;
+    private int[] taskStates;
+    private int taskTop;
+    private int[] marks;
+    private int markTop;
+    private int[] operands;
+    private int operandTop;
+    
+    /**
+     * Instance variables for the frame of the body being compiled
+     */
+    private int[] slotNames;
+    private int slotCount;
+    private int temps;
+    private int maxTemps;
+    
+    /**
+     * Instance variables for the procedures and the statics
+     */
+    private List<ProcedureDeclaration> procedures;
+    private IntMap procedureIndex;
+    private IntMap globalIndex;
+    private Map<Integer, Integer> constantIndex;
+    private List<Integer> statics;
+    private List<String> staticNames;
+    private List<Boolean> defined;
+    
+    /**
+     * Constructs a BytecodeCompiler object.
+     * @postcondition The task stack, the mark stack and the operand 
+     *                stack are empty.
+     */
+    public BytecodeCompiler()
+    {
+        taskNodes = new Node[64];
+        taskStates = new int[64];
+        taskTop = 0;
+        marks = new int[16];
+        markTop = 0;
+        operands = new int[16];
+        operandTop = 0;
+    }
+    
+    /**
+     * Compiles the given program.
+     * @param program the given program
+     * @return the Bytecode for program
+     * @throws IllegalArgumentException if program holds a node that 
+     *         cannot be compiled
+     */
+    public Bytecode compile(Program program)
+    {
+        code = new int[256];
+        size = 0;
+        lastDest = -1;
+        messages = new ArrayList<String>();
+        procedures = program.getProcedures();
+        procedureIndex = new IntMap();
+        globalIndex = new IntMap();
+        constantIndex = new HashMap<Integer, Integer>();
+        statics = new ArrayList<Integer>();
+        staticNames = new ArrayList<String>();
+        defined = new ArrayList<Boolean>();
+        
+        int count = procedures.size();
+        
+        for (int i = 0; i < count; i++)
+        {
+            procedureIndex.put(procedures.get(i).getId(), i);
+        }
+        
+        for (int var : program.getGlobalVariables())
+        {
+            defined.set(globalOf(var), true);
+        }
+        
+        slotNames = new int[0];
+        slotCount = 0;
+        compileBody(program.getStatement());
+        emit(Bytecode.HALT);
+        
+        int mainFrameSize = maxTemps;
+        int[] entries = new int[count];
+        int[][] parameterSlots = new int[count][];
+        int[] nameSlots = new int[count];
+        int[] frameSizes = new int[count];
+        
+        for (int i = 0; i < count; i++)
+        {
+            ProcedureDeclaration pd = procedures.get(i);
+            
+            if (procedureIndex.get(pd.getId()) == i)
+            {
+                int[] parameters = pd.getParameterIds();
+                
+                slotNames = new int[parameters.length + 1];
+                slotCount = 0;
+                parameterSlots[i] = new int[parameters.length];
+                
+                for (int j = 0; j < parameters.length; j++)
+                {
+                    parameterSlots[i][j] = slotFor(parameters[j]);
+                }
+                
+                nameSlots[i] = slotFor(pd.getId());
+                entries[i] = size;
+                compileBody(pd.getStatement());
+                emit(Bytecode.RET, nameSlots[i]);
+                frameSizes[i] = slotCount + maxTemps;
+            }
+        }
+        
+        int[] values = new int[statics.size()];
+        boolean[] isDefined = new boolean[statics.size()];
+        
+        for (int s = 0; s < values.length; s++)
+        {
+            values[s] = statics.get(s);
+            isDefined[s] = defined.get(s);
+        }
+        
+        return new Bytecode(Arrays.copyOf(code, size), mainFrameSize, 
+            messages.toArray(new String[0]), entries, parameterSlots, 
+            nameSlots, frameSizes, values, 
+            staticNames.toArray(new String[0]), isDefined);
+    }
+    
+    /**
+     * Compiles the given body of the main block or of a procedure.
+     * @param s the given body
+     * @postcondition The code of s is emitted, and maxTemps is the most 
+     *                temporaries it uses at once.
+     */
+    private void compileBody(Statement s)
+    {
+        temps = 0;
+        maxTemps = 0;
+        schedule(s, 0);
+        
+        while (taskTop > 0)
+        {
+            taskTop--;
+            
+            Node n = taskNodes[taskTop];
+            taskNodes[taskTop] = null;
+            
+            step(n, taskStates[taskTop]);
+        }
+    }
+    
+    /**
+     * Schedules the given step of compiling the given node. Steps run 
+     * in the reverse of the order in which they are scheduled.
+     * @param n the given node
+     * @param state the step of n to run, 0 for the first step
+     * @postcondition The step is on top of the task stack.
+     */
+    private void schedule(Node n, int state)
+    {
+        if (taskTop == taskNodes.length)
+        {
+            taskNodes = Arrays.copyOf(taskNodes, taskTop * 2);
+            taskStates = Arrays.copyOf(taskStates, taskTop * 2);
+        }
+        
+        taskNodes[taskTop] = n;
+        taskStates[taskTop] = state;
+        taskTop++;
+    }
+    
+    /**
+     * Runs one step of compiling the given node. The first step of a 
+     * node with operands schedules each of them followed by a step of 
+     * its own, so step k runs once the first k operands are compiled, 
+     * and the last of these steps emits the instruction that uses them.
+     * @param n the given node
+     * @param state the step to run, 0 for the first step
+     * @throws IllegalArgumentException if n cannot be compiled
+     */
+    private void step(Node n, int state)
+    {
+        int count = n.getChildCount();
+        
+        if (n instanceof Number)
+        {
+            push(constantOf(((Number) n).getValue()));
+        }
+        else if (n instanceof Variable)
+        {
+            push(load(((Variable) n).getId()));
+        }
+        else if (n instanceof Block)
+        {
+            for (int i = count - 1; i >= 0; i--)
+            {
+                schedule(n.getChild(i), 0);
+            }
+        }
+        else if (n instanceof If || n instanceof While)
+        {
+            stepBranch(n, state);
+        }
+        else if (state == 0 && count > 0)
+        {
+            for (int i = count - 1; i >= 0; i--)
+            {
+                schedule(n, i + 1);
+                schedule(n.getChild(i), 0);
+            }
+        }
+        else if (n instanceof ProcedureCall)
+        {
+            if (state > 0)
+            {
+                argument();
+            }
+            
+            if (state == count)
+            {
+                call((ProcedureCall) n);
+            }
+        }
+        else if (state < count)
+        {
+            pinBefore(n.getChild(state));
+        }
+        else if (n instanceof BinOp)
+        {
+            int b = pop();
+            int a = pop();
+            int dest = temporary();
+            
+            emit(opcodeOf(((BinOp) n).getOperator()), dest, a, b);
+            lastDest = size - 3;
+            push(dest);
+        }
+        else if (n instanceof Condition)
+        {
+            int b = pop();
+            int a = pop();
+            int dest = temporary();
+            int jump = emit(branchOf(((Condition) n).getRelop()), a, b, 0);
+            
+            emit(Bytecode.MOVE, dest, constantOf(1));
+            int end = emit(Bytecode.JUMP, 0);
+            patch(jump + 3);
+            emit(Bytecode.MOVE, dest, constantOf(0));
+            patch(end + 1);
+            push(dest);
+        }
+        else if (n instanceof Assignment)
+        {
+            store(((Assignment) n).getId(), pop());
+        }
+        else if (n instanceof Writeln)
+        {
+            emit(Bytecode.WRITELN, pop());
+        }
+        else if (n instanceof WritelnTimes)
+        {
+            int times = pop();
+            
+            emit(Bytecode.WRITELN_TIMES, pop(), times);
+        }
+        else
+        {
+            throw new IllegalArgumentException("Cannot compile " + 
+                n.getClass().getSimpleName());
+        }
+    }
+    
+    /**
+     * Runs one step of compiling an IF statement or a WHILE loop. Step 
+     * 0 schedules the operands of the condition and the statement, 
+     * step 1 runs between the operands, and step 2 emits the jump on 
+     * the condition. An IF jumps past its statement if the condition 
+     * does not hold, which step 3 lands after the statement. A WHILE 
+     * first jumps to its condition, which step 3 lands after the body, 
+     * and jumps back to the body if the condition holds.
+     * @param n the IF statement or WHILE loop
+     * @param state the step to run, 0 for the first step
+     */
+    private void stepBranch(Node n, int state)
+    {
+        Condition cond = (Condition) n.getChild(0);
+        boolean loop = n instanceof While;
+        
+        if (state == 0)
+        {
+            if (loop)
+            {
+                mark(emit(Bytecode.JUMP, 0) + 1);
+                mark(size);
+                schedule(n, 2);
+                schedule(cond.getChild(1), 0);
+                schedule(n, 1);
+                schedule(cond.getChild(0), 0);
+                schedule(n, 3);
+                schedule(n.getChild(1), 0);
+            }
+            else
+            {
+                schedule(n, 3);
+                schedule(n.getChild(1), 0);
+                schedule(n, 2);
+                schedule(cond.getChild(1), 0);
+                schedule(n, 1);
+                schedule(cond.getChild(0), 0);
+            }
+        }
+        else if (state == 1)
+        {
+            pinBefore(cond.getChild(1));
+        }
+        else if (state == 2)
+        {
+            int b = pop();
+            int a = pop();
+            
+            if (loop)
+            {
+                int body = marks[--markTop];
+                
+                markTop--;
+                emit(jumpOf(cond.getRelop()), a, b, body);
+            }
+            else
+            {
+                mark(emit(branchOf(cond.getRelop()), a, b, 0) + 3);
+            }
+        }
+        else if (loop)
+        {
+            patch(marks[markTop - 2]);
+        }
+        else
+        {
+            patch(marks[--markTop]);
+        }
+    }
+    
+    /**
+     * Copies the value on top of the operand stack to a temporary if it 
+     * is a global variable and the given operand, which is compiled 
+     * next, may call a procedure that sets it. Only an expression that 
+     * is not shallow may hold a call.
+     * @param next the given operand
+     * @postcondition The operand on top of the operand stack keeps its 
+     *                value until it is used.
+     */
+    private void pinBefore(Node next)
+    {
+        int operand = operands[operandTop - 1];
+        
+        if (!next.isShallow() && (operand & Bytecode.LOCAL) == 0 && 
+                staticNames.get(operand) != null)
+        {
+            pop();
+            
+            int temp = temporary();
+            
+            emit(Bytecode.MOVE, temp, operand);
+            push(temp);
+        }
+    }
+    
+    /**
+     * Makes the argument on top of the operand stack the next in the 
+     * run of temporaries that becomes the frame of the call.
+     * @postcondition The argument on top of the operand stack is the 
+     *                last temporary in use.
+     */
+    private void argument()
+    {
+        int operand = operands[operandTop - 1];
+        
+        if (!isLastTemporary(operand))
+        {
+            pop();
+            
+            int temp = temporary();
+            
+            emit(Bytecode.MOVE, temp, operand);
+            push(temp);
+        }
+    }
+    
+    /**
+     * Emits the call of the given procedure call, whose arguments are in 
+     * the last temporaries in use, and leaves its value in the first.
+     * @param c the given procedure call
+     * @postcondition A CALL, or a FAIL if the call cannot be made, is 
+     *                emitted, and the value of c is on top of the 
+     *                operand stack.
+     */
+    private void call(ProcedureCall c)
+    {
+        int count = c.getChildCount();
+        int base;
+        
+        if (count == 0)
+        {
+            base = temporary();
+        }
+        else
+        {
+            base = operands[operandTop - count];
+            operandTop -= count;
+            temps -= count - 1;
+        }
+        
+        if (!procedureIndex.containsKey(c.getId()))
+        {
+            fail("Procedure " + c.getName() + " is not defined");
+        }
+        else
+        {
+            int p = procedureIndex.get(c.getId());
+            int parameters = procedures.get(p).getParameterIds().length;
+            
+            if (parameters > count)
+            {
+                fail("Procedure " + c.getName() + " takes " + parameters + 
+                    " parameters, not " + count);
+            }
+            else
+            {
+                emit(Bytecode.CALL, p, base);
+            }
+        }
+        
+        push(base);
+    }
+    
+    /**
+     * Finds the operand of the variable with the given name, emitting 
+     * a CHECK if it is a global variable the program does not declare.
+     * @param id the symbol id of the name
+     * @return the operand of the variable
+     */
+    private int load(int id)
+    {
+        int slot = slotOf(id);
+        
+        if (slot >= 0)
+        {
+            return Bytecode.LOCAL | slot;
+        }
+        
+        int g = globalOf(id);
+        
+        if (!defined.get(g))
+        {
+            emit(Bytecode.CHECK, g);
+        }
+        
+        return g;
+    }
+    
+    /**
+     * Emits the store of the given operand into the variable with the 
+     * given name. If the operand is a temporary just computed by an 
+     * operation, the operation is made to compute into the variable.
+     * @param id the symbol id of the name
+     * @param operand the given operand
+     * @postcondition The variable is set to the value of operand.
+     */
+    private void store(int id, int operand)
+    {
+        int slot = slotOf(id);
+        int dest;
+        
+        if (slot >= 0)
+        {
+            dest = Bytecode.LOCAL | slot;
+        }
+        else
+        {
+            dest = globalOf(id);
+            
+            if (!defined.get(dest))
+            {
+                emit(Bytecode.SET, dest, operand);
+                return;
+            }
+        }
+        
+        if (lastDest >= 0 && code[lastDest] == operand && 
+                operand == (Bytecode.LOCAL | (slotCount + temps)))
+        {
+            code[lastDest] = dest;
+            lastDest = -1;
+        }
+        else
+        {
+            emit(Bytecode.MOVE, dest, operand);
+        }
+    }
+    
+    /**
+     * Emits a FAIL with the given message.
+     * @param message the given message
+     * @postcondition A FAIL is emitted and message is added to messages.
+     */
+    private void fail(String message)
+    {
+        emit(Bytecode.FAIL, messages.size());
+        messages.add(message);
+    }
+    
+    /**
+     * Pushes the given operand onto the operand stack.
+     * @param operand the given operand
+     * @postcondition operand is on top of the operand stack.
+     */
+    private void push(int operand)
+    {
+        if (operandTop == operands.length)
+        {
+            operands = Arrays.copyOf(operands, operandTop * 2);
+        }
+        
+        operands[operandTop++] = operand;
+    }
+    
+    /**
+     * Pops the top operand off the operand stack, freeing it if it is 
+     * the last temporary in use.
+     * @return the operand
+     */
+    private int pop()
+    {
+        int operand = operands[--operandTop];
+        
+        if (isLastTemporary(operand))
+        {
+            temps--;
+        }
+        
+        return operand;
+    }
+    
+    /**
+     * Checks whether the given operand is the last temporary in use.
+     * @param operand the given operand
+     * @return true if operand is the last temporary in use, otherwise 
+     *         false
+     */
+    private boolean isLastTemporary(int operand)
+    {
+        return temps > 0 && 
+            operand == (Bytecode.LOCAL | (slotCount + temps - 1));
+    }
+    
+    /**
+     * Takes the next free temporary in the frame.
+     * @return the operand of the temporary
+     * @postcondition temps is one greater, and maxTemps is at least 
+     *                temps.
+     */
+    private int temporary()
+    {
+        int operand = Bytecode.LOCAL | (slotCount + temps);
+        
+        temps++;
+        
+        if (temps > maxTemps)
+        {
+            maxTemps = temps;
+        }
+        
+        return operand;
+    }
+    
+    /**
+     * Finds the slot in the frame of the given name.
+     * @param id the symbol id of the name
+     * @return the slot of id, or -1 if id is a global variable
+     */
+    private int slotOf(int id)
+    {
+        for (int i = 0; i < slotCount; i++)
+        {
+            if (slotNames[i] == id)
+            {
+                return i;
+            }
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Finds the slot in the frame of the given name, giving it a new 
+     * slot if it has none.
+     * @param id the symbol id of the name
+     * @return the slot of id
+     */
+    private int slotFor(int id)
+    {
+        int slot = slotOf(id);
+        
+        if (slot < 0)
+        {
+            slot = slotCount;
+            slotNames[slotCount++] = id;
+        }
+        
+        return slot;
+    }
+    
+    /**
+     * Finds the static of the global variable with the given name, 
+     * giving it a new one if it has none.
+     * @param id the symbol id of the name
+     * @return the index of the static
+     */
+    private int globalOf(int id)
+    {
+        if (!globalIndex.containsKey(id))
+        {
+            globalIndex.put(id, statics.size());
+            statics.add(0);
+            staticNames.add(SymbolTable.getGlobal().getName(id));
+            defined.add(false);
+        }
+        
+        return globalIndex.get(id);
+    }
+    
+    /**
+     * Finds the static holding the given constant, giving it a new one 
+     * if it has none.
+     * @param value the given constant
+     * @return the index of the static
+     */
+    private int constantOf(int value)
+    {
+        Integer index = constantIndex.get(value);
+        
+        if (index == null)
+        {
+            index = statics.size();
+            constantIndex.put(value, index);
+            statics.add(value);
+            staticNames.add(null);
+            defined.add(true);
+        }
+        
+        return index;
+    }
+    
+    /**
+     * Finds the opcode of the given operation.
+     * @param op the given operation, one of "+", "-", "*" and "/"
+     * @return the opcode that applies op
+     */
+    private static int opcodeOf(String op)
+    {
+        if (op.equals("+"))
+        {
+            return Bytecode.ADD;
+        }
+        else if (op.equals("-"))
+        {
+            return Bytecode.SUBTRACT;
+        }
+        else if (op.equals("*"))
+        {
+            return Bytecode.MULTIPLY;
+        }
+        else
+        {
+            return Bytecode.DIVIDE;
+        }
+    }
+    
+    /**
+     * Finds the opcode of the jump taken when the given boolean 
+     * condition holds.
+     * @param relop the given boolean condition
+     * @return the opcode of the jump on the same comparison
+     */
+    private static int jumpOf(String relop)
+    {
+        if (relop.equals("="))
+        {
+            return Bytecode.JUMP_EQUALS;
+        }
+        else if (relop.equals("<>"))
+        {
+            return Bytecode.JUMP_NOT_EQUALS;
+        }
+        else if (relop.equals("<"))
+        {
+            return Bytecode.JUMP_LESS;
+        }
+        else if (relop.equals(">"))
+        {
+            return Bytecode.JUMP_GREATER;
+        }
+        else if (relop.equals("<="))
+        {
+            return Bytecode.JUMP_LESS_EQUALS;
+        }
+        else
+        {
+            return Bytecode.JUMP_GREATER_EQUALS;
+        }
+    }
+    
+    /**
+     * Finds the opcode of the jump taken when the given boolean 
+     * condition does not hold.
+     * @param relop the given boolean condition
+     * @return the opcode of the jump on the opposite comparison
+     */
+    private static int branchOf(String relop)
+    {
+        if (relop.equals("="))
+        {
+            return Bytecode.JUMP_NOT_EQUALS;
+        }
+        else if (relop.equals("<>"))
+        {
+            return Bytecode.JUMP_EQUALS;
+        }
+        else if (relop.equals("<"))
+        {
+            return Bytecode.JUMP_GREATER_EQUALS;
+        }
+        else if (relop.equals(">"))
+        {
+            return Bytecode.JUMP_LESS_EQUALS;
+        }
+        else if (relop.equals("<="))
+        {
+            return Bytecode.JUMP_GREATER;
+        }
+        else
+        {
+            return Bytecode.JUMP_LESS;
+        }
+    }
+    
+    /**
+     * Pushes the given index onto the mark stack, for a later step to 
+     * jump to or to patch.
+     * @param index the given index into the code
+     * @postcondition index is on top of the mark stack.
+     */
+    private void mark(int index)
+    {
+        if (markTop == marks.length)
+        {
+            marks = Arrays.copyOf(marks, markTop * 2);
+        }
+        
+        marks[markTop++] = index;
+    }
+    
+    /**
+     * Points the jump target at the given index to the next instruction.
+     * @param index the index into the code of the target of a jump
+     * @postcondition The target is the instance field size.
+     */
+    private void patch(int index)
+    {
+        code[index] = size;
+    }
+    
+    /**
+     * Emits an instruction with the given operands.
+     * @param op the opcode
+     * @param args the operands, in order
+     * @return the address of the instruction
+     * @postcondition lastDest is -1.
+     */
+    private int emit(int op, int... args)
+    {
+        if (size + 1 + args.length > code.length)
+        {
+            code = Arrays.copyOf(code, code.length * 2 + args.length);
+        }
+        
+        int address = size;
+        
+        code[size++] = op;
+        
+        for (int operand : args)
+        {
+            code[size++] = operand;
+        }
+        
+        lastDest = -1;
+        
+        return address;
+    }
+}
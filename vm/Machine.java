@@ -0,0 +1,209 @@
+package vm;
+import java.util.Arrays;
+
+/**
+ * Machine runs Bytecode in a single loop that switches on each opcode 
+ * in turn, keeping the program counter and the frame pointer in local 
+ * variables. Every value is in one int array, the memory, and each 
+ * call's return address and frame pointer are on a stack of their own, 
+ * so neither deep nesting nor deep recursion in the program is limited 
+ * by the thread stack. Since the compiler works out how many values 
+ * each frame holds, the memory only has to be checked for room when a 
+ * procedure is called, not on every instruction.
+ * The program writes and fails exactly as it would in the interpreter.
+ * @author Daniel Wang
+ * @version October 18, 2026
+ * Usage: Machine machine = new Machine(<bytecode>);
+ *        machine.run();
+ */
+public class Machine
+{
+    /**
+     * Instance variable
+     */
+    private Bytecode bytecode;
+    
+    /**
+     * Constructs a Machine object that runs the given Bytecode.
+     * @param b the given Bytecode
+     * @postcondition The instance field bytecode is set to b.
+     */
+    public Machine(Bytecode b)
+    {
+        bytecode = b;
+    }
+    
+    /**
+     * Finds the index in memory of the given operand. An operand with 
+     * the LOCAL bit set is an offset from the frame pointer, and any 
+     * other operand is the index of a static; the sign of the operand 
+     * picks between them without a branch.
+     * @param operand the given operand
+     * @param fp the frame pointer
+     * @return the index in memory of operand
+     */
+    private static int at(int operand, int fp)
+    {
+        return (operand & ~Bytecode.LOCAL) + (fp & (operand >> 31));
+    }
+    
+    /**
+     * Runs the program from the start of the main block, with every 
+     * global variable it declares set to 0.
+     * @postcondition The program has run to its end.
+     * @throws RuntimeException if a variable is read before it is set, 
+     *         a call cannot be made, or a division is by zero
+     */
+    public void run()
+    {
+        int[] code = bytecode.getCode();
+        int[] entries = bytecode.getEntries();
+        int[][] parameterSlots = bytecode.getParameterSlots();
+        int[] nameSlots = bytecode.getNameSlots();
+        int[] frameSizes = bytecode.getFrameSizes();
+        String[] staticNames = bytecode.getStaticNames();
+        boolean[] set = bytecode.getDefined().clone();
+        int[] statics = bytecode.getStatics();
+        
+        int[] m = Arrays.copyOf(statics, 
+            Math.max(64, statics.length + bytecode.getMainFrameSize()));
+        int[] calls = new int[64];
+        int callTop = 0;
+        int pc = 0;
+        int fp = statics.length;
+        
+        while (true)
+        {
+            switch (code[pc])
+            {
+                case Bytecode.MOVE: 
+                    m[at(code[pc + 1], fp)] = m[at(code[pc + 2], fp)];
+                    pc += 3;
+                    break;
+                case Bytecode.ADD: 
+                    m[at(code[pc + 1], fp)] = m[at(code[pc + 2], fp)] + 
+                        m[at(code[pc + 3], fp)];
+                    pc += 4;
+                    break;
+                case Bytecode.SUBTRACT: 
+                    m[at(code[pc + 1], fp)] = m[at(code[pc + 2], fp)] - 
+                        m[at(code[pc + 3], fp)];
+                    pc += 4;
+                    break;
+                case Bytecode.MULTIPLY: 
+                    m[at(code[pc + 1], fp)] = m[at(code[pc + 2], fp)] * 
+                        m[at(code[pc + 3], fp)];
+                    pc += 4;
+                    break;
+                case Bytecode.DIVIDE: 
+                    m[at(code[pc + 1], fp)] = m[at(code[pc + 2], fp)] / 
+                        m[at(code[pc + 3], fp)];
+                    pc += 4;
+                    break;
+                case Bytecode.JUMP: 
+                    pc = code[pc + 1];
+                    break;
+                case Bytecode.JUMP_EQUALS: 
+                    pc = m[at(code[pc + 1], fp)] == m[at(code[pc + 2], fp)] ? 
+                        code[pc + 3] : pc + 4;
+                    break;
+                case Bytecode.JUMP_NOT_EQUALS: 
+                    pc = m[at(code[pc + 1], fp)] != m[at(code[pc + 2], fp)] ? 
+                        code[pc + 3] : pc + 4;
+                    break;
+                case Bytecode.JUMP_LESS: 
+                    pc = m[at(code[pc + 1], fp)] < m[at(code[pc + 2], fp)] ? 
+                        code[pc + 3] : pc + 4;
+                    break;
+                case Bytecode.JUMP_GREATER: 
+                    pc = m[at(code[pc + 1], fp)] > m[at(code[pc + 2], fp)] ? 
+                        code[pc + 3] : pc + 4;
+                    break;
+                case Bytecode.JUMP_LESS_EQUALS: 
+                    pc = m[at(code[pc + 1], fp)] <= m[at(code[pc + 2], fp)] ? 
+                        code[pc + 3] : pc + 4;
+                    break;
+                case Bytecode.JUMP_GREATER_EQUALS: 
+                    pc = m[at(code[pc + 1], fp)] >= m[at(code[pc + 2], fp)] ? 
+                        code[pc + 3] : pc + 4;
+                    break;
+                case Bytecode.CALL: 
+                {
+                    int p = code[pc + 1];
+                    int base = fp + (code[pc + 2] & ~Bytecode.LOCAL);
+                    int top = base + frameSizes[p];
+                    
+                    if (top > m.length)
+                    {
+                        m = Arrays.copyOf(m, Math.max(m.length * 2, top));
+                    }
+                    
+                    if (callTop + 2 > calls.length)
+                    {
+                        calls = Arrays.copyOf(calls, calls.length * 2);
+                    }
+                    
+                    // A parameter's slot is never after its argument,
+                    // so the arguments can be moved into place in order.
+                    int[] slots = parameterSlots[p];
+                    
+                    for (int i = 0; i < slots.length; i++)
+                    {
+                        m[base + slots[i]] = m[base + i];
+                    }
+                    
+                    m[base + nameSlots[p]] = 0;
+                    calls[callTop++] = pc + 3;
+                    calls[callTop++] = fp;
+                    fp = base;
+                    pc = entries[p];
+                    break;
+                }
+                case Bytecode.RET: 
+                    m[fp] = m[fp + code[pc + 1]];
+                    fp = calls[--callTop];
+                    pc = calls[--callTop];
+                    break;
+                case Bytecode.WRITELN: 
+                    System.out.println(m[at(code[pc + 1], fp)]);
+                    pc += 2;
+                    break;
+                case Bytecode.WRITELN_TIMES: 
+                {
+                    int value = m[at(code[pc + 1], fp)];
+                    int times = m[at(code[pc + 2], fp)];
+                    
+                    for (int i = 0; i < times; i++)
+                    {
+                        System.out.println(value);
+                    }
+                    
+                    pc += 3;
+                    break;
+                }
+                case Bytecode.CHECK: 
+                    if (!set[code[pc + 1]])
+                    {
+                        throw new RuntimeException("Variable " + 
+                            staticNames[code[pc + 1]] + " is not defined");
+                    }
+                    
+                    pc += 2;
+                    break;
+                case Bytecode.SET: 
+                    m[code[pc + 1]] = m[at(code[pc + 2], fp)];
+                    set[code[pc + 1]] = true;
+                    pc += 3;
+                    break;
+                case Bytecode.FAIL: 
+                    throw new RuntimeException( 
+                        bytecode.getMessages()[code[pc + 1]]);
+                case Bytecode.HALT: 
+                    return;
+                default: 
+                    throw new IllegalStateException("Unknown opcode " + 
+                        code[pc] + " at " + pc);
+            }
+        }
+    }
+}